@@ -0,0 +1,88 @@
+import { useEffect, useRef } from 'react';
+import apiClient from '../services/api';
+
+/**
+ * Theo dõi thay đổi trạng thái ghế của suất chiếu qua SSE.
+ * onChanges nhận danh sách { seatId, seat, state }; onReset được gọi khi sơ đồ ghế cần tải lại toàn bộ.
+ * version là phiên bản của sơ đồ ghế đang hiển thị: khi kết nối (lại), các thay đổi bị lỡ được bù bằng ?sinceVersion=.
+ */
+export const useSeatStream = (showtimeId, { version, onChanges, onReset }) => {
+  const handlers = useRef({ onChanges, onReset });
+  handlers.current = { onChanges, onReset };
+  // Phiên bản mới nhất đã áp dụng (từ sơ đồ ghế đã tải hoặc sự kiện cuối cùng)
+  const lastVersion = useRef(null);
+
+  useEffect(() => {
+    if (version != null && (lastVersion.current == null || version > lastVersion.current)) {
+      lastVersion.current = version;
+    }
+  }, [version]);
+
+  useEffect(() => {
+    if (!showtimeId || typeof EventSource === 'undefined') return undefined;
+
+    let closed = false;
+    let disconnected = false;
+    // Sự kiện đến trong lúc đang bù, áp dụng sau phần bù
+    let buffered = null;
+
+    const apply = (data) => {
+      if (lastVersion.current != null && data.version <= lastVersion.current) return;
+      lastVersion.current = data.version;
+      handlers.current.onChanges?.(data.changes || []);
+    };
+
+    const resync = async () => {
+      buffered = [];
+      try {
+        const { data } = await apiClient.get(`/booking/showtime/${showtimeId}/seats`, {
+          params: { sinceVersion: lastVersion.current },
+        });
+        if (closed) return;
+        if (data.fromVersion == null) {
+          // Lịch sử thay đổi trên server không còn đủ: server trả cả sơ đồ
+          handlers.current.onReset?.();
+        } else {
+          apply({
+            version: data.version,
+            changes: (data.changedSeats || []).map((seat) => ({
+              seatId: seat.id,
+              seat: `${seat.rowLabel}${seat.seatNumber}`,
+              state: seat.booked ? 'BOOKED' : 'AVAILABLE',
+            })),
+          });
+        }
+      } catch {
+        if (!closed) handlers.current.onReset?.();
+      } finally {
+        const pending = buffered;
+        buffered = null;
+        if (!closed) pending.forEach(apply);
+      }
+    };
+
+    const source = new EventSource(`${apiClient.defaults.baseURL}/booking/showtime/${showtimeId}/seats/stream`);
+    source.addEventListener('open', () => {
+      if (lastVersion.current != null) {
+        resync();
+      } else if (disconnected) {
+        handlers.current.onReset?.();
+      }
+      disconnected = false;
+    });
+    source.addEventListener('error', () => {
+      disconnected = true;
+    });
+    source.addEventListener('seats', (event) => {
+      const data = JSON.parse(event.data);
+      if (buffered) buffered.push(data);
+      else apply(data);
+    });
+    source.addEventListener('reset', () => handlers.current.onReset?.());
+
+    return () => {
+      closed = true;
+      source.close();
+    };
+  }, [showtimeId]);
+};
@@ -9,6 +9,7 @@ import { Label } from "@/components/ui/label";
 import { RadioGroup, RadioGroupItem } from "@/components/ui/radio-group";
 
 import { useToast } from "@/hooks/use-toast";
+import { useSeatStream } from "@/hooks/useSeatStream.js";
 import { format } from "date-fns";
 
 // Hàm helper để định dạng tiền tệ sang VND
@@ -32,6 +33,7 @@ export default function Booking() {
   const [showtime, setShowtime] = useState(null);
   const [bookedSeatCodes, setBookedSeatCodes] = useState([]); // Chứa mã ghế đã đặt (vd: ["A1", "A2"])
   const [allSeats, setAllSeats] = useState([]); // Chứa thông tin tất cả ghế với type
+  const [seatVersion, setSeatVersion] = useState(null); // Phiên bản sơ đồ ghế đang hiển thị
   const [selectedSeats, setSelectedSeats] = useState([]);
   const [paymentMethod, setPaymentMethod] = useState("cash");
   const [loading, setLoading] = useState(true);
@@ -49,6 +51,25 @@ export default function Booking() {
     }
 }, [showtimeId]);
 
+  // Cập nhật ghế đã đặt theo thời gian thực thay vì tải lại toàn bộ sơ đồ ghế
+  useSeatStream(showtimeId, {
+    version: seatVersion,
+    onChanges: (changes) => {
+      setBookedSeatCodes((prev) => {
+        const booked = new Set(prev);
+        changes.forEach(({ seat, state }) => {
+          if (state === "AVAILABLE") booked.delete(seat);
+          else booked.add(seat);
+        });
+        return [...booked];
+      });
+      // Ghế đang chọn vừa bị người khác lấy thì bỏ chọn ngay
+      const taken = new Set(changes.filter(({ state }) => state !== "AVAILABLE").map(({ seat }) => seat));
+      setSelectedSeats((prev) => prev.filter((seat) => !taken.has(seat)));
+    },
+    onReset: () => fetchShowtimeDetails(),
+  });
+
   const fetchShowtimeDetails = async () => {
     try {
         const apiUrl = `/showtimes/${showtimeId}/details`;
@@ -93,6 +114,7 @@ export default function Booking() {
         setBookedSeatCodes(data.bookedSeatCodes || []);
         // Lưu thông tin tất cả ghế với type (VIP, STANDARD, DISABLED, COUPLE)
         setAllSeats(data.allSeats || []);
+        setSeatVersion(data.version ?? null);
         console.log("✅ Đã set showtime state thành công");
 
     } catch (error) {
@@ -23,27 +23,32 @@ const ShowtimeManagement = () => {
   const [rooms, setRooms] = useState([]);
   const [showtimes, setShowtimes] = useState([]);
 
-  const fetchShowtimes = async () => {
+  const [nextCursor, setNextCursor] = useState(null);
+
+  // Lấy lịch chiếu của ngày đang chọn từ server (lọc + phân trang cursor), không tải toàn bộ suất chiếu
+  const fetchShowtimes = async (cursor = null) => {
     try {
-      const res = await fetch("http://localhost:8080/api/showtimes");
+      const day = format(dateFilter, "yyyy-MM-dd");
+      const params = new URLSearchParams({ from: day, to: day, size: "100" });
+      if (cursor) params.set("cursor", cursor);
+      const res = await fetch(`http://localhost:8080/api/showtimes/search?${params}`);
       if (!res.ok) throw new Error(`HTTP ${res.status}`);
       const data = await res.json();
-      const mapped = (data.content || []).map((s) => {
+      const mapped = (data.items || []).map((s) => {
         let starts = s.startsAt ? parseISO(s.startsAt) : new Date();
-        const movie = movies.find(m => String(m.id) === String(s.movieId));
-        const room = rooms.find(r => String(r.id) === String(s.roomId));
         return {
           id: s.id,
-          movieId: s.movieId?.toString() ?? String(s.movieId),
-          movieTitle: movie?.title ?? s.movieTitle ?? `Phim #${s.movieId}`,
-          roomId: s.roomId?.toString() ?? String(s.roomId),
-          roomName: room?.name ?? s.roomName ?? `Phòng ${s.roomId}`,
+          movieId: String(s.movieId),
+          movieTitle: s.movieTitle ?? `Phim #${s.movieId}`,
+          roomId: String(s.roomId),
+          roomName: s.roomName ?? `Phòng ${s.roomId}`,
           date: format(starts, "yyyy-MM-dd"),
           time: format(starts, "HH:mm"),
-          price: s.basePrice ?? s.price ?? 0
+          price: s.basePrice ?? 0
         };
       });
-      setShowtimes(mapped);
+      setShowtimes(prev => (cursor ? [...prev, ...mapped] : mapped));
+      setNextCursor(data.nextCursor ?? null);
     } catch (err) {
       console.error("Failed to fetch showtimes:", err);
     }
@@ -68,20 +73,21 @@ const ShowtimeManagement = () => {
         }
       } catch (err) {
         console.warn('Failed to prefetch movies/rooms on mount:', err);
-      } finally {
-        await fetchShowtimes();
       }
     };
 
     init();
   }, []);
 
+  useEffect(() => {
+    fetchShowtimes();
+  }, [dateFilter]);
+
   const filteredShowtimes = showtimes.filter(showtime => {
     const matchesSearch =
       showtime.movieTitle.toLowerCase().includes(searchTerm.toLowerCase()) ||
       showtime.roomName.toLowerCase().includes(searchTerm.toLowerCase());
-    const matchesDate = showtime.date === format(dateFilter, 'yyyy-MM-dd');
-    return matchesSearch && matchesDate;
+    return matchesSearch;
   });
 
   const ShowtimeForm = ({ showtime = null, onClose }) => {
@@ -282,7 +288,7 @@ const ShowtimeManagement = () => {
                   <CalendarComponent
                     mode="single"
                     selected={dateFilter}
-                    onSelect={setDateFilter}
+                    onSelect={(d) => d && setDateFilter(d)}
                     initialFocus
                   />
                 </PopoverContent>
@@ -357,6 +363,11 @@ const ShowtimeManagement = () => {
               ))}
             </TableBody>
           </Table>
+          {nextCursor && (
+            <div className="flex justify-center pt-4">
+              <Button variant="outline" onClick={() => fetchShowtimes(nextCursor)}>Tải thêm</Button>
+            </div>
+          )}
         </CardContent>
       </Card>
 
@@ -0,0 +1,22 @@
+package com.cinema.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Main của {@code benchmarks.jar}: như {@link Main} của JMH nhưng luôn bật profiler {@code gc}
+ * (trừ khi đã chỉ định {@code -prof}), để mỗi kết quả ops/s đi kèm lượng cấp phát bộ nhớ.
+ */
+public class CinemaBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        List<String> argv = new ArrayList<>(List.of(args));
+        if (!argv.contains("-prof")) {
+            argv.add("-prof");
+            argv.add("gc");
+        }
+        Main.main(argv.toArray(String[]::new));
+    }
+}
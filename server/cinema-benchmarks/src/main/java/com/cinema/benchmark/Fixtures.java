@@ -0,0 +1,210 @@
+package com.cinema.benchmark;
+
+import com.cinema.model.Movie;
+import com.cinema.model.Order;
+import com.cinema.model.PricingRule;
+import com.cinema.model.Room;
+import com.cinema.model.Seat;
+import com.cinema.model.Showtime;
+import com.cinema.model.Ticket;
+import com.cinema.model.Transaction;
+import com.cinema.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Dữ liệu mẫu cỡ thật cho benchmark: phòng 100-600 ghế, đơn 1-20 vé, bộ quy tắc giá như đang dùng.
+ * Sinh với seed cố định để các lượt đo so sánh được với nhau.
+ */
+final class Fixtures {
+
+    static final Long ROOM_ID = 1L;
+    static final Long SHOWTIME_ID = 1L;
+    // Tối thứ Sáu: khớp khung giờ vàng cuối tuần
+    static final LocalDateTime STARTS_AT = LocalDateTime.of(2026, 10, 16, 19, 30);
+    static final BigDecimal BASE_PRICE = new BigDecimal("90000.00");
+    private static final long SEED = 42;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Phòng {@code seatCount} ghế (100, 300 hoặc 600), hai hàng cuối là ghế VIP.
+     */
+    static Room room(int seatCount) {
+        int seatsPerRow = seatCount <= 100 ? 10 : seatCount <= 300 ? 20 : 25;
+        if (seatCount % seatsPerRow != 0 || seatCount / seatsPerRow > 26) {
+            throw new IllegalArgumentException("Số ghế không hợp lệ: " + seatCount);
+        }
+        int rows = seatCount / seatsPerRow;
+
+        Room room = Room.builder()
+                .id(ROOM_ID)
+                .name("Phòng " + seatCount)
+                .totalRows(rows)
+                .seatsPerRow(seatsPerRow)
+                .seats(new ArrayList<>(seatCount))
+                .build();
+        long seatId = 1;
+        for (int r = 0; r < rows; r++) {
+            for (int n = 1; n <= seatsPerRow; n++) {
+                Seat seat = new Seat();
+                seat.setId(seatId++);
+                seat.setRoom(room);
+                seat.setRowLabel(String.valueOf((char) ('A' + r)));
+                seat.setSeatNumber(n);
+                seat.setType(r >= rows - 2 ? "VIP" : "STANDARD");
+                room.getSeats().add(seat);
+            }
+        }
+        return room;
+    }
+
+    static Showtime showtime(Room room) {
+        Movie movie = new Movie();
+        movie.setId(1L);
+        movie.setTitle("Lật Mặt 8: Vòng Tay Nắng");
+        movie.setDurationMinutes(135);
+        movie.setStatus("NOW_SHOWING");
+
+        Showtime showtime = new Showtime();
+        showtime.setId(SHOWTIME_ID);
+        showtime.setMovie(movie);
+        showtime.setRoom(room);
+        showtime.setStartsAt(STARTS_AT);
+        showtime.setEndsAt(STARTS_AT.plusMinutes(135));
+        showtime.setBasePrice(BASE_PRICE);
+        return showtime;
+    }
+
+    /**
+     * Id của {@code percent}% số ghế, chọn ngẫu nhiên.
+     */
+    static Set<Long> bookedSeatIds(Room room, int percent) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Set<Long> booked = new HashSet<>();
+        for (Seat seat : room.getSeats()) {
+            if (random.nextInt(100) < percent) {
+                booked.add(seat.getId());
+            }
+        }
+        return booked;
+    }
+
+    static List<PricingRule> pricingRules() {
+        List<PricingRule> rules = new ArrayList<>();
+        rules.add(rule(1L, "Ghế VIP", r -> {
+            r.setSeatType("VIP");
+            r.setMultiplier(new BigDecimal("1.50"));
+        }));
+        rules.add(rule(2L, "Tối thứ Sáu", r -> {
+            r.setDayOfWeek(DayOfWeek.FRIDAY);
+            r.setStartTime(LocalTime.of(18, 0));
+            r.setEndTime(LocalTime.of(23, 0));
+            r.setMultiplier(new BigDecimal("1.20"));
+        }));
+        rules.add(rule(3L, "Sắp hết chỗ", r -> {
+            r.setMinOccupancyPercent(70);
+            r.setMultiplier(new BigDecimal("1.10"));
+        }));
+        rules.add(rule(4L, "Gần kín chỗ", r -> {
+            r.setMinOccupancyPercent(90);
+            r.setMultiplier(new BigDecimal("1.15"));
+        }));
+        // Quy tắc của phòng khác: bị loại ở bước lọc theo suất chiếu
+        rules.add(rule(5L, "Phòng IMAX", r -> {
+            r.setRoomId(99L);
+            r.setMultiplier(new BigDecimal("1.40"));
+        }));
+        return rules;
+    }
+
+    private static PricingRule rule(Long id, String name, Consumer<PricingRule> customizer) {
+        PricingRule rule = new PricingRule();
+        rule.setId(id);
+        rule.setName(name);
+        rule.setPriority(id.intValue());
+        customizer.accept(rule);
+        return rule;
+    }
+
+    /**
+     * {@code count} đơn, mỗi đơn {@code ticketsPerOrder} vé và hai giao dịch (một lần thất bại, một lần thành công),
+     * đầy đủ quan hệ như khi nạp bằng các truy vấn {@code ...WithDetails}.
+     */
+    static List<Order> orders(Showtime showtime, int count, int ticketsPerOrder) {
+        List<Seat> seats = showtime.getRoom().getSeats();
+        List<Order> orders = new ArrayList<>(count);
+        long ticketId = 1;
+        long transactionId = 1;
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setEmail("khach" + i + "@example.com");
+            user.setFullName("Nguyễn Văn Khách " + i);
+            user.setPhone("09" + String.format("%08d", i));
+
+            Order order = new Order();
+            order.setId((long) i + 1);
+            order.setUser(user);
+            order.setStatus("COMPLETED");
+            order.setTicketCode(String.format("CNM-%04d-%04d", i / 10_000, i % 10_000));
+            order.setCreatedAt(STARTS_AT.minusDays(2).plusMinutes(i));
+
+            BigDecimal total = BigDecimal.ZERO;
+            for (int t = 0; t < ticketsPerOrder; t++) {
+                Ticket ticket = new Ticket();
+                ticket.setId(ticketId++);
+                ticket.setShowtime(showtime);
+                ticket.setSeat(seats.get((i * ticketsPerOrder + t) % seats.size()));
+                ticket.setOrder(order);
+                ticket.setPrice(BASE_PRICE);
+                ticket.setStatus("SOLD");
+                order.getTickets().add(ticket);
+                total = total.add(ticket.getPrice());
+            }
+            order.setTotalAmount(total);
+
+            Transaction failed = transaction(transactionId++, order, "FAILED", null);
+            Transaction succeeded = transaction(transactionId++, order, "SUCCESS", order.getCreatedAt().plusMinutes(1));
+            order.getTransactions().add(failed);
+            order.getTransactions().add(succeeded);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static Transaction transaction(long id, Order order, String status, LocalDateTime paidAt) {
+        Transaction tx = new Transaction();
+        tx.setId(id);
+        tx.setOrder(order);
+        tx.setAmount(order.getTotalAmount());
+        tx.setPaymentMethod("MOMO");
+        tx.setStatus(status);
+        tx.setPaidAt(paidAt);
+        tx.setCreatedAt(order.getCreatedAt().plusSeconds(id));
+        return tx;
+    }
+
+    /**
+     * ObjectMapper cấu hình như của Spring Boot (ngày giờ dạng ISO, múi giờ của ứng dụng).
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .timeZone("Asia/Ho_Chi_Minh")
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.cinema.benchmark;
+
+import com.cinema.model.Order;
+import com.cinema.model.Showtime;
+import com.cinema.model.Transaction;
+import com.cinema.repository.OrderRepository;
+import com.cinema.repository.PricingRuleRepository;
+import com.cinema.repository.SeatRepository;
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.TicketRepository;
+import com.cinema.repository.TransactionRepository;
+import com.cinema.service.OrderService;
+import com.cinema.service.PricingEngine;
+import com.cinema.service.RoomSeatIndex;
+import com.cinema.service.SeatJournal;
+import com.cinema.service.SeatStateEngine;
+import com.cinema.service.TransactionService;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Dựng các service thật của ứng dụng trên repository giả, không cần Spring context.
+ */
+final class InMemoryServices {
+
+    private InMemoryServices() {
+    }
+
+    static SeatStateEngine seatStateEngine(Showtime showtime, Set<Long> bookedSeatIds) {
+        ShowtimeRepository showtimes = RepositoryStubs.stub(ShowtimeRepository.class,
+                Map.of("findByIdWithDetails", args -> Optional.of(showtime)));
+        SeatRepository seats = RepositoryStubs.stub(SeatRepository.class,
+                Map.of("findByRoomId", args -> showtime.getRoom().getSeats()));
+        TicketRepository tickets = RepositoryStubs.stub(TicketRepository.class,
+                Map.of("findBookedSeatIdsByShowtimeIdAndStatus", args -> bookedSeatIds));
+        // Nhật ký tắt; benchmark chỉ đọc nên không phát sự kiện ghế, không cập nhật lịch chiếu theo ngày
+        SeatJournal journal = new SeatJournal(false, Path.of("."), DataSize.ofMegabytes(1), 1);
+        return new SeatStateEngine(showtimes, new RoomSeatIndex(seats), tickets, journal, null, null, 256);
+    }
+
+    static PricingEngine pricingEngine(SeatStateEngine seatStateEngine) {
+        PricingRuleRepository rules = RepositoryStubs.stub(PricingRuleRepository.class,
+                Map.of("findByActiveTrueOrderByPriorityAscIdAsc", args -> Fixtures.pricingRules()));
+        return new PricingEngine(rules, seatStateEngine);
+    }
+
+    static OrderService orderService(List<Order> orders) {
+        Map<Long, Order> byId = orders.stream().collect(Collectors.toMap(Order::getId, Function.identity()));
+        OrderRepository orderRepository = RepositoryStubs.stub(OrderRepository.class, Map.of(
+                "findAllWithDetails", args -> orders,
+                "findByIdWithDetails", args -> Optional.ofNullable(byId.get((Long) args[0]))));
+        return new OrderService(orderRepository, null, null);
+    }
+
+    static TransactionService transactionService(List<Order> orders) {
+        List<Transaction> transactions = orders.stream().flatMap(order -> order.getTransactions().stream()).toList();
+        TransactionRepository transactionRepository = RepositoryStubs.stub(TransactionRepository.class,
+                Map.of("findAllWithOrderDetails", args -> transactions));
+        return new TransactionService(transactionRepository);
+    }
+}
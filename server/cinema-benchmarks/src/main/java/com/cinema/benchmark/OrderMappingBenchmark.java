@@ -0,0 +1,86 @@
+package com.cinema.benchmark;
+
+import com.cinema.dto.OrderDetailDTO;
+import com.cinema.dto.OrderSummaryDTO;
+import com.cinema.dto.TransactionDTO;
+import com.cinema.model.Order;
+import com.cinema.service.OrderService;
+import com.cinema.service.TransactionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping entity → DTO của đơn hàng / giao dịch (trang quản trị, tra cứu tại quầy) và ghi JSON.
+ * Entity được dựng sẵn với đủ quan hệ, nên chỉ đo phần mapping chứ không đo truy vấn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderMappingBenchmark {
+
+    // Số đơn của một lần tải danh sách đơn / giao dịch
+    private static final int ORDERS = 50;
+
+    @Param({"1", "4", "20"})
+    int ticketsPerOrder;
+
+    private OrderService orderService;
+    private TransactionService transactionService;
+    private ObjectMapper objectMapper;
+    private Long orderId;
+    private List<OrderSummaryDTO> summaries;
+    private OrderDetailDTO detail;
+
+    @Setup
+    public void setUp() {
+        List<Order> orders = Fixtures.orders(Fixtures.showtime(Fixtures.room(600)), ORDERS, ticketsPerOrder);
+        orderService = InMemoryServices.orderService(orders);
+        transactionService = InMemoryServices.transactionService(orders);
+        objectMapper = Fixtures.objectMapper();
+        orderId = orders.get(0).getId();
+        summaries = orderService.getAllOrdersForAdmin();
+        detail = orderService.getOrderDetail(orderId);
+    }
+
+    @Benchmark
+    public List<OrderSummaryDTO> orderSummaries() {
+        return orderService.getAllOrdersForAdmin();
+    }
+
+    @Benchmark
+    public OrderDetailDTO orderDetail() {
+        return orderService.getOrderDetail(orderId);
+    }
+
+    @Benchmark
+    public List<TransactionDTO> transactions() {
+        return transactionService.getAllTransactionsForAdmin();
+    }
+
+    @Benchmark
+    public byte[] serializeOrderSummaries() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+    @Benchmark
+    public byte[] serializeOrderDetail() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(detail);
+    }
+}
@@ -0,0 +1,65 @@
+package com.cinema.benchmark;
+
+import com.cinema.service.PriceTable;
+import com.cinema.service.PricingEngine;
+import com.cinema.service.SeatLayout;
+import com.cinema.service.ShowtimeSeatSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giá vé: biên dịch bảng giá của một suất chiếu (khi nạp / khi quy tắc đổi)
+ * và tra giá toàn bộ sơ đồ ghế (mỗi lần trả sơ đồ ghế).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PricingBenchmark {
+
+    @Param({"100", "300", "600"})
+    int seats;
+
+    // Trên ngưỡng 70%: bảng giá có ba mức, tra ở mức giữa
+    private static final int OCCUPANCY_PERCENT = 75;
+
+    private PricingEngine pricingEngine;
+    private SeatLayout layout;
+    private PriceTable table;
+
+    @Setup
+    public void setUp() {
+        var showtime = Fixtures.showtime(Fixtures.room(seats));
+        var seatStateEngine = InMemoryServices.seatStateEngine(showtime, Fixtures.bookedSeatIds(showtime.getRoom(), 0));
+        ShowtimeSeatSnapshot snapshot = seatStateEngine.find(Fixtures.SHOWTIME_ID).orElseThrow();
+        pricingEngine = InMemoryServices.pricingEngine(seatStateEngine);
+        layout = snapshot.layout();
+        table = pricingEngine.tableFor(snapshot);
+    }
+
+    @Benchmark
+    public PriceTable compileTable() {
+        return pricingEngine.compile(Fixtures.BASE_PRICE, Fixtures.STARTS_AT, Fixtures.ROOM_ID, layout);
+    }
+
+    @Benchmark
+    public void priceAllSeats(Blackhole blackhole) {
+        for (int pos = 0; pos < layout.size(); pos++) {
+            blackhole.consume(table.priceAt(pos, OCCUPANCY_PERCENT));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cinema.benchmark;
+
+import com.cinema.dto.ShowtimeSeatInfoDTO;
+import com.cinema.service.ShowtimeSeatService;
+import com.cinema.service.impl.ShowtimeSeatServiceImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sơ đồ ghế: {@code GET /api/booking/showtime/{id}/seats} gồm dựng DTO từ ảnh chụp trong bộ nhớ và ghi JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SeatMapBenchmark {
+
+    @Param({"100", "300", "600"})
+    int seats;
+
+    @Param({"40"})
+    int bookedPercent;
+
+    private ShowtimeSeatService seatService;
+    private ObjectMapper objectMapper;
+    private ShowtimeSeatInfoDTO seatInfo;
+
+    @Setup
+    public void setUp() {
+        var showtime = Fixtures.showtime(Fixtures.room(seats));
+        var seatStateEngine = InMemoryServices.seatStateEngine(showtime,
+                Fixtures.bookedSeatIds(showtime.getRoom(), bookedPercent));
+        seatService = new ShowtimeSeatServiceImpl(seatStateEngine, InMemoryServices.pricingEngine(seatStateEngine));
+        objectMapper = Fixtures.objectMapper();
+        // Nạp ảnh chụp và bảng giá trước, như suất chiếu đang được xem
+        seatInfo = seatService.getShowtimeSeatInfo(Fixtures.SHOWTIME_ID);
+    }
+
+    @Benchmark
+    public ShowtimeSeatInfoDTO buildSeatInfo() {
+        return seatService.getShowtimeSeatInfo(Fixtures.SHOWTIME_ID);
+    }
+
+    @Benchmark
+    public byte[] serializeSeatInfo() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(seatInfo);
+    }
+
+    @Benchmark
+    public byte[] seatInfoResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(seatService.getShowtimeSeatInfo(Fixtures.SHOWTIME_ID));
+    }
+}
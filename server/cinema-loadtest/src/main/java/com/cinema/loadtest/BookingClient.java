@@ -0,0 +1,97 @@
+package com.cinema.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gọi API đặt vé / hủy đơn qua HTTP thật, để lượt chạy đi qua cả filter, idempotency và xử lý lỗi của controller.
+ */
+final class BookingClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final URI baseUri;
+
+    BookingClient(int port, ObjectMapper objectMapper) {
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.objectMapper = objectMapper;
+        this.baseUri = URI.create("http://localhost:" + port);
+    }
+
+    Response book(Long showtimeId, Long userId, List<String> seats, String paymentMethod) {
+        return send("POST", "/api/booking", Map.of(
+                "showtimeId", showtimeId,
+                "userId", userId,
+                "selectedSeats", seats,
+                "paymentMethod", paymentMethod));
+    }
+
+    Response cancel(Long orderId) {
+        return send("PUT", "/api/admin/orders/" + orderId + "/status", Map.of("newStatus", "CANCELLED"));
+    }
+
+    private Response send(String method, String path, Map<String, Object> body) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(baseUri.resolve(path))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            long latency = System.nanoTime() - start;
+            return new Response(response.statusCode(), latency, parse(response.body()));
+        } catch (IOException e) {
+            return new Response(0, System.nanoTime() - start, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Response(0, System.nanoTime() - start, null);
+        }
+    }
+
+    private JsonNode parse(String body) {
+        if (body == null || body.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param status mã HTTP, 0 nếu lỗi kết nối / hết thời gian chờ
+     */
+    record Response(int status, long latencyNanos, JsonNode body) {
+
+        boolean ok() {
+            return status == 200;
+        }
+
+        Long orderId() {
+            JsonNode id = body != null ? body.get("bookingId") : null;
+            return id != null && !id.isNull() ? id.asLong() : null;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.cinema.loadtest;
+
+import java.util.List;
+
+/**
+ * Dữ liệu đã sinh cho một lượt chạy: một suất chiếu, một phòng và mỗi client một user.
+ *
+ * @param seatRows mã ghế theo hàng, theo thứ tự số ghế
+ */
+public record Fixture(Long showtimeId, Long roomId, List<Long> userIds, List<List<String>> seatRows) {
+
+    public int seatCount() {
+        return seatRows.stream().mapToInt(List::size).sum();
+    }
+}
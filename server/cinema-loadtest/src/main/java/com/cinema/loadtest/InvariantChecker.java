@@ -0,0 +1,164 @@
+package com.cinema.loadtest;
+
+import com.cinema.service.SeatStateEngine;
+import com.cinema.service.ShowtimeSeatCounters;
+import com.cinema.service.ShowtimeSeatSnapshot;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kiểm tra DB sau lượt chạy: không ghế nào bán hai lần, tổng tiền đơn khớp giá vé,
+ * DB, bộ nhớ ({@link SeatStateEngine}) cùng phía client thống nhất về ghế nào thuộc đơn nào,
+ * và bộ đếm ghế trên dòng suất chiếu ({@link ShowtimeSeatCounters}) khớp số vé.
+ */
+final class InvariantChecker {
+
+    // Đơn đã hủy / hoàn tiền vẫn giữ liên kết order_tickets nhưng không còn sở hữu ghế
+    private static final List<String> RELEASED_ORDER_STATUSES = List.of("CANCELLED", "REFUNDED");
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final SeatStateEngine seatStateEngine;
+    private final Fixture fixture;
+
+    InvariantChecker(ApplicationContext context, Fixture fixture) {
+        this.jdbc = new NamedParameterJdbcTemplate(context.getBean(DataSource.class));
+        this.seatStateEngine = context.getBean(SeatStateEngine.class);
+        this.fixture = fixture;
+    }
+
+    List<String> check(Map<String, Long> clientLiveSeats) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("showtimeId", fixture.showtimeId())
+                .addValue("released", RELEASED_ORDER_STATUSES)
+                .addValue("occupied", SeatStateEngine.OCCUPIED_TICKET_STATUSES)
+                .addValue("sold", ShowtimeSeatCounters.SOLD_TICKET_STATUSES)
+                .addValue("held", ShowtimeSeatCounters.HELD_TICKET_STATUSES);
+        List<String> violations = new ArrayList<>();
+
+        // Mỗi (suất chiếu, ghế) chỉ có một vé
+        jdbc.query("""
+                SELECT t.seat_id, COUNT(*) AS copies FROM tickets t
+                WHERE t.showtime_id = :showtimeId
+                GROUP BY t.seat_id HAVING COUNT(*) > 1
+                """, params, rs -> {
+            violations.add("Ghế " + rs.getLong("seat_id") + " có " + rs.getLong("copies") + " vé");
+        });
+
+        // Một vé không thể thuộc hai đơn còn hiệu lực
+        jdbc.query("""
+                SELECT ot.ticket_id, COUNT(*) AS owners FROM order_tickets ot
+                JOIN orders o ON o.id = ot.order_id
+                JOIN tickets t ON t.id = ot.ticket_id
+                WHERE t.showtime_id = :showtimeId AND o.status NOT IN (:released)
+                GROUP BY ot.ticket_id HAVING COUNT(*) > 1
+                """, params, rs -> {
+            violations.add("Vé " + rs.getLong("ticket_id") + " thuộc " + rs.getLong("owners") + " đơn còn hiệu lực");
+        });
+
+        // Vé của đơn còn hiệu lực phải vẫn đang bán cho chính đơn đó
+        jdbc.query("""
+                SELECT o.id AS order_id, t.id AS ticket_id, t.order_id AS ticket_order_id, t.status
+                FROM orders o
+                JOIN order_tickets ot ON ot.order_id = o.id
+                JOIN tickets t ON t.id = ot.ticket_id
+                WHERE t.showtime_id = :showtimeId AND o.status NOT IN (:released)
+                  AND (t.order_id IS NULL OR t.order_id <> o.id OR t.status NOT IN (:occupied))
+                """, params, rs -> {
+            violations.add("Đơn " + rs.getLong("order_id") + " giữ vé " + rs.getLong("ticket_id")
+                    + " nhưng vé thuộc đơn " + rs.getObject("ticket_order_id") + " (" + rs.getString("status") + ")");
+        });
+
+        // Tổng tiền đơn = tổng giá vé
+        jdbc.query("""
+                SELECT o.id, o.total_amount, SUM(t.price) AS ticket_total FROM orders o
+                JOIN order_tickets ot ON ot.order_id = o.id
+                JOIN tickets t ON t.id = ot.ticket_id
+                WHERE t.showtime_id = :showtimeId AND o.status NOT IN (:released)
+                GROUP BY o.id, o.total_amount
+                HAVING o.total_amount <> SUM(t.price)
+                """, params, rs -> {
+            violations.add("Đơn " + rs.getLong("id") + " có tổng " + rs.getBigDecimal("total_amount")
+                    + " nhưng giá vé cộng lại " + rs.getBigDecimal("ticket_total"));
+        });
+
+        // Giao dịch ghi đúng số tiền của đơn
+        jdbc.query("""
+                SELECT o.id, o.total_amount, tx.amount FROM orders o
+                JOIN transactions tx ON tx.order_id = o.id
+                WHERE o.id IN (SELECT ot.order_id FROM order_tickets ot
+                               JOIN tickets t ON t.id = ot.ticket_id WHERE t.showtime_id = :showtimeId)
+                  AND tx.amount <> o.total_amount
+                """, params, rs -> {
+            violations.add("Giao dịch của đơn " + rs.getLong("id") + " ghi " + rs.getBigDecimal("amount")
+                    + " thay vì " + rs.getBigDecimal("total_amount"));
+        });
+
+        // Ghế đã bán theo DB
+        Map<String, Long> dbLiveSeats = new HashMap<>();
+        jdbc.query("""
+                SELECT s.row_label, s.seat_number, t.order_id FROM tickets t
+                JOIN seats s ON s.id = t.seat_id
+                WHERE t.showtime_id = :showtimeId AND t.status IN (:occupied)
+                """, params, rs -> {
+            dbLiveSeats.put(rs.getString("row_label") + rs.getInt("seat_number"), rs.getLong("order_id"));
+        });
+
+        dbLiveSeats.forEach((seat, orderId) -> {
+            Long clientOrderId = clientLiveSeats.get(seat);
+            if (!orderId.equals(clientOrderId)) {
+                violations.add("DB ghi ghế " + seat + " thuộc đơn " + orderId + ", client nhận " + clientOrderId);
+            }
+        });
+        clientLiveSeats.forEach((seat, orderId) -> {
+            if (!dbLiveSeats.containsKey(seat)) {
+                violations.add("Client nhận ghế " + seat + " cho đơn " + orderId + " nhưng DB không còn vé");
+            }
+        });
+
+        // Bộ đếm cộng dồn trong các transaction đặt / hủy vé khớp với số vé đếm lại
+        jdbc.query("""
+                SELECT s.sold_seats, s.held_seats,
+                       (SELECT COUNT(*) FROM tickets t WHERE t.showtime_id = s.id AND t.status IN (:sold)) AS sold,
+                       (SELECT COUNT(*) FROM tickets t WHERE t.showtime_id = s.id AND t.status IN (:held)) AS held
+                FROM showtimes s WHERE s.id = :showtimeId
+                """, params, rs -> {
+            if (rs.getLong("sold_seats") != rs.getLong("sold") || rs.getLong("held_seats") != rs.getLong("held")) {
+                violations.add("Bộ đếm ghế ghi đã bán " + rs.getLong("sold_seats") + ", đang giữ " + rs.getLong("held_seats")
+                        + " nhưng vé đếm được " + rs.getLong("sold") + " / " + rs.getLong("held"));
+            }
+        });
+
+        ShowtimeSeatSnapshot snapshot = seatStateEngine.find(fixture.showtimeId()).orElse(null);
+        if (snapshot == null) {
+            violations.add("Suất chiếu " + fixture.showtimeId() + " không có trong bộ nhớ");
+            return violations;
+        }
+        byte[] states = snapshot.states();
+        for (int pos = 0; pos < states.length; pos++) {
+            String code = snapshot.layout().codeAt(pos);
+            boolean sold = dbLiveSeats.containsKey(code);
+            if (states[pos] == SeatStateEngine.HELD) {
+                violations.add("Ghế " + code + " vẫn bị giữ trong bộ nhớ sau khi mọi client đã dừng");
+            } else if ((states[pos] == SeatStateEngine.BOOKED) != sold) {
+                violations.add("Bộ nhớ ghi ghế " + code + (sold ? " còn trống" : " đã bán") + ", DB ngược lại");
+            }
+        }
+        return violations;
+    }
+
+    int soldSeats() {
+        Integer sold = jdbc.queryForObject("""
+                SELECT COUNT(*) FROM tickets WHERE showtime_id = :showtimeId AND status IN (:occupied)
+                """, new MapSqlParameterSource()
+                .addValue("showtimeId", fixture.showtimeId())
+                .addValue("occupied", SeatStateEngine.OCCUPIED_TICKET_STATUSES), Integer.class);
+        return sold != null ? sold : 0;
+    }
+}
@@ -0,0 +1,76 @@
+package com.cinema.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Ghi độ trễ và kết quả của một loại thao tác. Mỗi client có một bản riêng (không đồng bộ),
+ * cuối lượt chạy mới gộp lại bằng {@link #merge}.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[256];
+    private int count;
+    private long succeeded;
+    private long conflicts;
+    private long busy;
+    private long failed;
+
+    void record(BookingClient.Response response) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = response.latencyNanos();
+        switch (response.status()) {
+            case 200 -> succeeded++;
+            case 409 -> conflicts++;
+            // Hàng đợi / khóa suất chiếu đang bận: server từ chối có chủ đích, không phải lỗi
+            case 429, 503 -> busy++;
+            default -> failed++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        if (count + other.count > samples.length) {
+            samples = Arrays.copyOf(samples, count + other.count);
+        }
+        System.arraycopy(other.samples, 0, samples, count, other.count);
+        count += other.count;
+        succeeded += other.succeeded;
+        conflicts += other.conflicts;
+        busy += other.busy;
+        failed += other.failed;
+    }
+
+    long total() {
+        return count;
+    }
+
+    long succeeded() {
+        return succeeded;
+    }
+
+    long conflicts() {
+        return conflicts;
+    }
+
+    long busy() {
+        return busy;
+    }
+
+    long failed() {
+        return failed;
+    }
+
+    /**
+     * Phân vị theo nearest-rank, đơn vị ms. Gọi sau khi đã gộp xong.
+     */
+    double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count, rank) - 1)] / 1_000_000.0;
+    }
+}
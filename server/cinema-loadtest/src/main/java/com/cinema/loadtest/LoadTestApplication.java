@@ -0,0 +1,46 @@
+package com.cinema.loadtest;
+
+import com.cinema.CinemaServerApplication;
+import com.cinema.service.SeatStateEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Load test tranh ghế: khởi động backend thật (profile {@code loadtest}, H2 chế độ MySQL hoặc MySQL thật),
+ * cho nhiều client cùng đặt vé một suất chiếu qua HTTP, rồi kiểm tra DB không bán trùng ghế.
+ *
+ * Thoát với mã 1 nếu có vi phạm, để dùng được trong CI.
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CinemaServerApplication.class)
+                .profiles("loadtest")
+                .run(args);
+
+        int exitCode;
+        try {
+            LoadTestOptions options = LoadTestOptions.from(context.getEnvironment());
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            Fixture fixture = new LoadTestFixture(context).seed(options);
+            BookingClient client = new BookingClient(port, context.getBean(ObjectMapper.class));
+            RunResult result = new ScenarioRunner(options, fixture, client, context.getBean(SeatStateEngine.class)).run();
+
+            InvariantChecker checker = new InvariantChecker(context, fixture);
+            List<String> violations = new ArrayList<>(result.violations());
+            violations.addAll(checker.check(result.liveSeats()));
+            LoadTestReport.print(System.out, options, fixture, result, checker.soldSeats(), violations);
+            exitCode = violations.isEmpty() ? 0 : 1;
+        } finally {
+            SpringApplication.exit(context);
+        }
+        System.exit(exitCode);
+    }
+}
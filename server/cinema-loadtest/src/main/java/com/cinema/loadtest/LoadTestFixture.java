@@ -0,0 +1,90 @@
+package com.cinema.loadtest;
+
+import com.cinema.model.Movie;
+import com.cinema.model.Room;
+import com.cinema.model.Seat;
+import com.cinema.model.Showtime;
+import com.cinema.model.User;
+import com.cinema.repository.MovieRepository;
+import com.cinema.repository.RoomRepository;
+import com.cinema.repository.SeatRepository;
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.UserRepository;
+import com.cinema.service.TicketInventoryService;
+import org.springframework.context.ApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sinh dữ liệu cho lượt chạy bằng chính repository / service của ứng dụng,
+ * nên kho vé được tạo giống hệt khi admin tạo suất chiếu.
+ */
+final class LoadTestFixture {
+
+    private final ApplicationContext context;
+
+    LoadTestFixture(ApplicationContext context) {
+        this.context = context;
+    }
+
+    Fixture seed(LoadTestOptions options) {
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+
+        Room room = context.getBean(RoomRepository.class).save(Room.builder()
+                .name("Load test " + runId)
+                .totalRows(options.rows())
+                .seatsPerRow(options.seatsPerRow())
+                .build());
+
+        List<Seat> seats = new ArrayList<>(options.rows() * options.seatsPerRow());
+        List<List<String>> seatRows = new ArrayList<>(options.rows());
+        for (int r = 0; r < options.rows(); r++) {
+            String rowLabel = String.valueOf((char) ('A' + r));
+            List<String> codes = new ArrayList<>(options.seatsPerRow());
+            for (int n = 1; n <= options.seatsPerRow(); n++) {
+                Seat seat = new Seat();
+                seat.setRoom(room);
+                seat.setRowLabel(rowLabel);
+                seat.setSeatNumber(n);
+                // Hàng cuối là ghế VIP để đơn hàng có nhiều mức giá
+                seat.setType(r == options.rows() - 1 ? "VIP" : "STANDARD");
+                seats.add(seat);
+                codes.add(rowLabel + n);
+            }
+            seatRows.add(List.copyOf(codes));
+        }
+        context.getBean(SeatRepository.class).saveAll(seats);
+
+        Movie movie = new Movie();
+        movie.setTitle("Load test " + runId);
+        movie.setDurationMinutes(120);
+        movie.setStatus("NOW_SHOWING");
+        movie = context.getBean(MovieRepository.class).save(movie);
+
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setRoom(room);
+        showtime.setStartsAt(LocalDateTime.now().plusDays(1).withSecond(0).withNano(0));
+        showtime.setEndsAt(showtime.getStartsAt().plusMinutes(120));
+        showtime.setBasePrice(new BigDecimal("100000.00"));
+        showtime = context.getBean(ShowtimeRepository.class).save(showtime);
+        context.getBean(TicketInventoryService.class).generate(showtime);
+
+        List<User> users = new ArrayList<>(options.clients());
+        for (int i = 0; i < options.clients(); i++) {
+            User user = new User();
+            user.setEmail("client-" + i + "-" + runId + "@loadtest.local");
+            user.setPasswordHash("-");
+            user.setFullName("Load test client " + i);
+            user.setStatus("ACTIVE");
+            users.add(user);
+        }
+        List<Long> userIds = context.getBean(UserRepository.class).saveAll(users).stream().map(User::getId).toList();
+
+        return new Fixture(showtime.getId(), room.getId(), userIds, List.copyOf(seatRows));
+    }
+}
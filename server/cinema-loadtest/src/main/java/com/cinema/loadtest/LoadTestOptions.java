@@ -0,0 +1,54 @@
+package com.cinema.loadtest;
+
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Tham số của một lượt chạy, đọc từ {@code loadtest.*} (application-loadtest.yml hoặc dòng lệnh).
+ */
+public record LoadTestOptions(
+        Scenario scenario,
+        int clients,
+        Duration duration,
+        int rows,
+        int seatsPerRow,
+        int groupSize,
+        String paymentMethod,
+        double cancelRatio,
+        Duration thinkTime
+) {
+
+    // Nhãn hàng là một chữ cái
+    private static final int MAX_ROWS = 26;
+
+    public static LoadTestOptions from(Environment env) {
+        LoadTestOptions options = new LoadTestOptions(
+                Scenario.from(env.getProperty("loadtest.scenario", "hot-showtime")),
+                env.getProperty("loadtest.clients", Integer.class, 200),
+                env.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(30)),
+                env.getProperty("loadtest.rows", Integer.class, 12),
+                env.getProperty("loadtest.seats-per-row", Integer.class, 20),
+                env.getProperty("loadtest.group-size", Integer.class, 4),
+                env.getProperty("loadtest.payment-method", "CASH"),
+                env.getProperty("loadtest.cancel-ratio", Double.class, 0.5),
+                env.getProperty("loadtest.think-time", Duration.class, Duration.ZERO));
+        options.validate();
+        return options;
+    }
+
+    private void validate() {
+        if (clients < 1) {
+            throw new IllegalArgumentException("loadtest.clients phải >= 1");
+        }
+        if (rows < 2 || rows > MAX_ROWS) {
+            throw new IllegalArgumentException("loadtest.rows phải trong khoảng 2.." + MAX_ROWS);
+        }
+        if (groupSize < 1 || groupSize > seatsPerRow) {
+            throw new IllegalArgumentException("loadtest.group-size phải trong khoảng 1..seats-per-row");
+        }
+        if (cancelRatio < 0 || cancelRatio > 1) {
+            throw new IllegalArgumentException("loadtest.cancel-ratio phải trong khoảng 0..1");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.cinema.loadtest;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * In kết quả lượt chạy ra stdout.
+ */
+final class LoadTestReport {
+
+    // In tối đa bấy nhiêu vi phạm, phần còn lại chỉ đếm
+    private static final int MAX_LISTED_VIOLATIONS = 50;
+
+    private LoadTestReport() {
+    }
+
+    static void print(PrintStream out, LoadTestOptions options, Fixture fixture, RunResult result,
+                      int soldSeats, List<String> violations) {
+        double seconds = Math.max(result.elapsed().toMillis(), 1) / 1000.0;
+
+        out.println();
+        out.printf(Locale.ROOT, "Kịch bản %s: %d client, %.1f s, %d ghế, thanh toán %s%n",
+                options.scenario().id(), options.clients(), seconds, fixture.seatCount(), options.paymentMethod());
+        out.printf(Locale.ROOT, "%-8s %9s %9s %9s %7s %7s %9s %8s %8s %8s %8s%n",
+                "", "tổng", "ok", "409", "bận", "lỗi", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        printRow(out, "đặt vé", result.bookings(), seconds);
+        if (result.cancellations().total() > 0) {
+            printRow(out, "hủy", result.cancellations(), seconds);
+        }
+        out.printf(Locale.ROOT, "Ghế đã bán khi kết thúc: %d/%d%n", soldSeats, fixture.seatCount());
+
+        if (violations.isEmpty()) {
+            out.println("Kiểm tra: OK - không bán trùng ghế, tổng tiền đơn khớp giá vé");
+            return;
+        }
+        out.printf("Kiểm tra: %d vi phạm%n", violations.size());
+        violations.stream().limit(MAX_LISTED_VIOLATIONS).forEach(violation -> out.println("  - " + violation));
+        if (violations.size() > MAX_LISTED_VIOLATIONS) {
+            out.printf("  ... và %d vi phạm khác%n", violations.size() - MAX_LISTED_VIOLATIONS);
+        }
+    }
+
+    private static void printRow(PrintStream out, String label, LatencyRecorder recorder, double seconds) {
+        out.printf(Locale.ROOT, "%-8s %9d %9d %9d %7d %7d %9.1f %8.1f %8.1f %8.1f %8.1f%n",
+                label, recorder.total(), recorder.succeeded(), recorder.conflicts(), recorder.busy(), recorder.failed(),
+                recorder.total() / seconds,
+                recorder.percentileMillis(50), recorder.percentileMillis(95),
+                recorder.percentileMillis(99), recorder.percentileMillis(100));
+    }
+}
@@ -0,0 +1,20 @@
+package com.cinema.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kết quả phía client của một lượt chạy.
+ *
+ * @param liveSeats  ghế → đơn đang giữ ghế theo các response thành công mà client nhận được
+ * @param violations các lần server bán một ghế đang thuộc về đơn khác
+ */
+record RunResult(
+        Duration elapsed,
+        LatencyRecorder bookings,
+        LatencyRecorder cancellations,
+        Map<String, Long> liveSeats,
+        List<String> violations
+) {
+}
@@ -0,0 +1,34 @@
+package com.cinema.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Các kịch bản tranh ghế.
+ */
+public enum Scenario {
+
+    // Mọi client đặt ngẫu nhiên 1..group-size ghế của cùng một suất chiếu cho tới khi hết ghế
+    HOT_SHOWTIME("hot-showtime"),
+    // Mọi client cùng nhắm các dãy group-size ghế liền nhau ở hai hàng giữa phòng
+    GROUP_RUSH("group-rush"),
+    // Đặt rồi hủy (theo cancel-ratio) liên tục: ghế vừa trả lại bị client khác giành ngay
+    CHURN("churn");
+
+    private final String id;
+
+    Scenario(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public static Scenario from(String id) {
+        return Arrays.stream(values())
+                .filter(scenario -> scenario.id.equalsIgnoreCase(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Kịch bản không hợp lệ: " + id
+                        + " (hot-showtime | group-rush | churn)"));
+    }
+}
@@ -0,0 +1,165 @@
+package com.cinema.loadtest;
+
+import com.cinema.service.SeatStateEngine;
+import com.cinema.service.ShowtimeSeatSnapshot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chạy một kịch bản: mỗi client một virtual thread, cùng xuất phát sau một cái chốt để dồn tải vào cùng thời điểm.
+ *
+ * Client ghi lại ghế → đơn từ mọi response đặt vé thành công; nếu server trả thành công cho một ghế đang thuộc đơn
+ * khác thì đó là bán trùng. Trước khi gửi yêu cầu hủy, client bỏ ghế khỏi bảng này trước, vì ngay khi hủy xong
+ * client khác có thể đặt lại ghế đó.
+ */
+final class ScenarioRunner {
+
+    // Số hàng giữa phòng mà group-rush nhắm vào
+    private static final int RUSH_ROWS = 2;
+
+    private final LoadTestOptions options;
+    private final Fixture fixture;
+    private final BookingClient client;
+    private final SeatStateEngine seatStateEngine;
+
+    private final Map<String, Long> liveSeats = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+    private final List<String> allSeats;
+    private final List<List<String>> rushRows;
+
+    ScenarioRunner(LoadTestOptions options, Fixture fixture, BookingClient client, SeatStateEngine seatStateEngine) {
+        this.options = options;
+        this.fixture = fixture;
+        this.client = client;
+        this.seatStateEngine = seatStateEngine;
+        this.allSeats = fixture.seatRows().stream().flatMap(List::stream).toList();
+        int firstRushRow = (fixture.seatRows().size() - RUSH_ROWS) / 2;
+        this.rushRows = fixture.seatRows().subList(firstRushRow, firstRushRow + RUSH_ROWS);
+    }
+
+    RunResult run() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + options.duration().toNanos();
+        List<Future<ClientResult>> futures = new ArrayList<>(options.clients());
+        long startedAt;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Long userId : fixture.userIds()) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return runClient(userId, deadline);
+                }));
+            }
+            startedAt = System.nanoTime();
+            start.countDown();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+
+        LatencyRecorder bookings = new LatencyRecorder();
+        LatencyRecorder cancellations = new LatencyRecorder();
+        for (Future<ClientResult> future : futures) {
+            try {
+                ClientResult result = future.get();
+                bookings.merge(result.bookings());
+                cancellations.merge(result.cancellations());
+            } catch (ExecutionException e) {
+                violations.add("Client dừng vì lỗi: " + e.getCause());
+            }
+        }
+        return new RunResult(elapsed, bookings, cancellations, Map.copyOf(liveSeats), List.copyOf(violations));
+    }
+
+    private ClientResult runClient(Long userId, long deadline) throws InterruptedException {
+        LatencyRecorder bookings = new LatencyRecorder();
+        LatencyRecorder cancellations = new LatencyRecorder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (System.nanoTime() < deadline && !soldOut()) {
+            List<String> seats = pickSeats(random);
+            BookingClient.Response response = client.book(fixture.showtimeId(), userId, seats, options.paymentMethod());
+            bookings.record(response);
+
+            if (response.ok()) {
+                Long orderId = response.orderId();
+                for (String seat : seats) {
+                    Long previous = liveSeats.putIfAbsent(seat, orderId);
+                    if (previous != null) {
+                        violations.add("Ghế " + seat + " bán cho đơn " + orderId + " khi đang thuộc đơn " + previous);
+                    }
+                }
+                if (options.scenario() == Scenario.CHURN && random.nextDouble() < options.cancelRatio()) {
+                    pause();
+                    cancel(orderId, seats, cancellations);
+                }
+            }
+            pause();
+        }
+        return new ClientResult(bookings, cancellations);
+    }
+
+    private void cancel(Long orderId, List<String> seats, LatencyRecorder cancellations) {
+        seats.forEach(seat -> liveSeats.remove(seat, orderId));
+        BookingClient.Response response = client.cancel(orderId);
+        cancellations.record(response);
+        if (!response.ok()) {
+            // Hủy không thành công: ghế vẫn thuộc đơn này, không client nào được phép vừa mua nó
+            for (String seat : seats) {
+                Long previous = liveSeats.putIfAbsent(seat, orderId);
+                if (previous != null) {
+                    violations.add("Ghế " + seat + " bán cho đơn " + previous + " khi hủy đơn " + orderId
+                            + " thất bại (HTTP " + response.status() + ")");
+                }
+            }
+        }
+    }
+
+    private List<String> pickSeats(ThreadLocalRandom random) {
+        if (options.scenario() == Scenario.GROUP_RUSH) {
+            List<String> row = rushRows.get(random.nextInt(rushRows.size()));
+            int first = random.nextInt(row.size() - options.groupSize() + 1);
+            return row.subList(first, first + options.groupSize());
+        }
+        int count = 1 + random.nextInt(options.groupSize());
+        List<String> seats = new ArrayList<>(count);
+        while (seats.size() < count) {
+            String seat = allSeats.get(random.nextInt(allSeats.size()));
+            if (!seats.contains(seat)) {
+                seats.add(seat);
+            }
+        }
+        return seats;
+    }
+
+    // Đọc ảnh chụp trong bộ nhớ (không tốn truy vấn) để client dừng khi không còn gì để giành
+    private boolean soldOut() {
+        ShowtimeSeatSnapshot snapshot = seatStateEngine.find(fixture.showtimeId()).orElse(null);
+        if (snapshot == null) {
+            return false;
+        }
+        if (options.scenario() == Scenario.GROUP_RUSH) {
+            return rushRows.stream().flatMap(List::stream)
+                    .allMatch(code -> snapshot.isBooked(snapshot.layout().positionOfCode(code)));
+        }
+        // churn luôn chạy hết thời gian: ghế được trả lại liên tục
+        return options.scenario() == Scenario.HOT_SHOWTIME && snapshot.occupiedCount() == snapshot.states().length;
+    }
+
+    private void pause() throws InterruptedException {
+        if (!options.thinkTime().isZero()) {
+            Thread.sleep(options.thinkTime());
+        }
+    }
+
+    private record ClientResult(LatencyRecorder bookings, LatencyRecorder cancellations) {
+    }
+}
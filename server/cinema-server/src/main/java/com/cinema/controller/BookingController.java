@@ -1,15 +1,37 @@
 package com.cinema.controller;
 
+import com.cinema.dto.BestAvailableRequestDTO;
+import com.cinema.dto.BestAvailableResponseDTO;
 import com.cinema.dto.BookingRequestDTO;
 import com.cinema.dto.BookingResponseDTO;
+import com.cinema.dto.QueueStatusDTO;
+import com.cinema.dto.SeatHoldRequestDTO;
+import com.cinema.dto.SeatHoldResponseDTO;
+import com.cinema.dto.SeatMapDeltaDTO;
 import com.cinema.dto.ShowtimeSeatInfoDTO;
+import com.cinema.service.BestAvailableSeatService;
 import com.cinema.service.BookingService;
+import com.cinema.service.CompactSeatMapService;
+import com.cinema.service.IdempotencyService;
+import com.cinema.service.SeatHold;
+import com.cinema.service.SeatEventBroadcaster;
+import com.cinema.service.SeatHoldService;
 import com.cinema.service.ShowtimeSeatService;
+import com.cinema.service.WaitingRoomService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/booking")
@@ -19,16 +41,143 @@ public class BookingController {
 
     private final ShowtimeSeatService showtimeService;
     private final BookingService bookingService;
+    private final SeatHoldService seatHoldService;
+    private final WaitingRoomService waitingRoomService;
+    private final IdempotencyService idempotencyService;
+    private final BestAvailableSeatService bestAvailableSeatService;
+    private final SeatEventBroadcaster seatEventBroadcaster;
+    private final CompactSeatMapService compactSeatMapService;
 
+    // ETag là phiên bản sơ đồ ghế: If-None-Match khớp thì trả 304 không body;
+    // có sinceVersion thì chỉ trả các ghế đã đổi, hoặc cả sơ đồ nếu lịch sử thay đổi không còn đủ.
+    // Accept: application/vnd.cinema.seat-map trả dạng nhị phân gọn (sinceVersion không áp dụng)
     @GetMapping("/showtime/{showtimeId}/seats")
-    public ResponseEntity<ShowtimeSeatInfoDTO> getShowtimeSeatInfo(@PathVariable Long showtimeId) {
-        return ResponseEntity.ok(showtimeService.getShowtimeSeatInfo(showtimeId));
+    public ResponseEntity<?> getShowtimeSeatInfo(
+            @PathVariable Long showtimeId,
+            @RequestParam(value = "sinceVersion", required = false) Long sinceVersion,
+            @RequestHeader(value = WaitingRoomService.TOKEN_HEADER, required = false) String queueToken,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        waitingRoomService.requireAdmission(showtimeId, queueToken);
+        boolean compact = CompactSeatMapService.isRequested(accept);
+        if (webRequest.checkNotModified(seatMapETag(showtimeService.getSeatMapVersion(showtimeId), compact))) {
+            return null;
+        }
+        if (compact) {
+            CompactSeatMapService.EncodedSeatMap seatMap = compactSeatMapService.seatMap(showtimeId);
+            return seatMapResponse(seatMapETag(seatMap.version(), true), CompactSeatMapService.SEAT_MAP, seatMap.bytes());
+        }
+        if (sinceVersion != null) {
+            Optional<SeatMapDeltaDTO> delta = showtimeService.getSeatMapDelta(showtimeId, sinceVersion);
+            if (delta.isPresent()) {
+                return seatMapResponse(seatMapETag(delta.get().getVersion(), false), MediaType.APPLICATION_JSON, delta.get());
+            }
+        }
+        ShowtimeSeatInfoDTO seatInfo = showtimeService.getShowtimeSeatInfo(showtimeId);
+        return seatMapResponse(seatMapETag(seatInfo.getVersion(), false), MediaType.APPLICATION_JSON, seatInfo);
+    }
+
+    // Sơ đồ phòng dạng nhị phân cho client dùng sơ đồ ghế gọn. Gọi kèm ?v= (phiên bản lấy từ sơ đồ ghế)
+    // thì nội dung ứng với URL không bao giờ đổi nên được cache lâu dài
+    @GetMapping("/rooms/{roomId}/layout")
+    public ResponseEntity<byte[]> getRoomLayout(@PathVariable Long roomId,
+                                                @RequestParam(value = "v", required = false) String version,
+                                                WebRequest webRequest) {
+        CompactSeatMapService.EncodedLayout layout = compactSeatMapService.layout(roomId);
+        if (webRequest.checkNotModified(layout.version())) {
+            return null;
+        }
+        CacheControl cacheControl = layout.version().equals(version)
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable()
+                : CacheControl.noCache();
+        return ResponseEntity.ok()
+                .contentType(CompactSeatMapService.SEAT_LAYOUT)
+                .eTag(layout.version())
+                .cacheControl(cacheControl)
+                .body(layout.bytes());
+    }
+
+    // Luồng SSE các thay đổi trạng thái ghế; EventSource không gửi được header nên token phòng chờ có thể đi qua query
+    @GetMapping(value = "/showtime/{showtimeId}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatChanges(
+            @PathVariable Long showtimeId,
+            @RequestHeader(value = WaitingRoomService.TOKEN_HEADER, required = false) String queueToken,
+            @RequestParam(value = "queueToken", required = false) String queueTokenParam) {
+        waitingRoomService.requireAdmission(showtimeId, queueToken != null ? queueToken : queueTokenParam);
+        return seatEventBroadcaster.subscribe(showtimeId);
     }
 
     @PostMapping
-    public ResponseEntity<BookingResponseDTO> createBooking(@Valid @RequestBody BookingRequestDTO bookingRequest) {
+    public ResponseEntity<BookingResponseDTO> createBooking(
+            @Valid @RequestBody BookingRequestDTO bookingRequest,
+            @RequestHeader(value = WaitingRoomService.TOKEN_HEADER, required = false) String queueToken,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         Long userId = bookingRequest.getUserId();
-        BookingResponseDTO response = bookingService.createBooking(userId, bookingRequest);
-        return ResponseEntity.ok(response);
+        // Gửi lại cùng Idempotency-Key thì trả lại response cũ, không chạy lại transaction đặt vé
+        return idempotencyService.execute("booking:" + userId, idempotencyKey, bookingRequest,
+                BookingResponseDTO.class, () -> {
+                    waitingRoomService.requireAdmission(bookingRequest.getShowtimeId(), queueToken);
+                    BookingResponseDTO response = bookingService.createBooking(userId, bookingRequest);
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<SeatHoldResponseDTO> createHold(
+            @Valid @RequestBody SeatHoldRequestDTO holdRequest,
+            @RequestHeader(value = WaitingRoomService.TOKEN_HEADER, required = false) String queueToken) {
+        waitingRoomService.requireAdmission(holdRequest.getShowtimeId(), queueToken);
+        SeatHold hold = seatHoldService.createHold(
+                holdRequest.getUserId(), holdRequest.getShowtimeId(), holdRequest.getSelectedSeats());
+        return ResponseEntity.status(HttpStatus.CREATED).body(SeatHoldResponseDTO.builder()
+                .holdId(hold.id())
+                .showtimeId(hold.showtimeId())
+                .seats(hold.seatCodes())
+                .expiresAt(hold.expiresAt())
+                .build());
+    }
+
+    // Tự chọn dãy ghế liền nhau tốt nhất, có thể giữ luôn
+    @PostMapping("/best-available")
+    public ResponseEntity<BestAvailableResponseDTO> findBestAvailable(
+            @Valid @RequestBody BestAvailableRequestDTO request,
+            @RequestHeader(value = WaitingRoomService.TOKEN_HEADER, required = false) String queueToken) {
+        waitingRoomService.requireAdmission(request.getShowtimeId(), queueToken);
+        BestAvailableResponseDTO response = bestAvailableSeatService.findBestAvailable(request);
+        return request.isHold()
+                ? ResponseEntity.status(HttpStatus.CREATED).body(response)
+                : ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable String holdId, @RequestParam Long userId) {
+        seatHoldService.release(holdId, userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Phòng chờ: lấy số thứ tự và hỏi vị trí (không chạm DB)
+    @PostMapping("/queue/{showtimeId}")
+    public ResponseEntity<QueueStatusDTO> joinQueue(@PathVariable Long showtimeId) {
+        return ResponseEntity.ok(waitingRoomService.join(showtimeId));
+    }
+
+    @GetMapping("/queue/{showtimeId}/{token}")
+    public ResponseEntity<QueueStatusDTO> getQueueStatus(@PathVariable Long showtimeId, @PathVariable String token) {
+        return ResponseEntity.ok(waitingRoomService.status(showtimeId, token));
+    }
+
+    // Hai dạng sơ đồ ghế có chung URL nên cần ETag riêng cho từng dạng
+    private static String seatMapETag(long version, boolean compact) {
+        return compact ? version + "-b" : String.valueOf(version);
+    }
+
+    // no-cache: trình duyệt vẫn lưu sơ đồ ghế nhưng luôn hỏi lại server bằng If-None-Match
+    private static <T> ResponseEntity<T> seatMapResponse(String eTag, MediaType contentType, T body) {
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
     }
-}
\ No newline at end of file
+}
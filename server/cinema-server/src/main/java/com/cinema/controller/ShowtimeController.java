@@ -1,17 +1,27 @@
 package com.cinema.controller;
 
+import com.cinema.dto.FreeSlotDTO;
+import com.cinema.dto.ScheduleGenerationResultDTO;
+import com.cinema.dto.ScheduleTemplateDTO;
 import com.cinema.dto.ShowtimeDto;
 import com.cinema.dto.ShowtimeDetailResponse; // Cần import DTO này
+import com.cinema.dto.ShowtimePageDTO;
+import com.cinema.dto.ShowtimeSeatCountDTO;
 import com.cinema.service.ShowtimeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity; // Cần import cho ResponseEntity
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/showtimes")
 public class ShowtimeController {
@@ -23,9 +33,41 @@ public class ShowtimeController {
     public ResponseEntity<ShowtimeDetailResponse> getShowtimeDetails(@PathVariable Long showtimeId) {
         // Phương thức này gọi logic phức tạp bạn đã viết trong ShowtimeServiceImpl
         ShowtimeDetailResponse response = showtimeService.getShowtimeDetails(showtimeId);
-        return ResponseEntity.ok(response);
+        // Có ETag nên Spring tự trả 304 (không có body) khi If-None-Match khớp phiên bản sơ đồ ghế
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(response.version()))
+                .cacheControl(CacheControl.noCache())
+                .body(response);
+    }
+
+
+    // Khoảng trống trong lịch của phòng (đã trừ thời gian dọn phòng), để xếp suất chiếu mới
+    @GetMapping("/free-slots")
+    public List<FreeSlotDTO> getFreeSlots(
+            @RequestParam Long roomId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int minMinutes) {
+        return showtimeService.findFreeSlots(roomId, from, to, minMinutes);
+    }
+
+    // Lọc theo ngày / phim / phòng, phân trang bằng cursor: trang sau tốn như trang đầu
+    @GetMapping("/search")
+    public ShowtimePageDTO search(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long movieId,
+            @RequestParam(required = false) Long roomId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return showtimeService.search(from, to, movieId, roomId, cursor, size);
     }
 
+    // Số ghế còn trống của nhiều suất chiếu trong một request (?ids=1,2,3); id không tồn tại bị bỏ qua
+    @GetMapping("/seat-counts")
+    public List<ShowtimeSeatCountDTO> getSeatCounts(@RequestParam List<Long> ids) {
+        return showtimeService.getSeatCounts(ids);
+    }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -33,6 +75,13 @@ public class ShowtimeController {
         return showtimeService.create(dto);
     }
 
+    // Sinh cả lịch chiếu từ mẫu theo tuần trong một request: một lần kiểm tra chồng giờ, một lệnh INSERT batch
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ScheduleGenerationResultDTO generate(@RequestBody @Valid ScheduleTemplateDTO template) {
+        return showtimeService.generateSchedule(template);
+    }
+
     @GetMapping("/{id}")
     public ShowtimeDto get(@PathVariable Long id) {
         return showtimeService.getById(id);
@@ -0,0 +1,41 @@
+package com.cinema.controller;
+
+import com.cinema.service.DailyTimetableService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/timetable")
+@RequiredArgsConstructor
+public class TimetableController {
+
+    private final DailyTimetableService dailyTimetableService;
+
+    // Lịch chiếu trong ngày cho trang chủ / kiosk: JSON dựng sẵn trong bộ nhớ, 304 khi ETag khớp
+    @GetMapping
+    public ResponseEntity<byte[]> getTimetable(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            WebRequest webRequest) {
+        DailyTimetableService.Rendered timetable =
+                dailyTimetableService.render(date != null ? date : dailyTimetableService.today());
+        String eTag = String.valueOf(timetable.version());
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(timetable.json());
+    }
+}
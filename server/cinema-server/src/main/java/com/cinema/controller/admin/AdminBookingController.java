@@ -0,0 +1,59 @@
+package com.cinema.controller.admin;
+
+import com.cinema.dto.SeatJournalEventDTO;
+import com.cinema.dto.ShowtimeLockStatsDTO;
+import com.cinema.dto.WaitingRoomStatsDTO;
+import com.cinema.service.SeatJournal;
+import com.cinema.service.ShowtimeLockManager;
+import com.cinema.service.WaitingRoomService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/booking")
+@RequiredArgsConstructor
+public class AdminBookingController {
+
+    private final ShowtimeLockManager showtimeLockManager;
+    private final WaitingRoomService waitingRoomService;
+    private final SeatJournal seatJournal;
+
+    @GetMapping("/locks")
+    public ResponseEntity<List<ShowtimeLockStatsDTO>> getLockStats() {
+        return ResponseEntity.ok(showtimeLockManager.getStats());
+    }
+
+    @GetMapping("/locks/{showtimeId}")
+    public ResponseEntity<ShowtimeLockStatsDTO> getLockStats(@PathVariable Long showtimeId) {
+        return ResponseEntity.ok(showtimeLockManager.getStats(showtimeId));
+    }
+
+    @GetMapping("/waiting-rooms")
+    public ResponseEntity<List<WaitingRoomStatsDTO>> getWaitingRooms() {
+        return ResponseEntity.ok(waitingRoomService.getStats());
+    }
+
+    @PutMapping("/waiting-rooms/{showtimeId}")
+    public ResponseEntity<Void> openWaitingRoom(@PathVariable Long showtimeId,
+                                                @RequestParam(required = false) Integer admitPerSecond) {
+        waitingRoomService.open(showtimeId, admitPerSecond);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/waiting-rooms/{showtimeId}")
+    public ResponseEntity<Void> closeWaitingRoom(@PathVariable Long showtimeId) {
+        waitingRoomService.close(showtimeId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Lịch sử trạng thái ghế từ nhật ký, dùng khi điều tra khiếu nại bán trùng ghế
+    @GetMapping("/journal/{showtimeId}")
+    public ResponseEntity<List<SeatJournalEventDTO>> getSeatJournal(@PathVariable Long showtimeId,
+                                                                    @RequestParam(required = false) Long seatId,
+                                                                    @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(seatJournal.history(showtimeId, seatId, limit));
+    }
+}
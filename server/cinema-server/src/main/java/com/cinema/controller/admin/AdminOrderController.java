@@ -30,6 +30,11 @@ public class AdminOrderController {
         return ResponseEntity.ok(orderDetail);
     }
 
+    @GetMapping("/by-code/{ticketCode}")
+    public ResponseEntity<OrderDetailDTO> getOrderByTicketCode(@PathVariable String ticketCode) {
+        return ResponseEntity.ok(orderService.getOrderDetailByTicketCode(ticketCode));
+    }
+
     @PutMapping("/{orderId}/status")
     public ResponseEntity<OrderDetailDTO> updateOrderStatus(
             @PathVariable Long orderId,
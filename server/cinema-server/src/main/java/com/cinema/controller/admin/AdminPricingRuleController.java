@@ -0,0 +1,40 @@
+package com.cinema.controller.admin;
+
+import com.cinema.dto.PricingRuleDTO;
+import com.cinema.service.PricingRuleService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/pricing-rules")
+@RequiredArgsConstructor
+public class AdminPricingRuleController {
+
+    private final PricingRuleService pricingRuleService;
+
+    @GetMapping
+    public ResponseEntity<List<PricingRuleDTO>> list() {
+        return ResponseEntity.ok(pricingRuleService.list());
+    }
+
+    @PostMapping
+    public ResponseEntity<PricingRuleDTO> create(@Valid @RequestBody PricingRuleDTO dto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(pricingRuleService.create(dto));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<PricingRuleDTO> update(@PathVariable Long id, @Valid @RequestBody PricingRuleDTO dto) {
+        return ResponseEntity.ok(pricingRuleService.update(id, dto));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
+        pricingRuleService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+}
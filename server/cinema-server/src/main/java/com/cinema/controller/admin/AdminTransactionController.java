@@ -1,6 +1,8 @@
 package com.cinema.controller.admin;
 
 import com.cinema.dto.TransactionDTO;
+import com.cinema.service.PaymentSettlementService;
+import com.cinema.service.SettlementResult;
 import com.cinema.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -14,10 +16,17 @@ import java.util.List;
 public class AdminTransactionController {
 
     private final TransactionService transactionService;
+    private final PaymentSettlementService paymentSettlementService;
 
     @GetMapping
     public ResponseEntity<List<TransactionDTO>> getAllTransactions() {
         List<TransactionDTO> transactions = transactionService.getAllTransactionsForAdmin();
         return ResponseEntity.ok(transactions);
     }
+
+    // Chạy đối soát ngay, không chờ lịch
+    @PostMapping("/settle")
+    public ResponseEntity<SettlementResult> settlePending() {
+        return ResponseEntity.ok(paymentSettlementService.settlePending());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.cinema.dto;
+
+import lombok.Data;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+@Data
+public class BestAvailableRequestDTO {
+    @NotNull
+    private Long showtimeId;
+    @NotNull
+    @Min(1)
+    @Max(20)
+    private Integer count;
+    // Loại ghế mong muốn; để trống = mọi loại ghế bán được
+    private String seatType;
+    // Giữ luôn các ghế tìm được (cần userId)
+    private boolean hold;
+    private Long userId;
+}
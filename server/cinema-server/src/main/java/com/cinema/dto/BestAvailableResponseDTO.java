@@ -0,0 +1,23 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestAvailableResponseDTO {
+    private Long showtimeId;
+    private List<String> seats;
+    private BigDecimal totalPrice;
+    // Chỉ có khi yêu cầu giữ ghế
+    private String holdId;
+    private Instant expiresAt;
+}
@@ -16,6 +16,8 @@ public class BookingRequestDTO {
     private String paymentMethod;
     private List<Long> seatIds;
      private Long userId;
+    // Mã hold từ POST /api/booking/holds; nếu có thì danh sách ghế lấy theo hold
+    private String holdId;
     public List<Long> getSeatIds() {
          return seatIds;
     }
@@ -0,0 +1,22 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Khoảng trống trong lịch của phòng: một suất chiếu mới bắt đầu từ {@code from} và kết thúc trước {@code to}
+ * thì không chồng giờ với suất nào (đã tính thời gian dọn phòng).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeSlotDTO {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long minutes;
+}
@@ -0,0 +1,32 @@
+package com.cinema.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+public class PricingRuleDTO {
+    private Long id;
+    @NotBlank
+    private String name;
+    private String seatType;
+    private DayOfWeek dayOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Long roomId;
+    @Min(0)
+    @Max(100)
+    private Integer minOccupancyPercent;
+    @NotNull
+    @DecimalMin("0")
+    private BigDecimal multiplier;
+    private Integer priority;
+    private Boolean active;
+}
@@ -0,0 +1,22 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueStatusDTO {
+    private String token;
+    private Long showtimeId;
+    private String status; // WAITING, ADMITTED
+    private long position;
+    private long estimatedWaitSeconds;
+    private int pollAfterSeconds;
+    private Instant admittedUntil;
+}
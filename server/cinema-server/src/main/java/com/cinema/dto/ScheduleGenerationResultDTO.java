@@ -0,0 +1,17 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleGenerationResultDTO {
+    private int created;
+    private List<ShowtimeSummaryDTO> showtimes;
+}
@@ -0,0 +1,35 @@
+package com.cinema.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Mẫu lịch chiếu theo tuần: một phim chiếu ở các phòng, vào các giờ cố định mỗi ngày trong khoảng ngày.
+ */
+@Data
+public class ScheduleTemplateDTO {
+    @NotNull
+    private Long movieId;
+    @NotEmpty
+    private List<Long> roomIds;
+    @NotNull
+    private LocalDate startDate;
+    @NotNull
+    private LocalDate endDate;
+    // Để trống = mọi ngày trong tuần
+    private Set<DayOfWeek> daysOfWeek;
+    @NotEmpty
+    private List<LocalTime> times;
+    @NotNull
+    @DecimalMin("0")
+    private BigDecimal basePrice;
+}
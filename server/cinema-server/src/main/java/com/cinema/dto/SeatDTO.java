@@ -1,6 +1,7 @@
 package com.cinema.dto;
 
 import lombok.Data;
+import java.math.BigDecimal;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -17,4 +18,6 @@ public class SeatDTO {
     @Size(max = 30)
     private String type;
     private boolean isBooked;
+    // Giá hiện tại theo quy tắc giá (chỉ có trong sơ đồ ghế của suất chiếu)
+    private BigDecimal price;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.cinema.dto;
+
+import lombok.Data;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+public class SeatHoldRequestDTO {
+    @NotNull
+    private Long userId;
+    @NotNull
+    private Long showtimeId;
+    @NotEmpty
+    private List<String> selectedSeats;
+}
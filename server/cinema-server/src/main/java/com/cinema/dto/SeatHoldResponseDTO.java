@@ -0,0 +1,20 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldResponseDTO {
+    private String holdId;
+    private Long showtimeId;
+    private List<String> seats;
+    private Instant expiresAt;
+}
@@ -0,0 +1,20 @@
+package com.cinema.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SeatJournalEventDTO {
+    private Instant timestamp;
+    // STATE, BASELINE (nạp từ DB), INVALIDATE (suất chiếu bị đổi)
+    private String type;
+    private Long showtimeId;
+    private Long seatId;
+    private Long roomId;
+    private String state;
+    private String source;
+    private String segment;
+}
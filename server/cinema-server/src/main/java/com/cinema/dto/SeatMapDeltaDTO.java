@@ -0,0 +1,21 @@
+package com.cinema.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * Phần thay đổi của sơ đồ ghế kể từ phiên bản client đang có ({@code ?sinceVersion=}).
+ * Mỗi ghế trong {@code changedSeats} mang trạng thái và giá hiện tại; các ghế khác giữ nguyên.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatMapDeltaDTO {
+
+    private Long showtimeId;
+    private Long fromVersion;
+    private Long version;
+
+    private List<SeatDTO> changedSeats;
+}
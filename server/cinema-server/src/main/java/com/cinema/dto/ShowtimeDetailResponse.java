@@ -18,5 +18,8 @@ public record ShowtimeDetailResponse(
     Set<SeatResponse> allSeats,
 
     // 🔥 Đổi sang Set<String> để chứa mã ghế như "A1", "B2"
-    Set<String> bookedSeatCodes 
+    Set<String> bookedSeatCodes,
+
+    // Phiên bản sơ đồ ghế, dùng làm ETag
+    long version
 ) {}
\ No newline at end of file
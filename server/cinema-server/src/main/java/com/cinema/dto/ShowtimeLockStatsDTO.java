@@ -0,0 +1,20 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowtimeLockStatsDTO {
+    private Long showtimeId;
+    private long acquisitions;
+    private int queueDepth;
+    private int maxQueueDepth;
+    private double avgWaitMillis;
+    private double maxWaitMillis;
+    private long timeouts;
+}
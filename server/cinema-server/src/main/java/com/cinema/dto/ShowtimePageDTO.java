@@ -0,0 +1,20 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Một trang suất chiếu theo keyset. {@code nextCursor} là {@code null} ở trang cuối.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowtimePageDTO {
+    private List<ShowtimeSummaryDTO> items;
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowtimeSeatCountDTO {
+    private Long showtimeId;
+    private int totalSeats;
+    private int soldSeats;
+    // Vé đã đặt, đang chờ thanh toán
+    private int heldSeats;
+    private int remainingSeats;
+}
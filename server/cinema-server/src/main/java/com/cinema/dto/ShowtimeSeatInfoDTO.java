@@ -15,6 +15,8 @@ public class ShowtimeSeatInfoDTO {
 
     // === THÔNG TIN SUẤT CHIẾU ===
     private Long showtimeId;
+    // Phiên bản sơ đồ ghế, dùng làm ETag và làm mốc cho ?sinceVersion=
+    private Long version;
     private String movieTitle;
     private LocalDate showDate;
     private LocalTime showTime;
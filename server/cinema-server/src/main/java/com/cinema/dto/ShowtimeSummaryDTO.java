@@ -0,0 +1,27 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng trong danh sách suất chiếu, đọc bằng projection (kèm tên phim / phòng, không nạp entity).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowtimeSummaryDTO {
+    private Long id;
+    private Long movieId;
+    private String movieTitle;
+    private Long roomId;
+    private String roomName;
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+    private BigDecimal basePrice;
+}
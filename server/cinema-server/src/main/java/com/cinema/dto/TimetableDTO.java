@@ -0,0 +1,22 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lịch chiếu của một ngày chiếu: các phim có suất trong ngày, mỗi phim kèm suất chiếu và số ghế còn trống.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableDTO {
+    private LocalDate date;
+    private long version;
+    private List<TimetableMovieDTO> movies;
+}
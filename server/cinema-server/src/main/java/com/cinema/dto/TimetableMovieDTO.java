@@ -0,0 +1,22 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableMovieDTO {
+    private Long movieId;
+    private String title;
+    private String posterUrl;
+    private String genre;
+    private Integer durationMinutes;
+    private String rating;
+    private List<TimetableShowtimeDTO> showtimes;
+}
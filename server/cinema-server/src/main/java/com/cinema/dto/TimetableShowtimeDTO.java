@@ -0,0 +1,24 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableShowtimeDTO {
+    private Long showtimeId;
+    private Long roomId;
+    private String roomName;
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+    private BigDecimal basePrice;
+    private int totalSeats;
+    private int remainingSeats;
+}
@@ -0,0 +1,18 @@
+package com.cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitingRoomStatsDTO {
+    private Long showtimeId;
+    private int admitPerSecond;
+    private long issued;
+    private long admitted;
+    private long waiting;
+}
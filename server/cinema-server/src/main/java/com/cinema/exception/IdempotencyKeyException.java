@@ -0,0 +1,20 @@
+package com.cinema.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception được ném khi Idempotency-Key đang được xử lý hoặc bị dùng lại cho một request khác
+ */
+public class IdempotencyKeyException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public IdempotencyKeyException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
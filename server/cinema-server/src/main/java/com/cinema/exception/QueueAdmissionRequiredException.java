@@ -0,0 +1,18 @@
+package com.cinema.exception;
+
+/**
+ * Exception được ném khi suất chiếu đang mở phòng chờ và request chưa được cho vào
+ */
+public class QueueAdmissionRequiredException extends RuntimeException {
+
+    private final Long showtimeId;
+
+    public QueueAdmissionRequiredException(Long showtimeId, String reason) {
+        super("Waiting room is active for showtime " + showtimeId + ": " + reason);
+        this.showtimeId = showtimeId;
+    }
+
+    public Long getShowtimeId() {
+        return showtimeId;
+    }
+}
@@ -0,0 +1,25 @@
+package com.cinema.exception;
+
+import java.util.List;
+
+/**
+ * Exception được ném khi một hoặc nhiều ghế đã bị người khác giữ/đặt
+ */
+public class SeatUnavailableException extends RuntimeException {
+
+    private final List<String> seats;
+
+    public SeatUnavailableException(List<String> seats) {
+        super("Seats " + String.join(", ", seats) + " already taken");
+        this.seats = List.copyOf(seats);
+    }
+
+    public SeatUnavailableException(String message) {
+        super(message);
+        this.seats = List.of();
+    }
+
+    public List<String> getSeats() {
+        return seats;
+    }
+}
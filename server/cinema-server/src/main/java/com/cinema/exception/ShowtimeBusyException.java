@@ -0,0 +1,11 @@
+package com.cinema.exception;
+
+/**
+ * Exception được ném khi không giành được khóa của suất chiếu trong thời gian cho phép
+ */
+public class ShowtimeBusyException extends RuntimeException {
+
+    public ShowtimeBusyException(Long showtimeId) {
+        super("Showtime " + showtimeId + " is busy, please retry");
+    }
+}
@@ -0,0 +1,22 @@
+package com.cinema.exception;
+
+import java.time.LocalDateTime;
+
+/**
+ * Exception được ném khi suất chiếu chồng giờ (kể cả thời gian dọn phòng) với một suất chiếu khác cùng phòng
+ */
+public class ShowtimeConflictException extends RuntimeException {
+
+    private final Long conflictingShowtimeId;
+
+    public ShowtimeConflictException(Long roomId, Long conflictingShowtimeId,
+                                     LocalDateTime conflictingStartsAt, LocalDateTime conflictingEndsAt) {
+        super("Room " + roomId + " is already used by showtime " + conflictingShowtimeId
+                + " (" + conflictingStartsAt + " - " + conflictingEndsAt + ")");
+        this.conflictingShowtimeId = conflictingShowtimeId;
+    }
+
+    public Long getConflictingShowtimeId() {
+        return conflictingShowtimeId;
+    }
+}
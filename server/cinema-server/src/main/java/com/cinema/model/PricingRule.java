@@ -0,0 +1,68 @@
+package com.cinema.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Quy tắc giá: hệ số nhân trên giá gốc của suất chiếu, áp dụng khi mọi điều kiện khác null đều khớp.
+ */
+@Entity
+@Table(name = "pricing_rules")
+@Getter
+@Setter
+public class PricingRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "seat_type", length = 30)
+    private String seatType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week", length = 10)
+    private DayOfWeek dayOfWeek;
+
+    // Khung giờ bắt đầu suất chiếu [startTime, endTime); startTime > endTime nghĩa là qua đêm
+    @Column(name = "start_time")
+    private LocalTime startTime;
+
+    @Column(name = "end_time")
+    private LocalTime endTime;
+
+    @Column(name = "room_id")
+    private Long roomId;
+
+    // Tăng giá theo nhu cầu: chỉ áp dụng khi tỉ lệ ghế đã bán / đang giữ đạt ngưỡng này
+    @Column(name = "min_occupancy_percent")
+    private Integer minOccupancyPercent;
+
+    @Column(nullable = false, precision = 6, scale = 3)
+    private BigDecimal multiplier = BigDecimal.ONE;
+
+    @Column(nullable = false)
+    private Integer priority = 0;
+
+    @Column(nullable = false)
+    private Boolean active = true;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -5,6 +5,7 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonIgnore; 
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "showtimes")
@@ -38,6 +39,15 @@ public class Showtime {
     @Column(name = "base_price", nullable = false, precision = 10, scale = 2)
     private BigDecimal basePrice; 
 
+    // Bộ đếm chỉ được đổi bằng UPDATE cộng dồn (ShowtimeSeatCounters), không bao giờ ghi lại từ entity
+    @ColumnDefault("0")
+    @Column(name = "sold_seats", nullable = false, insertable = false, updatable = false)
+    private int soldSeats;
+
+    @ColumnDefault("0")
+    @Column(name = "held_seats", nullable = false, insertable = false, updatable = false)
+    private int heldSeats;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
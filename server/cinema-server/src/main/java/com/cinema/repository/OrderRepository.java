@@ -3,9 +3,15 @@ package com.cinema.repository;
 import com.cinema.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.LockModeType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +20,9 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
     @Query("SELECT o FROM Order o JOIN FETCH o.user u LEFT JOIN FETCH o.tickets t LEFT JOIN FETCH t.seat s LEFT JOIN FETCH t.showtime sh JOIN FETCH sh.movie m JOIN FETCH sh.room r WHERE o.id = :orderId")
     Optional<Order> findByIdWithDetails(@Param("orderId") Long orderId);
 
+    @Query("SELECT o FROM Order o JOIN FETCH o.user u LEFT JOIN FETCH o.tickets t LEFT JOIN FETCH t.seat s LEFT JOIN FETCH t.showtime sh JOIN FETCH sh.movie m JOIN FETCH sh.room r WHERE o.ticketCode = :ticketCode")
+    Optional<Order> findByTicketCodeWithDetails(@Param("ticketCode") String ticketCode);
+
     @Query("SELECT DISTINCT o FROM Order o " +
            "JOIN FETCH o.user u " +
            "LEFT JOIN FETCH o.tickets t " +
@@ -33,4 +42,25 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
             "JOIN FETCH sh.room r " +
             "ORDER BY o.createdAt DESC")
      List<Order> findAllWithDetails();
-}
\ No newline at end of file
+
+     // Ghi bảng nối order_tickets cho toàn bộ vé của đơn trong một lệnh
+     @Modifying
+     @Query(value = "INSERT INTO order_tickets (order_id, ticket_id) " +
+                    "SELECT t.order_id, t.id FROM tickets t WHERE t.order_id = :orderId",
+            nativeQuery = true)
+     int linkTicketsByOrderId(@Param("orderId") Long orderId);
+
+     // Đọc lại đơn kèm khóa dòng sau khi đã khóa suất chiếu: trạng thái đơn không đổi tới hết transaction
+     @Lock(LockModeType.PESSIMISTIC_WRITE)
+     @Query("SELECT o FROM Order o WHERE o.id = :id")
+     Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+     @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.status = 'PROCESSING'")
+     List<Long> findProcessingIds(@Param("ids") Collection<Long> ids);
+
+     @Modifying
+     @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids AND o.status = 'PROCESSING'")
+     int updateProcessingStatus(@Param("ids") Collection<Long> ids,
+                                @Param("status") String status,
+                                @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,7 @@
+package com.cinema.repository;
+
+/**
+ * Vé mà một đơn còn sở hữu, đọc kèm khóa dòng để trả vé mà không ghi đè thay đổi của giao dịch khác.
+ */
+public record OrderTicketRef(Long ticketId, Long showtimeId, Long seatId, String status) {
+}
@@ -0,0 +1,16 @@
+package com.cinema.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Giao dịch đang chờ thanh toán, đọc bằng projection (không nạp entity).
+ */
+public record PendingPayment(
+        Long transactionId,
+        Long orderId,
+        BigDecimal amount,
+        String paymentMethod,
+        LocalDateTime createdAt
+) {
+}
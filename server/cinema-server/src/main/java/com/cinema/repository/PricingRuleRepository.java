@@ -0,0 +1,10 @@
+package com.cinema.repository;
+
+import com.cinema.model.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
+    List<PricingRule> findByActiveTrueOrderByPriorityAscIdAsc();
+}
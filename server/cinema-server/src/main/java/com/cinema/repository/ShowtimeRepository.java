@@ -1,18 +1,41 @@
 package com.cinema.repository;
 
 import com.cinema.model.Showtime;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
-public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
+public interface ShowtimeRepository extends JpaRepository<Showtime, Long>, ShowtimeRepositoryCustom {
 
     @Query("SELECT s FROM Showtime s JOIN FETCH s.movie JOIN FETCH s.room WHERE s.id = :id")
     Optional<Showtime> findByIdWithDetails(@Param("id") Long id);
 
     @Query("SELECT s FROM Showtime s JOIN FETCH s.movie m JOIN FETCH s.room WHERE m.id = :movieId")
     List<Showtime> findByMovieId(@Param("movieId") Long movieId);
+
+    List<Showtime> findByRoomIdAndStartsAtAfter(Long roomId, LocalDateTime startsAt);
+
+    @Query("SELECT new com.cinema.repository.ShowtimeSlot(s.id, s.movie.id, s.startsAt, s.endsAt) " +
+           "FROM Showtime s WHERE s.room.id = :roomId")
+    List<ShowtimeSlot> findSlotsByRoomId(@Param("roomId") Long roomId);
+
+    // Lịch chiếu theo ngày: một câu lệnh cho cả ngày (idx_showtimes_starts_at_id), không nạp Movie.showtimes
+    @Query("SELECT new com.cinema.repository.TimetableRow(s.id, m.id, m.title, m.posterUrl, m.genre, m.durationMinutes, " +
+           "m.rating, r.id, r.name, s.startsAt, s.endsAt, s.basePrice, s.soldSeats, s.heldSeats) " +
+           "FROM Showtime s JOIN s.movie m JOIN s.room r " +
+           "WHERE s.startsAt >= :from AND s.startsAt < :to ORDER BY s.startsAt, s.id")
+    List<TimetableRow> findTimetableRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.cinema.repository.ShowtimeSeatCount(s.id, s.room.id, CAST(s.soldSeats AS Long), CAST(s.heldSeats AS Long)) " +
+           "FROM Showtime s WHERE s.id IN :ids")
+    List<ShowtimeSeatCount> findSeatCounters(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.id FROM Showtime s WHERE s.id > :afterId ORDER BY s.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
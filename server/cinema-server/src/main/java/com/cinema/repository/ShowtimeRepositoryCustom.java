@@ -0,0 +1,40 @@
+package com.cinema.repository;
+
+import com.cinema.dto.ShowtimeSummaryDTO;
+import com.cinema.model.Showtime;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ShowtimeRepositoryCustom {
+
+    /**
+     * Chèn nhiều suất chiếu trong một lệnh JDBC batch và gán id vừa sinh cho từng suất chiếu.
+     * Showtime dùng id IDENTITY nên Hibernate không thể gộp các lệnh INSERT; các suất chiếu được chèn
+     * theo cách này không nằm trong persistence context.
+     */
+    void batchInsert(List<Showtime> showtimes);
+
+    /**
+     * Cộng dồn vào bộ đếm ghế của suất chiếu. Giữ khóa dòng suất chiếu tới hết transaction.
+     */
+    void adjustSeatCounters(Long showtimeId, int soldDelta, int heldDelta);
+
+    /**
+     * Khóa (SELECT ... FOR UPDATE) và đọc bộ đếm ghế của các suất chiếu, theo thứ tự id.
+     */
+    List<ShowtimeSeatCount> lockSeatCounters(Collection<Long> showtimeIds);
+
+    /**
+     * Ghi đè bộ đếm ghế bằng số đếm lại từ bảng tickets.
+     */
+    void overwriteSeatCounters(List<ShowtimeSeatCount> counts);
+
+    /**
+     * Phân trang keyset theo (startsAt, id), không nạp entity. Câu lệnh chỉ chứa các bộ lọc khác null, nên dùng được
+     * idx_showtimes_(movie|room)_starts_at_id hoặc idx_showtimes_starts_at_id kể cả khi câu lệnh được prepare ở server.
+     */
+    List<ShowtimeSummaryDTO> findSummariesAfter(LocalDateTime afterStartsAt, Long afterId, LocalDateTime before,
+                                                Long movieId, Long roomId, int limit);
+}
@@ -0,0 +1,127 @@
+package com.cinema.repository;
+
+import com.cinema.dto.ShowtimeSummaryDTO;
+import com.cinema.model.Showtime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ShowtimeRepositoryImpl implements ShowtimeRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO showtimes (movie_id, room_id, starts_at, ends_at, base_price, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ADJUST_COUNTERS_SQL =
+            "UPDATE showtimes SET sold_seats = sold_seats + ?, held_seats = held_seats + ? WHERE id = ?";
+
+    private static final String OVERWRITE_COUNTERS_SQL =
+            "UPDATE showtimes SET sold_seats = ?, held_seats = ? WHERE id = ?";
+
+    private static final String SUMMARIES_SQL =
+            "SELECT s.id, m.id, m.title, r.id, r.name, s.starts_at, s.ends_at, s.base_price " +
+            "FROM showtimes s JOIN movies m ON m.id = s.movie_id JOIN rooms r ON r.id = s.room_id " +
+            "WHERE (s.starts_at > ? OR (s.starts_at = ? AND s.id > ?)) AND s.starts_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<Showtime> showtimes) {
+        if (showtimes.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // rewriteBatchedStatements gộp lô thành INSERT nhiều dòng; Connector/J trả đủ id theo thứ tự chèn
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Showtime showtime : showtimes) {
+                    ps.setLong(1, showtime.getMovie().getId());
+                    ps.setLong(2, showtime.getRoom().getId());
+                    ps.setTimestamp(3, Timestamp.valueOf(showtime.getStartsAt()));
+                    ps.setTimestamp(4, Timestamp.valueOf(showtime.getEndsAt()));
+                    ps.setBigDecimal(5, showtime.getBasePrice());
+                    ps.setTimestamp(6, now);
+                    ps.setTimestamp(7, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < showtimes.size()) {
+                        showtimes.get(i++).setId(keys.getLong(1));
+                    }
+                    if (i != showtimes.size()) {
+                        throw new IllegalStateException("Expected " + showtimes.size() + " generated ids, got " + i);
+                    }
+                }
+            }
+            return null;
+        });
+        showtimes.forEach(showtime -> {
+            showtime.setCreatedAt(now.toLocalDateTime());
+            showtime.setUpdatedAt(now.toLocalDateTime());
+        });
+    }
+
+    @Override
+    public void adjustSeatCounters(Long showtimeId, int soldDelta, int heldDelta) {
+        jdbcTemplate.update(ADJUST_COUNTERS_SQL, soldDelta, heldDelta, showtimeId);
+    }
+
+    @Override
+    public List<ShowtimeSeatCount> lockSeatCounters(Collection<Long> showtimeIds) {
+        if (showtimeIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(showtimeIds.size(), "?"));
+        return jdbcTemplate.query(
+                "SELECT id, sold_seats, held_seats FROM showtimes WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE",
+                (rs, rowNum) -> new ShowtimeSeatCount(rs.getLong(1), rs.getLong(2), rs.getLong(3)),
+                showtimeIds.toArray());
+    }
+
+    @Override
+    public void overwriteSeatCounters(List<ShowtimeSeatCount> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(OVERWRITE_COUNTERS_SQL, counts, counts.size(), (ps, count) -> {
+            ps.setLong(1, count.sold());
+            ps.setLong(2, count.held());
+            ps.setLong(3, count.showtimeId());
+        });
+    }
+
+    @Override
+    public List<ShowtimeSummaryDTO> findSummariesAfter(LocalDateTime afterStartsAt, Long afterId, LocalDateTime before,
+                                                       Long movieId, Long roomId, int limit) {
+        StringBuilder sql = new StringBuilder(SUMMARIES_SQL);
+        Timestamp after = Timestamp.valueOf(afterStartsAt);
+        List<Object> args = new ArrayList<>(List.of(after, after, afterId, Timestamp.valueOf(before)));
+        if (movieId != null) {
+            sql.append(" AND s.movie_id = ?");
+            args.add(movieId);
+        }
+        if (roomId != null) {
+            sql.append(" AND s.room_id = ?");
+            args.add(roomId);
+        }
+        sql.append(" ORDER BY s.starts_at, s.id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new ShowtimeSummaryDTO(
+                rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4), rs.getString(5),
+                rs.getTimestamp(6).toLocalDateTime(), rs.getTimestamp(7).toLocalDateTime(), rs.getBigDecimal(8)),
+                args.toArray());
+    }
+}
@@ -0,0 +1,12 @@
+package com.cinema.repository;
+
+/**
+ * Số vé đã bán và đang giữ (chờ thanh toán) của một suất chiếu, đọc bằng projection (không nạp entity):
+ * từ bộ đếm trên dòng suất chiếu (kèm phòng) hoặc đếm lại từ bảng tickets ({@code roomId} null).
+ */
+public record ShowtimeSeatCount(Long showtimeId, Long roomId, Long sold, Long held) {
+
+    public ShowtimeSeatCount(Long showtimeId, Long sold, Long held) {
+        this(showtimeId, null, sold, held);
+    }
+}
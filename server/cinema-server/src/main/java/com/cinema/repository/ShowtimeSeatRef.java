@@ -0,0 +1,7 @@
+package com.cinema.repository;
+
+/**
+ * Cặp (suất chiếu, ghế) của một vé, dùng để đồng bộ bộ nhớ trạng thái ghế sau các lệnh UPDATE theo tập.
+ */
+public record ShowtimeSeatRef(Long showtimeId, Long seatId) {
+}
@@ -0,0 +1,14 @@
+package com.cinema.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Khoảng thời gian một suất chiếu chiếm phòng, trong {@link com.cinema.service.RoomScheduleIndex}.
+ */
+public record ShowtimeSlot(Long showtimeId, Long movieId, LocalDateTime startsAt, LocalDateTime endsAt) {
+
+    public Duration length() {
+        return Duration.between(startsAt, endsAt);
+    }
+}
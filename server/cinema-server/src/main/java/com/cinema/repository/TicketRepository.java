@@ -1,16 +1,19 @@
 package com.cinema.repository;
 
+import com.cinema.model.Order;
 import com.cinema.model.Ticket;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
-public interface TicketRepository extends JpaRepository<Ticket, Long> {
+public interface TicketRepository extends JpaRepository<Ticket, Long>, TicketRepositoryCustom {
 
     // Repository
     Set<Ticket> findByShowtime_IdAndStatusIn(Long showtimeId, Collection<String> statuses);
@@ -18,6 +21,20 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
     Optional<Ticket> findByShowtime_IdAndSeat_Id(Long showtimeId, Long seatId);
 
+    List<Ticket> findByShowtime_IdAndSeat_IdIn(Long showtimeId, Collection<Long> seatIds);
+
+    // Compare-and-set: chỉ nhận các vé còn AVAILABLE; số dòng bị ảnh hưởng cho biết có giành được đủ ghế hay không
+    @Modifying
+    @Query("UPDATE Ticket t SET t.status = :status, t.order = :order, t.updatedAt = :now " +
+           "WHERE t.showtime.id = :showtimeId AND t.seat.id IN :seatIds AND t.status = 'AVAILABLE'")
+    int claimAvailable(
+            @Param("showtimeId") Long showtimeId,
+            @Param("seatIds") Collection<Long> seatIds,
+            @Param("order") Order order,
+            @Param("status") String status,
+            @Param("now") LocalDateTime now
+    );
+
     @Query("SELECT t FROM Ticket t JOIN t.seat s WHERE t.showtime.id = :showtimeId AND s.room.id = :roomId AND s.rowLabel = :rowLabel AND s.seatNumber = :seatNumber")
     Optional<Ticket> findByShowtimeAndSeatDetails(
             @Param("showtimeId") Long showtimeId,
@@ -32,8 +49,42 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
             @Param("statuses") List<String> statuses
     );
 
+    @Query("SELECT t.seat.id FROM Ticket t WHERE t.order.id = :orderId AND t.seat.id IN :seatIds")
+    Set<Long> findSeatIdsByOrderIdAndSeatIdIn(
+            @Param("orderId") Long orderId,
+            @Param("seatIds") Collection<Long> seatIds
+    );
+
     boolean existsByShowtime_IdAndSeat_Id(Long showtimeId, Long seatId);
 
+    boolean existsByShowtime_Id(Long showtimeId);
+
+    // Vé "chưa bán" là vé đang AVAILABLE; vé đã trả lại vẫn còn trong order_tickets của đơn đã hủy,
+    // nên phải gỡ các liên kết đó trước khi xóa vé (fk_ot_ticket)
+    @Modifying
+    @Query(value = "DELETE FROM order_tickets WHERE ticket_id IN " +
+            "(SELECT t.id FROM tickets t WHERE t.showtime_id = :showtimeId AND t.status = 'AVAILABLE')",
+            nativeQuery = true)
+    int unlinkUnsoldByShowtimeId(@Param("showtimeId") Long showtimeId);
+
+    @Modifying
+    @Query(value = "DELETE FROM tickets WHERE showtime_id = :showtimeId AND status = 'AVAILABLE'",
+            nativeQuery = true)
+    int deleteUnsoldByShowtimeId(@Param("showtimeId") Long showtimeId);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_tickets WHERE ticket_id IN " +
+            "(SELECT t.id FROM tickets t JOIN showtimes st ON st.id = t.showtime_id " +
+            "WHERE st.room_id = :roomId AND t.status = 'AVAILABLE')",
+            nativeQuery = true)
+    int unlinkUnsoldByRoomId(@Param("roomId") Long roomId);
+
+    @Modifying
+    @Query(value = "DELETE t FROM tickets t JOIN showtimes st ON st.id = t.showtime_id " +
+            "WHERE st.room_id = :roomId AND t.status = 'AVAILABLE'",
+            nativeQuery = true)
+    int deleteUnsoldByRoomId(@Param("roomId") Long roomId);
+
     @Query(value = "SELECT t.id, CONCAT(s.row_label, s.seat_number) as seatLabel, " +
             "st.starts_at, st.ends_at, t.price, t.status " +
             "FROM tickets t " +
@@ -46,4 +97,41 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
             @Param("showtimeId") Long showtimeId,
             @Param("seatId") Long seatId
     );
+
+    @Query("SELECT new com.cinema.repository.ShowtimeSeatRef(t.showtime.id, t.seat.id) FROM Ticket t " +
+           "WHERE t.order.id IN :orderIds AND t.status = 'BOOKED'")
+    List<ShowtimeSeatRef> findBookedSeatsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // Các suất chiếu có vé đơn còn sở hữu; đơn không nhận thêm vé sau khi tạo nên tập này chỉ nhỏ đi
+    @Query("SELECT DISTINCT t.showtime.id FROM Ticket t WHERE t.order.id = :orderId")
+    List<Long> findShowtimeIdsByOrderId(@Param("orderId") Long orderId);
+
+    // Trả các vé đã khóa dòng, chỉ khi vé vẫn thuộc đơn: số dòng bị ảnh hưởng là số vé thực sự được trả
+    @Modifying
+    @Query("UPDATE Ticket t SET t.status = 'AVAILABLE', t.order = null, t.updatedAt = :now " +
+           "WHERE t.id IN :ticketIds AND t.order.id = :orderId")
+    int releaseOwned(@Param("orderId") Long orderId,
+                     @Param("ticketIds") Collection<Long> ticketIds,
+                     @Param("now") LocalDateTime now);
+
+    // Trả ghế: vé về AVAILABLE và thôi thuộc đơn (lịch sử vẫn nằm trong order_tickets)
+    @Modifying
+    @Query("UPDATE Ticket t SET t.status = 'AVAILABLE', t.order = null, t.updatedAt = :now " +
+           "WHERE t.order.id IN :orderIds AND t.status = 'BOOKED'")
+    int releaseBookedByOrderIds(@Param("orderIds") Collection<Long> orderIds, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Ticket t SET t.status = :status, t.updatedAt = :now WHERE t.order.id IN :orderIds AND t.status = 'BOOKED'")
+    int updateBookedByOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                               @Param("status") String status,
+                               @Param("now") LocalDateTime now);
+
+    // Đếm lại từ bảng tickets để đối chiếu bộ đếm trên showtimes (uk_showtime_seat)
+    @Query("SELECT new com.cinema.repository.ShowtimeSeatCount(t.showtime.id, " +
+           "SUM(CASE WHEN t.status IN :soldStatuses THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN t.status IN :heldStatuses THEN 1 ELSE 0 END)) " +
+           "FROM Ticket t WHERE t.showtime.id IN :showtimeIds GROUP BY t.showtime.id")
+    List<ShowtimeSeatCount> countSeatsByShowtimeIds(@Param("showtimeIds") Collection<Long> showtimeIds,
+                                                    @Param("soldStatuses") Collection<String> soldStatuses,
+                                                    @Param("heldStatuses") Collection<String> heldStatuses);
 }
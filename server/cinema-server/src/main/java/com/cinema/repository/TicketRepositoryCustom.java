@@ -0,0 +1,27 @@
+package com.cinema.repository;
+
+import com.cinema.model.Ticket;
+
+import java.util.List;
+
+public interface TicketRepositoryCustom {
+
+    /**
+     * Chèn nhiều vé mới trong một lệnh JDBC batch.
+     * Ticket dùng id IDENTITY nên Hibernate không thể gộp các lệnh INSERT; các vé được chèn
+     * theo cách này không được gán id và không nằm trong persistence context.
+     * Vé trùng (showtime, seat) với vé đã có bị bỏ qua thay vì làm hỏng cả transaction;
+     * người gọi tự kiểm tra vé nào thực sự thuộc về mình.
+     */
+    void batchInsert(List<Ticket> tickets);
+
+    /**
+     * Cập nhật giá theo lô cho các vé còn AVAILABLE; vé đã bán giữ nguyên giá lúc bán.
+     */
+    void batchUpdateAvailablePrice(List<Ticket> tickets);
+
+    /**
+     * Khóa dòng (SELECT ... FOR UPDATE) các vé đơn còn sở hữu và chưa được trả.
+     */
+    List<OrderTicketRef> lockOwnedByOrderId(Long orderId);
+}
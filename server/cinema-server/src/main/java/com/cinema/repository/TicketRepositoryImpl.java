@@ -0,0 +1,69 @@
+package com.cinema.repository;
+
+import com.cinema.model.Ticket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TicketRepositoryImpl implements TicketRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO tickets (showtime_id, seat_id, order_id, price, status, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE id = id";
+
+    private static final String UPDATE_PRICE_SQL =
+            "UPDATE tickets SET price = ?, updated_at = ? " +
+            "WHERE showtime_id = ? AND seat_id = ? AND status = 'AVAILABLE'";
+
+    private static final String LOCK_OWNED_SQL =
+            "SELECT id, showtime_id, seat_id, status FROM tickets " +
+            "WHERE order_id = ? AND status NOT IN ('AVAILABLE', 'CANCELLED') FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<Ticket> tickets) {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, tickets, tickets.size(), (ps, ticket) -> {
+            ps.setLong(1, ticket.getShowtime().getId());
+            ps.setLong(2, ticket.getSeat().getId());
+            if (ticket.getOrder() != null) {
+                ps.setLong(3, ticket.getOrder().getId());
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setBigDecimal(4, ticket.getPrice());
+            ps.setString(5, ticket.getStatus());
+            ps.setTimestamp(6, Timestamp.valueOf(ticket.getCreatedAt()));
+            ps.setTimestamp(7, Timestamp.valueOf(ticket.getUpdatedAt()));
+        });
+    }
+
+    @Override
+    public void batchUpdateAvailablePrice(List<Ticket> tickets) {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_PRICE_SQL, tickets, tickets.size(), (ps, ticket) -> {
+            ps.setBigDecimal(1, ticket.getPrice());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, ticket.getShowtime().getId());
+            ps.setLong(4, ticket.getSeat().getId());
+        });
+    }
+
+    @Override
+    public List<OrderTicketRef> lockOwnedByOrderId(Long orderId) {
+        return jdbcTemplate.query(LOCK_OWNED_SQL, (rs, rowNum) -> new OrderTicketRef(
+                rs.getLong("id"), rs.getLong("showtime_id"), rs.getLong("seat_id"), rs.getString("status")), orderId);
+    }
+}
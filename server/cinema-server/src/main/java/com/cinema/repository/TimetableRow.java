@@ -0,0 +1,25 @@
+package com.cinema.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một suất chiếu kèm thông tin phim / phòng cho lịch chiếu theo ngày, đọc bằng projection (không nạp entity).
+ */
+public record TimetableRow(
+        Long showtimeId,
+        Long movieId,
+        String movieTitle,
+        String posterUrl,
+        String genre,
+        Integer durationMinutes,
+        String rating,
+        Long roomId,
+        String roomName,
+        LocalDateTime startsAt,
+        LocalDateTime endsAt,
+        BigDecimal basePrice,
+        Integer soldSeats,
+        Integer heldSeats
+) {
+}
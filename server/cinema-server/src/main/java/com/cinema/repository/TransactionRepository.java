@@ -1,10 +1,15 @@
 package com.cinema.repository;
 
 import com.cinema.model.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
@@ -18,4 +23,18 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
             "ORDER BY t.createdAt DESC")
     List<Transaction> findAllWithOrderDetails();
 
+    // Phân trang keyset theo id (dùng idx_transactions_status_id), không nạp entity
+    @Query("SELECT new com.cinema.repository.PendingPayment(t.id, t.order.id, t.amount, t.paymentMethod, t.createdAt) " +
+           "FROM Transaction t WHERE t.status = 'PENDING' AND t.id > :afterId ORDER BY t.id")
+    List<PendingPayment> findPendingAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Chỉ chuyển các giao dịch còn PENDING, nên chạy lại hay chạy song song với luồng khác đều an toàn
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :status, t.paidAt = :paidAt, t.updatedAt = :now " +
+           "WHERE t.id IN :ids AND t.status = 'PENDING'")
+    int settlePending(@Param("ids") Collection<Long> ids,
+                      @Param("status") String status,
+                      @Param("paidAt") LocalDateTime paidAt,
+                      @Param("now") LocalDateTime now);
+
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.cinema.service;
+
+import com.cinema.dto.BestAvailableRequestDTO;
+import com.cinema.dto.BestAvailableResponseDTO;
+import com.cinema.exception.NotFoundException;
+import com.cinema.exception.SeatUnavailableException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tự chọn dãy ghế liền nhau tốt nhất cho một nhóm khách.
+ *
+ * Quét trực tiếp ảnh chụp trạng thái ghế trong bộ nhớ: các hàng được duyệt từ giữa phòng ra ngoài và dừng
+ * ngay khi khoảng cách hàng đã lớn hơn điểm tốt nhất tìm được, trong mỗi hàng chỉ xét các đoạn ghế trống liền
+ * nhau (mỗi đoạn tính điểm một lần). Không truy vấn DB và không cấp phát theo số ghế.
+ */
+@Service
+@RequiredArgsConstructor
+public class BestAvailableSeatService {
+
+    // Số lần thử lại khi ghế vừa tìm được bị người khác giữ trước
+    private static final int HOLD_ATTEMPTS = 3;
+
+    private final SeatStateEngine seatStateEngine;
+    private final SeatHoldService seatHoldService;
+    private final PricingEngine pricingEngine;
+
+    public BestAvailableResponseDTO findBestAvailable(BestAvailableRequestDTO request) {
+        if (request.isHold() && request.getUserId() == null) {
+            throw new IllegalArgumentException("userId is required to hold seats");
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            ShowtimeSeatSnapshot snapshot = seatStateEngine.find(request.getShowtimeId())
+                    .orElseThrow(() -> new NotFoundException("Showtime not found: " + request.getShowtimeId()));
+            int first = findBlock(snapshot, request.getCount(), request.getSeatType());
+            if (first < 0) {
+                throw new SeatUnavailableException("No " + request.getCount() + " contiguous seats available");
+            }
+
+            SeatLayout layout = snapshot.layout();
+            PriceTable prices = pricingEngine.tableFor(snapshot);
+            int occupancyPercent = snapshot.occupancyPercent();
+            List<String> codes = new ArrayList<>(request.getCount());
+            BigDecimal total = BigDecimal.ZERO;
+            for (int pos = first; pos < first + request.getCount(); pos++) {
+                codes.add(layout.codeAt(pos));
+                total = total.add(prices.priceAt(pos, occupancyPercent));
+            }
+
+            BestAvailableResponseDTO.BestAvailableResponseDTOBuilder response = BestAvailableResponseDTO.builder()
+                    .showtimeId(snapshot.showtimeId())
+                    .seats(codes)
+                    .totalPrice(total);
+            if (!request.isHold()) {
+                return response.build();
+            }
+            try {
+                // Giữ cả dãy theo kiểu tất cả hoặc không có gì
+                SeatHold hold = seatHoldService.createHold(request.getUserId(), snapshot.showtimeId(), codes);
+                return response.holdId(hold.id()).expiresAt(hold.expiresAt()).build();
+            } catch (SeatUnavailableException e) {
+                if (attempt >= HOLD_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tìm dãy {@code count} ghế trống liền nhau gần tâm phòng nhất.
+     * Điểm của một dãy là bình phương khoảng cách (tính theo nửa ghế) từ tâm dãy đến tâm phòng:
+     * hàng giữa và ghế giữa hàng là tốt nhất; hòa điểm thì chọn hàng gần màn hình hơn, rồi dãy bên trái.
+     *
+     * @return vị trí ghế đầu tiên của dãy trong sơ đồ, hoặc -1 nếu không có dãy nào phù hợp
+     */
+    static int findBlock(ShowtimeSeatSnapshot snapshot, int count, String seatType) {
+        SeatLayout layout = snapshot.layout();
+        byte[] states = snapshot.states();
+        String wanted = seatType == null || seatType.isBlank() || "ANY".equalsIgnoreCase(seatType)
+                ? null : seatType.trim();
+        int rows = layout.rowCount();
+
+        long bestScore = Long.MAX_VALUE;
+        int bestRow = Integer.MAX_VALUE;
+        int bestPos = -1;
+
+        // Duyệt hàng từ giữa ra hai phía: hàng lo (gần màn hình) trước hàng hi
+        int lo = (rows - 1) / 2;
+        int hi = lo + 1;
+        while (lo >= 0 || hi < rows) {
+            int row;
+            if (hi >= rows || (lo >= 0 && Math.abs(2 * lo - (rows - 1)) <= Math.abs(2 * hi - (rows - 1)))) {
+                row = lo--;
+            } else {
+                row = hi++;
+            }
+            long rowOffset = 2L * row - (rows - 1);
+            long rowScore = rowOffset * rowOffset;
+            if (rowScore > bestScore) {
+                break;
+            }
+
+            int start = layout.rowStart(row);
+            int end = layout.rowEnd(row);
+            if (end - start < count) {
+                continue;
+            }
+            // Tâm hàng tính theo số ghế (nhân 2 để tránh số lẻ)
+            int rowCenter2 = layout.seatNumberAt(start) + layout.seatNumberAt(end - 1);
+
+            int pos = start;
+            while (pos < end) {
+                if (!sellable(layout, states, pos, wanted)) {
+                    pos++;
+                    continue;
+                }
+                int runStart = pos;
+                while (pos + 1 < end && sellable(layout, states, pos + 1, wanted)
+                        && layout.seatNumberAt(pos + 1) == layout.seatNumberAt(pos) + 1) {
+                    pos++;
+                }
+                int runEnd = pos++;
+                int runLength = runEnd - runStart + 1;
+                if (runLength < count) {
+                    continue;
+                }
+
+                // Trong một đoạn liền nhau, dãy gần tâm hàng nhất là dãy có số ghế đầu gần (tâm - count + 1) / 2
+                int firstNumber = layout.seatNumberAt(runStart);
+                int offset = Math.floorDiv(rowCenter2 - count + 1, 2) - firstNumber;
+                for (int candidate = offset; candidate <= offset + 1; candidate++) {
+                    int shift = Math.max(0, Math.min(runLength - count, candidate));
+                    long colOffset = 2L * (firstNumber + shift) + count - 1 - rowCenter2;
+                    long score = rowScore + colOffset * colOffset;
+                    int blockStart = runStart + shift;
+                    if (score < bestScore || (score == bestScore
+                            && (row < bestRow || (row == bestRow && blockStart < bestPos)))) {
+                        bestScore = score;
+                        bestRow = row;
+                        bestPos = blockStart;
+                    }
+                }
+            }
+        }
+        return bestPos;
+    }
+
+    // Ghế trống và đúng loại yêu cầu; không chỉ định loại thì bỏ qua ghế không bán
+    private static boolean sellable(SeatLayout layout, byte[] states, int pos, String wanted) {
+        if (states[pos] != SeatStateEngine.AVAILABLE) {
+            return false;
+        }
+        String type = layout.typeAt(pos);
+        if (wanted != null) {
+            return wanted.equalsIgnoreCase(type);
+        }
+        return type == null || !("DISABLED".equalsIgnoreCase(type) || "AISLE".equalsIgnoreCase(type));
+    }
+}
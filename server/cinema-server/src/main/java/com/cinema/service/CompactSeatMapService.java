@@ -0,0 +1,211 @@
+package com.cinema.service;
+
+import com.cinema.exception.NotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * Sơ đồ ghế dạng nhị phân gọn cho kiosk và ứng dụng di động.
+ *
+ * Sơ đồ phòng (hàng, số ghế, loại ghế) được gửi riêng một lần dưới dạng blob có phiên bản, cache được lâu;
+ * mỗi lần tải sơ đồ ghế của suất chiếu chỉ còn giá theo loại ghế và một mảng bit trạng thái theo thứ tự hàng.
+ * Tất cả số nguyên đều là big-endian; định dạng chi tiết xem docs/API_REFERENCE.md.
+ */
+@Service
+@RequiredArgsConstructor
+public class CompactSeatMapService {
+
+    public static final MediaType SEAT_MAP = MediaType.parseMediaType("application/vnd.cinema.seat-map");
+    public static final MediaType SEAT_LAYOUT = MediaType.parseMediaType("application/vnd.cinema.seat-layout");
+
+    private static final int FORMAT = 1;
+    // Cờ của hàng: số ghế không liên tiếp, từng số ghế được ghi riêng
+    private static final int ROW_EXPLICIT_NUMBERS = 1;
+
+    private final SeatStateEngine seatStateEngine;
+    private final RoomSeatIndex roomSeatIndex;
+    private final PricingEngine pricingEngine;
+
+    // Blob đã mã hóa của sơ đồ phòng, dùng lại cho tới khi sơ đồ phòng được thay
+    private final ConcurrentMap<Long, EncodedLayout> layouts = new ConcurrentHashMap<>();
+
+    /**
+     * Client có yêu cầu rõ định dạng nhị phân trong header Accept hay không (wildcard không tính).
+     */
+    public static boolean isRequested(String acceptHeader) {
+        if (acceptHeader == null || acceptHeader.isBlank()) {
+            return false;
+        }
+        try {
+            for (MediaType mediaType : MediaType.parseMediaTypes(acceptHeader)) {
+                if (mediaType.getQualityValue() > 0 && SEAT_MAP.equalsTypeAndSubtype(mediaType)) {
+                    return true;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return false;
+    }
+
+    public EncodedLayout layout(Long roomId) {
+        SeatLayout layout = roomSeatIndex.get(roomId);
+        if (layout.size() == 0) {
+            throw new NotFoundException("Phòng chưa có sơ đồ ghế: " + roomId);
+        }
+        return encodedLayout(roomId, layout);
+    }
+
+    public EncodedSeatMap seatMap(Long showtimeId) {
+        ShowtimeSeatSnapshot snapshot = seatStateEngine.find(showtimeId)
+                .orElseThrow(() -> new NotFoundException("Suất chiếu không tồn tại: " + showtimeId));
+        SeatLayout layout = snapshot.layout();
+        EncodedLayout encodedLayout = encodedLayout(snapshot.roomId(), layout);
+        PriceTable prices = pricingEngine.tableFor(snapshot);
+        int occupancyPercent = snapshot.occupancyPercent();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 + encodedLayout.typeFirstPositions.length * 8 + layout.size() / 8);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(FORMAT);
+            out.writeLong(snapshot.version());
+            out.writeLong(snapshot.roomId());
+            out.writeInt(encodedLayout.version);
+            out.writeShort(layout.size());
+            // Các ghế cùng loại có cùng giá, theo thứ tự loại ghế trong blob sơ đồ phòng; đơn vị 1/100
+            out.writeByte(encodedLayout.typeFirstPositions.length);
+            for (int pos : encodedLayout.typeFirstPositions) {
+                BigDecimal price = prices.priceAt(pos, occupancyPercent);
+                out.writeLong(price.movePointRight(2).longValue());
+            }
+            // Bit 1 = ghế không chọn được (đã bán hoặc đang giữ), bit cao nhất của byte là ghế đầu tiên
+            byte[] bits = new byte[(layout.size() + 7) / 8];
+            for (int pos = 0; pos < layout.size(); pos++) {
+                if (snapshot.isBooked(pos)) {
+                    bits[pos >> 3] |= (byte) (0x80 >>> (pos & 7));
+                }
+            }
+            out.write(bits);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new EncodedSeatMap(snapshot.version(), buffer.toByteArray());
+    }
+
+    private EncodedLayout encodedLayout(Long roomId, SeatLayout layout) {
+        EncodedLayout encoded = layouts.get(roomId);
+        if (encoded != null && encoded.layout == layout) {
+            return encoded;
+        }
+        EncodedLayout fresh = encode(layout);
+        layouts.put(roomId, fresh);
+        return fresh;
+    }
+
+    private static EncodedLayout encode(SeatLayout layout) {
+        Map<String, Integer> typeIndex = new LinkedHashMap<>();
+        List<Integer> typeFirstPositions = new ArrayList<>();
+        for (int pos = 0; pos < layout.size(); pos++) {
+            String type = PricingEngine.normalizeType(layout.typeAt(pos));
+            if (!typeIndex.containsKey(type)) {
+                typeIndex.put(type, typeIndex.size());
+                typeFirstPositions.add(pos);
+            }
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 + layout.size() * 2);
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            out.writeByte(typeIndex.size());
+            for (String type : typeIndex.keySet()) {
+                writeShortString(out, type);
+            }
+            out.writeShort(layout.rowCount());
+            for (int row = 0; row < layout.rowCount(); row++) {
+                int start = layout.rowStart(row);
+                int end = layout.rowEnd(row);
+                boolean consecutive = true;
+                for (int pos = start + 1; pos < end; pos++) {
+                    consecutive &= layout.seatNumberAt(pos) == layout.seatNumberAt(pos - 1) + 1;
+                }
+                writeShortString(out, layout.rowLabelAt(start));
+                out.writeShort(end - start);
+                out.writeShort(layout.seatNumberAt(start));
+                out.writeByte(consecutive ? 0 : ROW_EXPLICIT_NUMBERS);
+                if (!consecutive) {
+                    for (int pos = start; pos < end; pos++) {
+                        out.writeShort(layout.seatNumberAt(pos));
+                    }
+                }
+                for (int pos = start; pos < end; pos++) {
+                    out.writeByte(typeIndex.get(PricingEngine.normalizeType(layout.typeAt(pos))));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Phiên bản là CRC32 của nội dung: giống nhau giữa các lần khởi động và giữa các node
+        byte[] content = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        int version = (int) crc.getValue();
+
+        byte[] bytes = new byte[content.length + 5];
+        bytes[0] = FORMAT;
+        bytes[1] = (byte) (version >>> 24);
+        bytes[2] = (byte) (version >>> 16);
+        bytes[3] = (byte) (version >>> 8);
+        bytes[4] = (byte) version;
+        System.arraycopy(content, 0, bytes, 5, content.length);
+        return new EncodedLayout(layout, version, bytes,
+                typeFirstPositions.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static void writeShortString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 255);
+        out.writeByte(length);
+        out.write(bytes, 0, length);
+    }
+
+    public static final class EncodedLayout {
+        private final SeatLayout layout;
+        private final int version;
+        private final byte[] bytes;
+        private final int[] typeFirstPositions;
+
+        private EncodedLayout(SeatLayout layout, int version, byte[] bytes, int[] typeFirstPositions) {
+            this.layout = layout;
+            this.version = version;
+            this.bytes = bytes;
+            this.typeFirstPositions = typeFirstPositions;
+        }
+
+        // Dạng hex, dùng trong ?v= và ETag
+        public String version() {
+            return String.format("%08x", version);
+        }
+
+        public byte[] bytes() {
+            return bytes;
+        }
+    }
+
+    public record EncodedSeatMap(long version, byte[] bytes) {
+    }
+}
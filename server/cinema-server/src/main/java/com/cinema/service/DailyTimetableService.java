@@ -0,0 +1,296 @@
+package com.cinema.service;
+
+import com.cinema.dto.TimetableDTO;
+import com.cinema.dto.TimetableMovieDTO;
+import com.cinema.dto.TimetableShowtimeDTO;
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.TimetableRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lịch chiếu theo ngày dựng sẵn trong bộ nhớ: phim → suất chiếu → số ghế còn trống, trả về dạng JSON đã serialize.
+ *
+ * Mỗi ngày chiếu được dựng một lần khi có người đọc (một câu SQL: suất chiếu kèm phim / phòng và bộ đếm ghế
+ * của {@link ShowtimeSeatCounters}). Sau đó số ghế được cộng trừ theo các thay đổi đã commit mà {@link SeatStateEngine} nhận
+ * (đặt vé, hủy vé, hết hạn thanh toán); sửa suất chiếu / phim / phòng thì bỏ ngày liên quan để dựng lại.
+ * JSON chỉ được serialize lại ở lần đọc đầu tiên sau mỗi thay đổi.
+ *
+ * Ngày chiếu bắt đầu lúc {@code cinema.timetable.day-offset} (mặc định 5 giờ sáng): suất chiếu lúc 1 giờ sáng
+ * thuộc ngày chiếu hôm trước. Chỉ các ngày từ hôm nay tới {@code max-days-ahead} ngày sau được giữ trong bộ nhớ;
+ * các ngày được dựng lại định kỳ để sửa sai lệch với DB (ví dụ thay đổi đến đúng lúc đang dựng).
+ *
+ * Việc dựng (và bỏ) ngày chạy dưới một khóa chung, ngoài khóa của ConcurrentHashMap: virtual thread chờ câu SQL
+ * chỉ park, không giữ chặt carrier thread. Mỗi ngày chỉ là một câu SQL nên dựng tuần tự các ngày là đủ.
+ */
+@Service
+public class DailyTimetableService {
+
+    private final ShowtimeRepository showtimeRepository;
+    private final RoomSeatIndex roomSeatIndex;
+    private final ObjectMapper objectMapper;
+    private final Duration dayOffset;
+    private final int maxDaysAhead;
+
+    private final ConcurrentMap<LocalDate, Day> days = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LocalDate> dayOfShowtime = new ConcurrentHashMap<>();
+    // Giữ khi dựng và khi bỏ ngày: ngày bị bỏ trong lúc đang dựng không bị ghi đè bằng bản dựng từ dữ liệu cũ
+    private final ReentrantLock buildLock = new ReentrantLock();
+    // Như SeatStateEngine: dùng chung và bắt đầu từ thời điểm khởi động, nên ETag vẫn tăng sau khi dựng lại
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public DailyTimetableService(ShowtimeRepository showtimeRepository,
+                                 RoomSeatIndex roomSeatIndex,
+                                 ObjectMapper objectMapper,
+                                 @Value("${cinema.timetable.day-offset:PT5H}") Duration dayOffset,
+                                 @Value("${cinema.timetable.max-days-ahead:14}") int maxDaysAhead) {
+        this.showtimeRepository = showtimeRepository;
+        this.roomSeatIndex = roomSeatIndex;
+        this.objectMapper = objectMapper;
+        this.dayOffset = dayOffset;
+        this.maxDaysAhead = maxDaysAhead;
+    }
+
+    public LocalDate today() {
+        return cinemaDay(LocalDateTime.now());
+    }
+
+    public LocalDate cinemaDay(LocalDateTime startsAt) {
+        return startsAt.minus(dayOffset).toLocalDate();
+    }
+
+    /**
+     * Lịch chiếu đã serialize của một ngày chiếu. Ngày ngoài khoảng được giữ trong bộ nhớ thì dựng mỗi lần gọi.
+     */
+    public Rendered render(LocalDate date) {
+        LocalDate today = today();
+        if (date.isBefore(today) || date.isAfter(today.plusDays(maxDaysAhead))) {
+            return build(date, false).render();
+        }
+        Day day = days.get(date);
+        if (day == null) {
+            buildLock.lock();
+            try {
+                day = days.get(date);
+                if (day == null) {
+                    day = build(date, true);
+                    days.put(date, day);
+                }
+            } finally {
+                buildLock.unlock();
+            }
+        }
+        return day.render();
+    }
+
+    /**
+     * Các ghế của suất chiếu vừa được bán (gọi sau khi transaction commit).
+     */
+    public void seatsOccupied(Long showtimeId, int count) {
+        adjust(showtimeId, count);
+    }
+
+    /**
+     * Các ghế của suất chiếu vừa được trả lại (gọi sau khi transaction commit).
+     */
+    public void seatsReleased(Long showtimeId, int count) {
+        adjust(showtimeId, -count);
+    }
+
+    /**
+     * Bỏ các ngày chứa những giờ bắt đầu này sau khi transaction commit (tạo / sửa / xóa suất chiếu).
+     */
+    public void evictDays(Collection<LocalDateTime> startsAts) {
+        List<LocalDate> dates = startsAts.stream().map(this::cinemaDay).distinct().toList();
+        TransactionCallbacks.afterCommit(() -> dates.forEach(this::evictDay));
+    }
+
+    // Trạng thái vé bị sửa trực tiếp: không biết trạng thái trước đó nên dựng lại cả ngày
+    public void evictShowtime(Long showtimeId) {
+        TransactionCallbacks.afterCommit(() -> {
+            LocalDate date = dayOfShowtime.get(showtimeId);
+            if (date != null) {
+                evictDay(date);
+            }
+        });
+    }
+
+    // Sửa phim / phòng: hiếm, bỏ toàn bộ
+    public void evictAll() {
+        TransactionCallbacks.afterCommit(() -> {
+            buildLock.lock();
+            try {
+                days.clear();
+                dayOfShowtime.clear();
+            } finally {
+                buildLock.unlock();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.timetable.refresh-interval:PT5M}")
+    void refresh() {
+        LocalDate today = today();
+        for (LocalDate date : List.copyOf(days.keySet())) {
+            if (date.isBefore(today)) {
+                evictDay(date);
+            } else {
+                buildLock.lock();
+                try {
+                    if (days.containsKey(date)) {
+                        days.put(date, build(date, true));
+                    }
+                } finally {
+                    buildLock.unlock();
+                }
+            }
+        }
+    }
+
+    private void adjust(Long showtimeId, int delta) {
+        LocalDate date = dayOfShowtime.get(showtimeId);
+        Day day = date != null ? days.get(date) : null;
+        if (day != null) {
+            day.adjust(showtimeId, delta, versions.incrementAndGet());
+        }
+    }
+
+    private void evictDay(LocalDate date) {
+        buildLock.lock();
+        try {
+            days.remove(date);
+            dayOfShowtime.values().removeIf(date::equals);
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    private Day build(LocalDate date, boolean cached) {
+        LocalDateTime from = date.atStartOfDay().plus(dayOffset);
+        List<TimetableRow> rows = showtimeRepository.findTimetableRows(from, from.plusDays(1));
+
+        int[] totals = new int[rows.size()];
+        int[] taken = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            TimetableRow row = rows.get(i);
+            totals[i] = roomSeatIndex.get(row.roomId()).size();
+            taken[i] = row.soldSeats() + row.heldSeats();
+            if (cached) {
+                dayOfShowtime.put(row.showtimeId(), date);
+            }
+        }
+        return new Day(date, rows, totals, taken, versions.incrementAndGet());
+    }
+
+    private byte[] serialize(TimetableDTO timetable) {
+        try {
+            return objectMapper.writeValueAsBytes(timetable);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không serialize được lịch chiếu ngày " + timetable.getDate(), e);
+        }
+    }
+
+    public record Rendered(long version, byte[] json) {
+    }
+
+    private final class Day {
+        private final LocalDate date;
+        private final List<TimetableRow> rows;
+        private final Map<Long, Integer> positions;
+        private final int[] totals;
+        private final AtomicIntegerArray occupied;
+        private final AtomicLong version;
+        private final ReentrantLock renderLock = new ReentrantLock();
+        private volatile Rendered rendered;
+
+        Day(LocalDate date, List<TimetableRow> rows, int[] totals, int[] occupied, long version) {
+            this.date = date;
+            this.rows = rows;
+            this.totals = totals;
+            this.occupied = new AtomicIntegerArray(occupied);
+            this.version = new AtomicLong(version);
+            this.positions = new HashMap<>(rows.size() * 2);
+            for (int i = 0; i < rows.size(); i++) {
+                positions.put(rows.get(i).showtimeId(), i);
+            }
+        }
+
+        // Cộng số ghế trước rồi mới tăng phiên bản: bản serialize mang phiên bản v đã gồm mọi thay đổi tới v
+        void adjust(Long showtimeId, int delta, long nextVersion) {
+            Integer pos = positions.get(showtimeId);
+            if (pos == null) {
+                return;
+            }
+            occupied.addAndGet(pos, delta);
+            version.accumulateAndGet(nextVersion, Math::max);
+        }
+
+        Rendered render() {
+            Rendered current = rendered;
+            if (current != null && current.version() == version.get()) {
+                return current;
+            }
+            renderLock.lock();
+            try {
+                long v = version.get();
+                current = rendered;
+                if (current == null || current.version() != v) {
+                    current = new Rendered(v, serialize(toDto(v)));
+                    rendered = current;
+                }
+                return current;
+            } finally {
+                renderLock.unlock();
+            }
+        }
+
+        private TimetableDTO toDto(long v) {
+            Map<Long, TimetableMovieDTO> movies = new LinkedHashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                TimetableRow row = rows.get(i);
+                int remaining = Math.max(0, Math.min(totals[i], totals[i] - occupied.get(i)));
+                movies.computeIfAbsent(row.movieId(), id -> TimetableMovieDTO.builder()
+                        .movieId(id)
+                        .title(row.movieTitle())
+                        .posterUrl(row.posterUrl())
+                        .genre(row.genre())
+                        .durationMinutes(row.durationMinutes())
+                        .rating(row.rating())
+                        .showtimes(new ArrayList<>())
+                        .build())
+                        .getShowtimes().add(TimetableShowtimeDTO.builder()
+                                .showtimeId(row.showtimeId())
+                                .roomId(row.roomId())
+                                .roomName(row.roomName())
+                                .startsAt(row.startsAt())
+                                .endsAt(row.endsAt())
+                                .basePrice(row.basePrice())
+                                .totalSeats(totals[i])
+                                .remainingSeats(remaining)
+                                .build());
+            }
+            List<TimetableMovieDTO> sorted = new ArrayList<>(movies.values());
+            sorted.sort(Comparator.comparing(TimetableMovieDTO::getTitle, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+            return TimetableDTO.builder().date(date).version(v).movies(sorted).build();
+        }
+    }
+}
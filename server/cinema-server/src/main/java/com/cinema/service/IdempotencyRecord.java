@@ -0,0 +1,22 @@
+package com.cinema.service;
+
+import java.time.Instant;
+
+/**
+ * Response đã lưu cho một Idempotency-Key; {@code statusCode == null} nghĩa là request đầu tiên vẫn đang chạy.
+ */
+public record IdempotencyRecord(
+        String requestHash,
+        Integer statusCode,
+        String body,
+        Instant expiresAt
+) {
+
+    public boolean isCompleted() {
+        return statusCode != null;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,113 @@
+package com.cinema.service;
+
+import com.cinema.exception.IdempotencyKeyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Xử lý header Idempotency-Key: request đầu tiên chạy bình thường và response được lưu lại,
+ * các lần gửi lại với cùng key nhận lại đúng response đó mà không chạy lại nghiệp vụ.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public IdempotencyService(IdempotencyStore store,
+                              ObjectMapper objectMapper,
+                              @Value("${cinema.idempotency.ttl:PT24H}") Duration ttl) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    /**
+     * @param scope phạm vi của key (ví dụ theo người dùng) để các client khác nhau không đụng nhau
+     */
+    public <T> ResponseEntity<T> execute(String scope, String idempotencyKey, Object request,
+                                         Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyException(HttpStatus.BAD_REQUEST, "Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String key = scope + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        Optional<IdempotencyRecord> existing = store.find(key);
+        if (existing.isEmpty() && store.tryReserve(key, requestHash, Instant.now().plus(ttl))) {
+            return runAndStore(key, action);
+        }
+
+        IdempotencyRecord record = existing.or(() -> store.find(key))
+                .orElseThrow(() -> new IdempotencyKeyException(HttpStatus.CONFLICT,
+                        "A request with this Idempotency-Key is still in progress"));
+        if (!record.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+        if (!record.isCompleted()) {
+            throw new IdempotencyKeyException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still in progress");
+        }
+        return replay(record, responseType);
+    }
+
+    private <T> ResponseEntity<T> runAndStore(String key, Supplier<ResponseEntity<T>> action) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Lỗi không được lưu: client có thể gửi lại với cùng key
+            store.remove(key);
+            throw e;
+        }
+
+        try {
+            store.complete(key, response.getStatusCode().value(), objectMapper.writeValueAsString(response.getBody()));
+        } catch (JsonProcessingException e) {
+            store.remove(key);
+        }
+        return response;
+    }
+
+    private <T> ResponseEntity<T> replay(IdempotencyRecord record, Class<T> responseType) {
+        try {
+            return ResponseEntity.status(record.statusCode())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(objectMapper.readValue(record.body(), responseType));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+}
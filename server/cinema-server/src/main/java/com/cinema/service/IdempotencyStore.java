@@ -0,0 +1,24 @@
+package com.cinema.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Nơi lưu response theo Idempotency-Key. Bản trong bộ nhớ dùng cho một node,
+ * bản lưu DB ({@code cinema.idempotency.store=db}) dùng khi chạy nhiều node.
+ */
+public interface IdempotencyStore {
+
+    Optional<IdempotencyRecord> find(String key);
+
+    /**
+     * Đánh dấu key đang được xử lý.
+     *
+     * @return false nếu key đã tồn tại (và chưa hết hạn)
+     */
+    boolean tryReserve(String key, String requestHash, Instant expiresAt);
+
+    void complete(String key, int statusCode, String body);
+
+    void remove(String key);
+}
@@ -0,0 +1,89 @@
+package com.cinema.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Kho Idempotency-Key trong bộ nhớ, giới hạn số phần tử và hết hạn theo TTL.
+ * TTL giống nhau cho mọi key nên thứ tự chèn cũng là thứ tự hết hạn: chỉ cần dọn từ đầu map.
+ * Dùng ReentrantLock thay cho synchronized để virtual thread chờ khóa không giữ luôn luồng mang (carrier).
+ */
+@Component
+@ConditionalOnProperty(name = "cinema.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, IdempotencyRecord> records = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public InMemoryIdempotencyStore(@Value("${cinema.idempotency.max-entries:100000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        lock.lock();
+        try {
+            purgeExpired(Instant.now());
+            return Optional.ofNullable(records.get(key));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryReserve(String key, String requestHash, Instant expiresAt) {
+        lock.lock();
+        try {
+            purgeExpired(Instant.now());
+            if (records.containsKey(key)) {
+                return false;
+            }
+            records.put(key, new IdempotencyRecord(requestHash, null, null, expiresAt));
+            if (records.size() > maxEntries) {
+                Iterator<String> eldest = records.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void complete(String key, int statusCode, String body) {
+        lock.lock();
+        try {
+            // Giữ nguyên vị trí trong map (put vào key đã có không đổi thứ tự chèn)
+            records.computeIfPresent(key, (k, r) -> new IdempotencyRecord(r.requestHash(), statusCode, body, r.expiresAt()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        lock.lock();
+        try {
+            records.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void purgeExpired(Instant now) {
+        Iterator<Map.Entry<String, IdempotencyRecord>> it = records.entrySet().iterator();
+        while (it.hasNext() && it.next().getValue().isExpired(now)) {
+            it.remove();
+        }
+    }
+}
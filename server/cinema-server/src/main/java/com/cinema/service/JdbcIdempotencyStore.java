@@ -0,0 +1,71 @@
+package com.cinema.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Kho Idempotency-Key lưu trong bảng {@code idempotency_keys}, dùng chung giữa các node.
+ * Mỗi lệnh chạy ngoài transaction đặt vé (auto-commit) để các node khác thấy ngay.
+ */
+@Component
+@ConditionalOnProperty(name = "cinema.idempotency.store", havingValue = "db")
+@RequiredArgsConstructor
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        List<IdempotencyRecord> rows = jdbcTemplate.query(
+                "SELECT request_hash, status_code, response_body, expires_at FROM idempotency_keys " +
+                "WHERE idempotency_key = ? AND expires_at > ?",
+                (rs, i) -> new IdempotencyRecord(
+                        rs.getString("request_hash"),
+                        (Integer) rs.getObject("status_code"),
+                        rs.getString("response_body"),
+                        rs.getTimestamp("expires_at").toInstant()),
+                key, Timestamp.from(Instant.now()));
+        return rows.stream().findFirst();
+    }
+
+    @Override
+    public boolean tryReserve(String key, String requestHash, Instant expiresAt) {
+        // Key hết hạn được giải phóng để dùng lại
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idempotency_key = ? AND expires_at <= ?",
+                key, Timestamp.from(Instant.now()));
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO idempotency_keys (idempotency_key, request_hash, expires_at) VALUES (?, ?, ?)",
+                    key, requestHash, Timestamp.from(expiresAt));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void complete(String key, int statusCode, String body) {
+        jdbcTemplate.update(
+                "UPDATE idempotency_keys SET status_code = ?, response_body = ? WHERE idempotency_key = ?",
+                statusCode, body, key);
+    }
+
+    @Override
+    public void remove(String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idempotency_key = ?", key);
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at <= ?", Timestamp.from(Instant.now()));
+    }
+}
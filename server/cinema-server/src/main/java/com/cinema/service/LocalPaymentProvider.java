@@ -0,0 +1,46 @@
+package com.cinema.service;
+
+import com.cinema.repository.PendingPayment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cổng thanh toán giả lập cho môi trường local (profile dev, load test): giao dịch được xác nhận sau
+ * {@code confirm-after} mà không thu tiền thật, giao dịch có số tiền không hợp lệ bị từ chối. Đặt {@code confirm-after} lớn hơn
+ * {@code cinema.payment.expire-after} để thử luồng hủy đơn quá hạn.
+ */
+@Component
+@ConditionalOnProperty(name = "cinema.payment.provider", havingValue = "local")
+public class LocalPaymentProvider implements PaymentProvider {
+
+    private final Duration confirmAfter;
+
+    public LocalPaymentProvider(@Value("${cinema.payment.local.confirm-after:PT0S}") Duration confirmAfter) {
+        this.confirmAfter = confirmAfter;
+    }
+
+    @Override
+    public List<PaymentOutcome> settle(List<PendingPayment> payments) {
+        LocalDateTime confirmedBefore = LocalDateTime.now().minus(confirmAfter);
+        List<PaymentOutcome> outcomes = new ArrayList<>(payments.size());
+        for (PendingPayment payment : payments) {
+            PaymentOutcome.Status status;
+            if (payment.amount() == null || payment.amount().compareTo(BigDecimal.ZERO) < 0) {
+                status = PaymentOutcome.Status.FAILED;
+            } else if (payment.createdAt() == null || !payment.createdAt().isAfter(confirmedBefore)) {
+                status = PaymentOutcome.Status.SUCCEEDED;
+            } else {
+                status = PaymentOutcome.Status.PENDING;
+            }
+            outcomes.add(new PaymentOutcome(payment.transactionId(), status));
+        }
+        return outcomes;
+    }
+}
@@ -36,10 +36,15 @@ public class MovieServiceImpl implements MovieService {
     private static final String STATUS_ENDED = "ended";
     
     private final MovieRepository movieRepository;
+    private final SeatStateEngine seatStateEngine;
+    private final RoomScheduleIndex roomScheduleIndex;
 
     @Autowired
-    public MovieServiceImpl(MovieRepository movieRepository) {
+    public MovieServiceImpl(MovieRepository movieRepository, SeatStateEngine seatStateEngine,
+                            RoomScheduleIndex roomScheduleIndex) {
         this.movieRepository = movieRepository;
+        this.seatStateEngine = seatStateEngine;
+        this.roomScheduleIndex = roomScheduleIndex;
     }
 
     @Override
@@ -102,6 +107,8 @@ public class MovieServiceImpl implements MovieService {
         
         // Lưu thay đổi
         Movie updatedMovie = movieRepository.save(existingMovie);
+        // Tên phim được lưu trong sơ đồ ghế đang cache
+        seatStateEngine.evictMovie(updatedMovie.getId());
         logger.info("Đã cập nhật phim thành công với ID: {}", updatedMovie.getId());
         
         return MovieResponse.fromEntity(updatedMovie);
@@ -117,6 +124,8 @@ public class MovieServiceImpl implements MovieService {
         }
         
         movieRepository.deleteById(id);
+        seatStateEngine.evictMovie(id);
+        roomScheduleIndex.evictMovie(id);
         logger.info("Đã xóa phim thành công với ID: {}", id);
     }
 
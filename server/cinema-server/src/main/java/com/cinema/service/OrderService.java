@@ -6,7 +6,6 @@ import com.cinema.dto.TransactionDTO;
 import com.cinema.model.*;
 import com.cinema.exception.ResourceNotFoundException;
 import com.cinema.repository.OrderRepository;
-import com.cinema.repository.TicketRepository;
 import com.cinema.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -24,7 +23,7 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final TransactionRepository transactionRepository;
-    private final TicketRepository ticketRepository;
+    private final TicketInventoryService ticketInventoryService;
 
     // ✅ Thêm transactional để Hibernate giữ session mở khi đọc dữ liệu
     @Transactional(readOnly = true)
@@ -46,13 +45,30 @@ public class OrderService {
         return mapToOrderDetailDTO(order);
     }
 
+    /**
+     * Tra cứu đơn tại quầy theo mã vé. Mã mới được chuẩn hóa (chữ thường, O/0, I/L/1, dấu gạch) trước khi tìm;
+     * mã không hợp lệ theo định dạng mới được tìm nguyên văn để vẫn tra được các đơn cũ.
+     */
+    @Transactional(readOnly = true)
+    public OrderDetailDTO getOrderDetailByTicketCode(String ticketCode) {
+        String normalized = TicketCodeGenerator.normalize(ticketCode);
+        Order order = orderRepository.findByTicketCodeWithDetails(normalized != null ? normalized : ticketCode.trim())
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "ticketCode", ticketCode));
+        return mapToOrderDetailDTO(order);
+    }
+
     @Transactional // vẫn giữ transactional vì có thao tác update
     public OrderDetailDTO updateOrderStatus(Long orderId, String newStatus) {
-        Order order = orderRepository.findById(orderId)
+        String upperNewStatus = newStatus.toUpperCase();
+        boolean releasing = "CANCELLED".equals(upperNewStatus) || "REFUNDED".equals(upperNewStatus);
+        // Khóa suất chiếu trước rồi mới đọc đơn: hai lượt hủy đồng thời không cùng thấy đơn còn vé để trả
+        if (releasing) {
+            ticketInventoryService.lockOrderShowtimes(orderId);
+        }
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
         String oldStatus = order.getStatus();
-        String upperNewStatus = newStatus.toUpperCase();
 
         if (oldStatus.equals(upperNewStatus)) {
             return orderRepository.findByIdWithDetails(orderId)
@@ -62,16 +78,9 @@ public class OrderService {
 
         order.setStatus(upperNewStatus);
 
-        if ("CANCELLED".equals(upperNewStatus) || "REFUNDED".equals(upperNewStatus)) {
-            if (order.getTickets() != null && !order.getTickets().isEmpty()) {
-                List<Ticket> ticketsToUpdate = order.getTickets().stream()
-                        .filter(ticket -> !"CANCELLED".equals(ticket.getStatus()) && !"AVAILABLE".equalsIgnoreCase(ticket.getStatus()))
-                        .peek(ticket -> ticket.setStatus("AVAILABLE"))
-                        .collect(Collectors.toList());
-                if (!ticketsToUpdate.isEmpty()) {
-                    ticketRepository.saveAll(ticketsToUpdate);
-                }
-            }
+        if (releasing) {
+            // Chỉ trả vé đơn này còn sở hữu: vé đã được bán lại cho đơn khác vẫn nằm trong order_tickets của đơn cũ
+            ticketInventoryService.releaseOrder(orderId);
         }
 
         Order updatedOrder = orderRepository.save(order);
@@ -0,0 +1,14 @@
+package com.cinema.service;
+
+/**
+ * Kết quả cổng thanh toán trả về cho một giao dịch.
+ */
+public record PaymentOutcome(Long transactionId, Status status) {
+
+    public enum Status {
+        SUCCEEDED,
+        FAILED,
+        // Khách chưa thanh toán xong; giao dịch quá hạn sẽ bị hủy
+        PENDING
+    }
+}
@@ -0,0 +1,21 @@
+package com.cinema.service;
+
+import com.cinema.repository.PendingPayment;
+
+import java.util.List;
+
+/**
+ * Cổng thanh toán dùng để đối soát các giao dịch PENDING.
+ * Không có bản mặc định: chưa đặt {@code cinema.payment.provider} thì đối soát tắt (xem {@link PaymentSettlementService}).
+ * {@link LocalPaymentProvider} ({@code local}) chỉ dùng cho môi trường dev; cổng thật cài interface này
+ * và bật bằng giá trị provider tương ứng.
+ */
+public interface PaymentProvider {
+
+    /**
+     * Hỏi trạng thái của một lô giao dịch. Có thể được gọi song song từ nhiều luồng.
+     *
+     * @return kết quả cho từng giao dịch; giao dịch không có trong kết quả được coi là PENDING
+     */
+    List<PaymentOutcome> settle(List<PendingPayment> payments);
+}
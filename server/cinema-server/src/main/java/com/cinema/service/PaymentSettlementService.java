@@ -0,0 +1,285 @@
+package com.cinema.service;
+
+import com.cinema.repository.OrderRepository;
+import com.cinema.repository.PendingPayment;
+import com.cinema.repository.ShowtimeSeatRef;
+import com.cinema.repository.TicketRepository;
+import com.cinema.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Đối soát nền các giao dịch PENDING (đặt vé không dùng tiền mặt).
+ *
+ * Giao dịch được đọc theo keyset thành từng lô, mỗi lô được hỏi cổng thanh toán rồi ghi kết quả bằng vài lệnh
+ * UPDATE theo tập trong một transaction riêng; các lô chạy song song trên một pool cố định.
+ * - Thanh toán thành công: giao dịch SUCCESS, đơn COMPLETED, vé BOOKED thành SOLD.
+ * - Thanh toán thất bại / quá hạn chưa thanh toán: giao dịch FAILED / EXPIRED, đơn CANCELLED, vé được trả lại.
+ * - Thanh toán thành công nhưng đơn đã bị hủy trong lúc chờ: giao dịch FAILED (ghi log để hoàn tiền), ghế không bị bán.
+ * Mỗi lô khóa mọi suất chiếu liên quan trong một lần rồi mới ghi, và mọi lệnh UPDATE đều kèm điều kiện trạng thái
+ * cũ, nên lô bị chạy lại hoặc chạy cùng lúc với thao tác hủy của admin / khách không làm sai dữ liệu.
+ * Chưa đặt {@code cinema.payment.provider} thì đối soát tắt (log WARN lúc khởi động): giao dịch PENDING giữ nguyên,
+ * kể cả khi quá hạn, cho tới khi có cổng thanh toán.
+ */
+@Service
+public class PaymentSettlementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentSettlementService.class);
+
+    private final TransactionRepository transactionRepository;
+    private final OrderRepository orderRepository;
+    private final TicketRepository ticketRepository;
+    // null: chưa cấu hình cổng thanh toán, đối soát tắt
+    private final PaymentProvider paymentProvider;
+    private final ShowtimeLockManager showtimeLockManager;
+    private final SeatStateEngine seatStateEngine;
+    private final ShowtimeSeatCounters seatCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Duration expireAfter;
+
+    private final ExecutorService executor;
+    // Lượt theo lịch và lượt admin gọi tay không chạy chồng lên nhau
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    public PaymentSettlementService(TransactionRepository transactionRepository,
+                                    OrderRepository orderRepository,
+                                    TicketRepository ticketRepository,
+                                    ObjectProvider<PaymentProvider> paymentProviders,
+                                    @Value("${cinema.payment.provider:}") String providerName,
+                                    ShowtimeLockManager showtimeLockManager,
+                                    SeatStateEngine seatStateEngine,
+                                    ShowtimeSeatCounters seatCounters,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${cinema.payment.chunk-size:500}") int chunkSize,
+                                    @Value("${cinema.payment.parallelism:4}") int parallelism,
+                                    @Value("${cinema.payment.expire-after:PT15M}") Duration expireAfter,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.transactionRepository = transactionRepository;
+        this.orderRepository = orderRepository;
+        this.ticketRepository = ticketRepository;
+        // Không có cổng mặc định: thiếu cấu hình thì tắt đối soát thay vì đối soát bằng cổng giả lập
+        if (providerName.isBlank()) {
+            logger.warn("cinema.payment.provider chưa được cấu hình: đối soát thanh toán tắt, giao dịch PENDING "
+                    + "không được xác nhận hay hủy (cổng giả lập \"local\" chỉ có trong profile dev)");
+            this.paymentProvider = null;
+        } else {
+            this.paymentProvider = paymentProviders.getIfAvailable(() -> {
+                throw new IllegalStateException("Không có PaymentProvider cho cinema.payment.provider=" + providerName);
+            });
+        }
+        this.showtimeLockManager = showtimeLockManager;
+        this.seatStateEngine = seatStateEngine;
+        this.seatCounters = seatCounters;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.expireAfter = expireAfter;
+        // Số luồng vẫn giới hạn theo parallelism vì mỗi lô giữ một kết nối DB
+        this.executor = Executors.newFixedThreadPool(parallelism, virtualThreads
+                ? Thread.ofVirtual().name("payment-settlement-", 0).factory()
+                : Thread.ofPlatform().name("payment-settlement-", 0).daemon(true).factory());
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.payment.settlement-interval:PT10S}")
+    public void scheduledSettle() {
+        if (paymentProvider != null) {
+            settlePending();
+        }
+    }
+
+    /**
+     * Đối soát toàn bộ giao dịch đang PENDING.
+     *
+     * @return thống kê lượt chạy; rỗng nếu đang có lượt khác chạy hoặc đối soát đang tắt
+     */
+    public SettlementResult settlePending() {
+        if (paymentProvider == null) {
+            logger.warn("Bỏ qua đối soát: cinema.payment.provider chưa được cấu hình");
+            return SettlementResult.EMPTY;
+        }
+        if (!runLock.tryLock()) {
+            return SettlementResult.EMPTY;
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDateTime expireBefore = LocalDateTime.now().minus(expireAfter);
+            SettlementResult total = SettlementResult.EMPTY;
+
+            // Đọc lô kế tiếp trong khi các lô trước đang xử lý; giới hạn số lô đang chờ để không giữ cả backlog trong bộ nhớ
+            Deque<Future<SettlementResult>> inFlight = new ArrayDeque<>();
+            long afterId = 0;
+            while (true) {
+                List<PendingPayment> chunk = transactionRepository.findPendingAfter(afterId, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                afterId = chunk.get(chunk.size() - 1).transactionId();
+                inFlight.add(executor.submit(() -> settleChunk(chunk, expireBefore)));
+                if (inFlight.size() >= parallelism * 2) {
+                    total = total.plus(await(inFlight.poll()));
+                }
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                total = total.plus(await(inFlight.poll()));
+            }
+
+            SettlementResult result = total.withElapsed((System.nanoTime() - started) / 1_000_000);
+            if (result.scanned() > 0) {
+                logger.info("Đối soát {} giao dịch PENDING trong {} ms: {} thành công, {} thất bại, {} quá hạn",
+                        result.scanned(), result.elapsedMillis(), result.succeeded(), result.failed(), result.expired());
+            }
+            return result;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private SettlementResult await(Future<SettlementResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SettlementResult.EMPTY;
+        } catch (ExecutionException e) {
+            // Lô lỗi (cổng thanh toán không trả lời, hết thời gian chờ khóa...) được thử lại ở lượt sau
+            logger.warn("Đối soát một lô giao dịch thất bại", e.getCause());
+            return SettlementResult.EMPTY;
+        }
+    }
+
+    private SettlementResult settleChunk(List<PendingPayment> chunk, LocalDateTime expireBefore) {
+        // Gọi cổng thanh toán ngoài transaction DB
+        Map<Long, PaymentOutcome.Status> statusById = new HashMap<>(chunk.size() * 2);
+        for (PaymentOutcome outcome : paymentProvider.settle(chunk)) {
+            statusById.put(outcome.transactionId(), outcome.status());
+        }
+
+        List<Long> succeededTx = new ArrayList<>();
+        List<Long> succeededOrders = new ArrayList<>();
+        List<Long> failedTx = new ArrayList<>();
+        List<Long> expiredTx = new ArrayList<>();
+        List<Long> cancelledOrders = new ArrayList<>();
+        for (PendingPayment payment : chunk) {
+            PaymentOutcome.Status status = statusById.getOrDefault(payment.transactionId(), PaymentOutcome.Status.PENDING);
+            if (status == PaymentOutcome.Status.SUCCEEDED) {
+                succeededTx.add(payment.transactionId());
+                succeededOrders.add(payment.orderId());
+            } else if (status == PaymentOutcome.Status.FAILED) {
+                failedTx.add(payment.transactionId());
+                cancelledOrders.add(payment.orderId());
+            } else if (payment.createdAt() != null && payment.createdAt().isBefore(expireBefore)) {
+                expiredTx.add(payment.transactionId());
+                cancelledOrders.add(payment.orderId());
+            }
+        }
+        if (succeededTx.isEmpty() && failedTx.isEmpty() && expiredTx.isEmpty()) {
+            return new SettlementResult(chunk.size(), 0, 0, 0, 0);
+        }
+
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> orderIds = new ArrayList<>(succeededOrders);
+            orderIds.addAll(cancelledOrders);
+
+            // Khóa mọi suất chiếu của lô trong một lần, trước mọi lệnh UPDATE: cùng thứ tự với luồng đặt / hủy vé
+            // (khóa suất chiếu rồi mới ghi đơn), nên không khóa chéo với admin hủy đơn hay với lô chạy song song
+            showtimeLockManager.lockAllForTransaction(ticketRepository.findBookedSeatsByOrderIds(orderIds).stream()
+                    .map(ShowtimeSeatRef::showtimeId)
+                    .collect(Collectors.toSet()));
+
+            // Đọc lại sau khi giữ khóa: chỉ đơn còn PROCESSING mới được chốt thanh toán hoặc hủy
+            Set<Long> processing = new HashSet<>(orderRepository.findProcessingIds(orderIds));
+            List<Long> paidTx = new ArrayList<>();
+            List<Long> paidOrders = new ArrayList<>();
+            List<Long> orphanedTx = new ArrayList<>();
+            for (int i = 0; i < succeededTx.size(); i++) {
+                if (processing.contains(succeededOrders.get(i))) {
+                    paidTx.add(succeededTx.get(i));
+                    paidOrders.add(succeededOrders.get(i));
+                } else {
+                    orphanedTx.add(succeededTx.get(i));
+                }
+            }
+            // Đơn đã bị hủy trong lúc chờ cổng thanh toán: không bán ghế, giao dịch FAILED để hoàn tiền tay
+            if (!orphanedTx.isEmpty()) {
+                logger.warn("Thanh toán thành công cho đơn không còn PROCESSING, cần hoàn tiền các giao dịch {}", orphanedTx);
+                failedTx.addAll(orphanedTx);
+            }
+
+            int succeeded = 0;
+            if (!paidTx.isEmpty()) {
+                succeeded = transactionRepository.settlePending(paidTx, "SUCCESS", now, now);
+                sellOrders(paidOrders, now);
+            }
+            int failed = failedTx.isEmpty() ? 0 : transactionRepository.settlePending(failedTx, "FAILED", null, now);
+            int expired = expiredTx.isEmpty() ? 0 : transactionRepository.settlePending(expiredTx, "EXPIRED", null, now);
+            List<Long> cancelling = cancelledOrders.stream().filter(processing::contains).toList();
+            if (!cancelling.isEmpty()) {
+                cancelOrders(cancelling, now);
+            }
+            return new SettlementResult(chunk.size(), succeeded, failed, expired, 0);
+        });
+    }
+
+    // Gọi khi đã giữ khóa suất chiếu, với các đơn còn PROCESSING: đơn COMPLETED, vé BOOKED thành SOLD
+    private void sellOrders(List<Long> orderIds, LocalDateTime now) {
+        List<ShowtimeSeatRef> sold = ticketRepository.findBookedSeatsByOrderIds(orderIds);
+        orderRepository.updateProcessingStatus(orderIds, "COMPLETED", now);
+        ticketRepository.updateBookedByOrderIds(orderIds, "SOLD", now);
+        seatCounters.apply(countMoves(sold, "BOOKED", "SOLD"));
+    }
+
+    // Gọi khi đã giữ khóa suất chiếu: hủy đơn và trả ghế, giống luồng hủy đơn nhưng theo tập
+    private void cancelOrders(List<Long> orderIds, LocalDateTime now) {
+        List<ShowtimeSeatRef> released = ticketRepository.findBookedSeatsByOrderIds(orderIds);
+        orderRepository.updateProcessingStatus(orderIds, "CANCELLED", now);
+        ticketRepository.releaseBookedByOrderIds(orderIds, now);
+        seatCounters.apply(countMoves(released, "BOOKED", "AVAILABLE"));
+        released.stream()
+                .collect(Collectors.groupingBy(ShowtimeSeatRef::showtimeId,
+                        Collectors.mapping(ShowtimeSeatRef::seatId, Collectors.toList())))
+                .forEach(seatStateEngine::markAvailable);
+    }
+
+    private ShowtimeSeatCounters.Changes countMoves(List<ShowtimeSeatRef> refs, String from, String to) {
+        ShowtimeSeatCounters.Changes changes = seatCounters.changes();
+        refs.stream()
+                .collect(Collectors.groupingBy(ShowtimeSeatRef::showtimeId, Collectors.counting()))
+                .forEach((showtimeId, count) -> changes.move(showtimeId, from, to, count.intValue()));
+        return changes;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
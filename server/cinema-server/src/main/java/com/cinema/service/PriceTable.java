@@ -0,0 +1,75 @@
+package com.cinema.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Bảng giá bất biến của một suất chiếu, đánh chỉ số theo vị trí ghế trong {@link SeatLayout}.
+ *
+ * Mỗi mức lấp đầy (ngưỡng của các quy tắc tăng giá theo nhu cầu) có một mảng giá riêng, nên tra giá chỉ là
+ * đọc mảng, không tính toán và không cấp phát. Các ghế cùng giá dùng chung một đối tượng BigDecimal.
+ */
+public final class PriceTable {
+
+    private final BigDecimal basePrice;
+    private final LocalDateTime startsAt;
+    private final Long roomId;
+    private final SeatLayout layout;
+    private final int[] occupancyThresholds;
+    private final BigDecimal[][] prices;
+
+    PriceTable(BigDecimal basePrice, LocalDateTime startsAt, Long roomId, SeatLayout layout,
+               int[] occupancyThresholds, BigDecimal[][] prices) {
+        this.basePrice = basePrice;
+        this.startsAt = startsAt;
+        this.roomId = roomId;
+        this.layout = layout;
+        this.occupancyThresholds = occupancyThresholds;
+        this.prices = prices;
+    }
+
+    /**
+     * Giá khi chưa có tăng giá theo nhu cầu (dùng khi sinh sẵn vé).
+     */
+    public BigDecimal basePriceAt(int position) {
+        return prices[0][position];
+    }
+
+    public BigDecimal priceAt(int position, int occupancyPercent) {
+        return prices[tierOf(occupancyPercent)][position];
+    }
+
+    /**
+     * Mức giá ứng với tỷ lệ lấp đầy; hai tỷ lệ cùng mức thì mọi ghế có cùng giá.
+     */
+    public int tierOf(int occupancyPercent) {
+        int tier = 0;
+        while (tier + 1 < occupancyThresholds.length && occupancyThresholds[tier + 1] <= occupancyPercent) {
+            tier++;
+        }
+        return tier;
+    }
+
+    public SeatLayout layout() {
+        return layout;
+    }
+
+    /**
+     * Bảng giá còn đúng với ảnh chụp suất chiếu hiện tại hay không (giá gốc, giờ chiếu, phòng, sơ đồ ghế).
+     */
+    boolean matches(ShowtimeSeatSnapshot snapshot) {
+        return layout == snapshot.layout()
+                && Objects.equals(roomId, snapshot.roomId())
+                && Objects.equals(startsAt, snapshot.startsAt())
+                && basePrice.compareTo(snapshot.basePrice()) == 0;
+    }
+
+    LocalDateTime startsAt() {
+        return startsAt;
+    }
+
+    Long roomId() {
+        return roomId;
+    }
+}
@@ -0,0 +1,189 @@
+package com.cinema.service;
+
+import com.cinema.model.PricingRule;
+import com.cinema.repository.PricingRuleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bộ máy tính giá theo quy tắc (loại ghế, thứ trong tuần, khung giờ, phòng, mức lấp đầy).
+ *
+ * Quy tắc được biên dịch thành một {@link PriceTable} bất biến cho từng suất chiếu và cache lại.
+ * Bảng được tự biên dịch lại khi giá gốc, giờ chiếu, phòng hoặc sơ đồ ghế của suất chiếu đổi; khi một quy tắc
+ * thay đổi, chỉ các suất chiếu mà quy tắc đó (bản cũ hoặc mới) có thể áp dụng mới bị biên dịch lại.
+ * Quy tắc được nạp (truy vấn DB) và bảng được biên dịch trước khi ghi vào cache, không bao giờ bên trong
+ * {@code tables.compute}: khóa bin của ConcurrentHashMap sẽ ghim virtual thread trong lúc chờ DB.
+ */
+@Service
+@RequiredArgsConstructor
+public class PricingEngine {
+
+    private final PricingRuleRepository pricingRuleRepository;
+    private final SeatStateEngine seatStateEngine;
+
+    private final ConcurrentMap<Long, PriceTable> tables = new ConcurrentHashMap<>();
+    private volatile List<Rule> rules;
+
+    /**
+     * Bảng giá của suất chiếu, dùng ảnh chụp trong {@link SeatStateEngine}.
+     */
+    public PriceTable tableFor(ShowtimeSeatSnapshot snapshot) {
+        PriceTable table = tables.get(snapshot.showtimeId());
+        if (table != null && table.matches(snapshot)) {
+            return table;
+        }
+        PriceTable compiled = compile(rules(), snapshot);
+        return tables.compute(snapshot.showtimeId(), (id, current) ->
+                current != null && current.matches(snapshot) ? current : compiled);
+    }
+
+    /**
+     * Biên dịch bảng giá không qua cache (dùng khi sinh vé trong transaction, sơ đồ ghế có thể chưa commit).
+     */
+    public PriceTable compile(BigDecimal basePrice, LocalDateTime startsAt, Long roomId, SeatLayout layout) {
+        return compile(rules(), basePrice, startsAt, roomId, layout);
+    }
+
+    private static PriceTable compile(List<Rule> rules, BigDecimal basePrice, LocalDateTime startsAt, Long roomId,
+                                      SeatLayout layout) {
+        List<Rule> applicable = new ArrayList<>();
+        TreeSet<Integer> thresholds = new TreeSet<>();
+        thresholds.add(0);
+        for (Rule rule : rules) {
+            if (rule.appliesTo(startsAt, roomId)) {
+                applicable.add(rule);
+                thresholds.add(rule.minOccupancyPercent);
+            }
+        }
+
+        int[] tierThresholds = thresholds.stream().mapToInt(Integer::intValue).toArray();
+        BigDecimal[][] prices = new BigDecimal[tierThresholds.length][layout.size()];
+        for (int tier = 0; tier < tierThresholds.length; tier++) {
+            // Các ghế cùng loại có cùng giá: tính một lần cho mỗi loại ghế
+            Map<String, BigDecimal> byType = new HashMap<>();
+            for (int pos = 0; pos < layout.size(); pos++) {
+                int occupancy = tierThresholds[tier];
+                prices[tier][pos] = byType.computeIfAbsent(normalizeType(layout.typeAt(pos)),
+                        type -> price(basePrice, type, occupancy, applicable));
+            }
+        }
+        return new PriceTable(basePrice, startsAt, roomId, layout, tierThresholds, prices);
+    }
+
+    /**
+     * Gọi sau khi quy tắc giá thay đổi: nạp lại quy tắc và biên dịch lại bảng của các suất chiếu bị ảnh hưởng.
+     *
+     * @param before trạng thái trước khi sửa (null nếu là quy tắc mới)
+     * @param after  trạng thái sau khi sửa (null nếu quy tắc bị xóa)
+     */
+    public void rulesChanged(PricingRule before, PricingRule after) {
+        List<Rule> changedRules = new ArrayList<>(2);
+        if (before != null) changedRules.add(Rule.of(before));
+        if (after != null) changedRules.add(Rule.of(after));
+        TransactionCallbacks.afterCommit(() -> {
+            List<Rule> reloaded = loadRules();
+            rules = reloaded;
+            for (Map.Entry<Long, PriceTable> entry : tables.entrySet()) {
+                PriceTable table = entry.getValue();
+                boolean affected = changedRules.stream().anyMatch(r -> r.appliesTo(table.startsAt(), table.roomId()));
+                if (affected) {
+                    Long showtimeId = entry.getKey();
+                    seatStateEngine.find(showtimeId).ifPresentOrElse(
+                            snapshot -> {
+                                tables.put(showtimeId, compile(reloaded, snapshot));
+                                // Giá ghế đổi: sơ đồ ghế đã cache ở client không còn đúng
+                                seatStateEngine.touch(showtimeId);
+                            },
+                            () -> tables.remove(showtimeId));
+                }
+            }
+        });
+    }
+
+    public void evict(Long showtimeId) {
+        TransactionCallbacks.afterCommit(() -> tables.remove(showtimeId));
+    }
+
+    private static PriceTable compile(List<Rule> rules, ShowtimeSeatSnapshot snapshot) {
+        return compile(rules, snapshot.basePrice(), snapshot.startsAt(), snapshot.roomId(), snapshot.layout());
+    }
+
+    private static BigDecimal price(BigDecimal basePrice, String seatType, int occupancy, List<Rule> applicable) {
+        BigDecimal price = basePrice;
+        for (Rule rule : applicable) {
+            if (rule.minOccupancyPercent <= occupancy && (rule.seatType == null || rule.seatType.equals(seatType))) {
+                price = price.multiply(rule.multiplier);
+            }
+        }
+        return price.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private List<Rule> rules() {
+        List<Rule> current = rules;
+        if (current == null) {
+            current = loadRules();
+            rules = current;
+        }
+        return current;
+    }
+
+    private List<Rule> loadRules() {
+        return pricingRuleRepository.findByActiveTrueOrderByPriorityAscIdAsc().stream().map(Rule::of).toList();
+    }
+
+    static String normalizeType(String type) {
+        return type != null ? type.toUpperCase() : "STANDARD";
+    }
+
+    // Bản bất biến của một quy tắc đang hoạt động
+    private record Rule(String seatType, DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime,
+                        Long roomId, int minOccupancyPercent, BigDecimal multiplier) {
+
+        static Rule of(PricingRule r) {
+            return new Rule(
+                    r.getSeatType() != null ? r.getSeatType().toUpperCase() : null,
+                    r.getDayOfWeek(),
+                    r.getStartTime(),
+                    r.getEndTime(),
+                    r.getRoomId(),
+                    r.getMinOccupancyPercent() != null ? r.getMinOccupancyPercent() : 0,
+                    r.getMultiplier());
+        }
+
+        // Các điều kiện ở mức suất chiếu (không xét loại ghế và mức lấp đầy)
+        boolean appliesTo(LocalDateTime startsAt, Long showtimeRoomId) {
+            if (roomId != null && !roomId.equals(showtimeRoomId)) {
+                return false;
+            }
+            if (dayOfWeek != null && dayOfWeek != startsAt.getDayOfWeek()) {
+                return false;
+            }
+            if (startTime != null && endTime != null) {
+                LocalTime t = startsAt.toLocalTime();
+                return startTime.isBefore(endTime)
+                        ? !t.isBefore(startTime) && t.isBefore(endTime)
+                        : !t.isBefore(startTime) || t.isBefore(endTime);
+            }
+            if (startTime != null) {
+                return !startsAt.toLocalTime().isBefore(startTime);
+            }
+            if (endTime != null) {
+                return startsAt.toLocalTime().isBefore(endTime);
+            }
+            return true;
+        }
+    }
+}
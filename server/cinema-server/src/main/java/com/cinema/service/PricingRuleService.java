@@ -0,0 +1,94 @@
+package com.cinema.service;
+
+import com.cinema.dto.PricingRuleDTO;
+import com.cinema.exception.NotFoundException;
+import com.cinema.model.PricingRule;
+import com.cinema.repository.PricingRuleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class PricingRuleService {
+
+    private final PricingRuleRepository pricingRuleRepository;
+    private final PricingEngine pricingEngine;
+
+    @Transactional(readOnly = true)
+    public List<PricingRuleDTO> list() {
+        return pricingRuleRepository.findAll().stream().map(this::toDto).toList();
+    }
+
+    @Transactional
+    public PricingRuleDTO create(PricingRuleDTO dto) {
+        PricingRule rule = new PricingRule();
+        apply(rule, dto);
+        PricingRule saved = pricingRuleRepository.save(rule);
+        pricingEngine.rulesChanged(null, saved);
+        return toDto(saved);
+    }
+
+    @Transactional
+    public PricingRuleDTO update(Long id, PricingRuleDTO dto) {
+        PricingRule rule = pricingRuleRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Pricing rule not found: " + id));
+        PricingRule before = copyOf(rule);
+        apply(rule, dto);
+        PricingRule saved = pricingRuleRepository.save(rule);
+        pricingEngine.rulesChanged(before, saved);
+        return toDto(saved);
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        PricingRule rule = pricingRuleRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Pricing rule not found: " + id));
+        pricingRuleRepository.delete(rule);
+        pricingEngine.rulesChanged(rule, null);
+    }
+
+    private void apply(PricingRule rule, PricingRuleDTO dto) {
+        rule.setName(dto.getName());
+        rule.setSeatType(dto.getSeatType() != null && !dto.getSeatType().isBlank() ? dto.getSeatType().toUpperCase() : null);
+        rule.setDayOfWeek(dto.getDayOfWeek());
+        rule.setStartTime(dto.getStartTime());
+        rule.setEndTime(dto.getEndTime());
+        rule.setRoomId(dto.getRoomId());
+        rule.setMinOccupancyPercent(dto.getMinOccupancyPercent());
+        rule.setMultiplier(dto.getMultiplier());
+        rule.setPriority(dto.getPriority() != null ? dto.getPriority() : 0);
+        rule.setActive(dto.getActive() == null || dto.getActive());
+    }
+
+    // Bản sao tách rời để bộ máy giá biết quy tắc đã áp dụng cho những suất chiếu nào trước khi sửa
+    private static PricingRule copyOf(PricingRule rule) {
+        PricingRule copy = new PricingRule();
+        copy.setSeatType(rule.getSeatType());
+        copy.setDayOfWeek(rule.getDayOfWeek());
+        copy.setStartTime(rule.getStartTime());
+        copy.setEndTime(rule.getEndTime());
+        copy.setRoomId(rule.getRoomId());
+        copy.setMinOccupancyPercent(rule.getMinOccupancyPercent());
+        copy.setMultiplier(rule.getMultiplier());
+        return copy;
+    }
+
+    private PricingRuleDTO toDto(PricingRule rule) {
+        PricingRuleDTO dto = new PricingRuleDTO();
+        dto.setId(rule.getId());
+        dto.setName(rule.getName());
+        dto.setSeatType(rule.getSeatType());
+        dto.setDayOfWeek(rule.getDayOfWeek());
+        dto.setStartTime(rule.getStartTime());
+        dto.setEndTime(rule.getEndTime());
+        dto.setRoomId(rule.getRoomId());
+        dto.setMinOccupancyPercent(rule.getMinOccupancyPercent());
+        dto.setMultiplier(rule.getMultiplier());
+        dto.setPriority(rule.getPriority());
+        dto.setActive(rule.getActive());
+        return dto;
+    }
+}
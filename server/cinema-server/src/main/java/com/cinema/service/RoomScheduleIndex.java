@@ -0,0 +1,268 @@
+package com.cinema.service;
+
+import com.cinema.dto.FreeSlotDTO;
+import com.cinema.exception.ShowtimeConflictException;
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.ShowtimeSlot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lịch chiếu theo phòng trong bộ nhớ: chặn suất chiếu chồng giờ và tìm khoảng trống mà không truy vấn DB mỗi lần lưu.
+ *
+ * Mỗi phòng giữ các suất chiếu trong một cây sắp theo giờ bắt đầu, nạp một lần khi cần (chỉ dữ liệu đã commit).
+ * Suất chiếu dài nhất của phòng giới hạn phạm vi phải xét: một suất chồng lên [bắt đầu, kết thúc) phải bắt đầu
+ * trong [bắt đầu - dài nhất - dọn phòng, kết thúc + dọn phòng), nên mỗi lần kiểm tra là O(log n) cộng vài suất.
+ *
+ * Suất chiếu được ghi vào lịch ngay trong transaction tạo / sửa (dưới khóa của phòng) và bị gỡ nếu rollback;
+ * khung giờ cũ chỉ được trả sau khi commit. Lịch là của từng node: nhiều node cùng xếp lịch một phòng thì
+ * vẫn cần một node duy nhất làm việc đó.
+ *
+ * Lịch của phòng được nạp dưới khóa của phòng, ngoài khóa của ConcurrentHashMap, để virtual thread chờ câu SQL
+ * (và kết nối REQUIRES_NEW) chỉ park chứ không giữ chặt carrier thread.
+ */
+@Service
+public class RoomScheduleIndex {
+
+    private static final Comparator<ShowtimeSlot> BY_START = Comparator.comparing(ShowtimeSlot::startsAt)
+            .thenComparing(ShowtimeSlot::endsAt)
+            .thenComparing(ShowtimeSlot::showtimeId)
+            .thenComparing(ShowtimeSlot::movieId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final ShowtimeRepository showtimeRepository;
+    private final TransactionTemplate loadTransaction;
+    private final Duration cleaningGap;
+
+    private final ConcurrentMap<Long, RoomSchedule> rooms = new ConcurrentHashMap<>();
+
+    public RoomScheduleIndex(ShowtimeRepository showtimeRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${cinema.schedule.cleaning-gap:PT15M}") Duration cleaningGap) {
+        this.showtimeRepository = showtimeRepository;
+        // Nạp trong transaction riêng để không thấy thay đổi chưa commit của transaction đang gọi
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTransaction.setReadOnly(true);
+        this.cleaningGap = cleaningGap;
+    }
+
+    /**
+     * Ghi suất chiếu vào lịch của phòng. Nếu suất chiếu đã có trong lịch (đang sửa giờ), khung giờ cũ được bỏ qua
+     * khi kiểm tra và vẫn giữ cho tới khi gọi {@link #release}.
+     *
+     * @throws ShowtimeConflictException nếu chồng giờ với suất chiếu khác, kể cả thời gian dọn phòng
+     */
+    public void reserve(Long roomId, ShowtimeSlot slot) {
+        RoomSchedule schedule = schedule(roomId);
+        schedule.lock.lock();
+        try {
+            ShowtimeSlot conflict = schedule.findConflict(slot.startsAt(), slot.endsAt(), slot.showtimeId(), cleaningGap);
+            if (conflict != null) {
+                throw new ShowtimeConflictException(roomId, conflict.showtimeId(), conflict.startsAt(), conflict.endsAt());
+            }
+            if (!schedule.add(slot)) {
+                return;
+            }
+        } finally {
+            schedule.lock.unlock();
+        }
+        TransactionCallbacks.afterRollback(() -> schedule.remove(slot));
+    }
+
+    /**
+     * Ghi nhiều suất chiếu mới vào lịch của phòng dưới một lần khóa: mỗi suất được kiểm tra với lịch hiện có và với
+     * các suất đứng trước nó trong danh sách. Chồng giờ thì không suất nào được ghi.
+     *
+     * @throws ShowtimeConflictException nếu có suất chồng giờ, kể cả thời gian dọn phòng
+     */
+    public void reserveAll(Long roomId, List<ShowtimeSlot> slots) {
+        RoomSchedule schedule = schedule(roomId);
+        List<ShowtimeSlot> added;
+        schedule.lock.lock();
+        try {
+            added = addAll(schedule, roomId, slots);
+        } finally {
+            schedule.lock.unlock();
+        }
+        TransactionCallbacks.afterRollback(() -> added.forEach(schedule::remove));
+    }
+
+    /**
+     * Như {@link #reserveAll} nhưng không ghi gì: dùng để loại lô chồng giờ trước khi chèn vào DB.
+     * Id của các suất chưa lưu chỉ cần khác nhau và khác id thật (ví dụ số âm).
+     *
+     * @throws ShowtimeConflictException nếu có suất chồng giờ, kể cả thời gian dọn phòng
+     */
+    public void checkAll(Long roomId, List<ShowtimeSlot> slots) {
+        RoomSchedule schedule = schedule(roomId);
+        schedule.lock.lock();
+        try {
+            addAll(schedule, roomId, slots).forEach(schedule.slots::remove);
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    // Gọi khi đang giữ lock của phòng
+    private List<ShowtimeSlot> addAll(RoomSchedule schedule, Long roomId, List<ShowtimeSlot> slots) {
+        List<ShowtimeSlot> added = new ArrayList<>(slots.size());
+        for (ShowtimeSlot slot : slots) {
+            ShowtimeSlot conflict = schedule.findConflict(slot.startsAt(), slot.endsAt(), slot.showtimeId(), cleaningGap);
+            if (conflict != null) {
+                added.forEach(schedule.slots::remove);
+                throw new ShowtimeConflictException(roomId, conflict.showtimeId(), conflict.startsAt(), conflict.endsAt());
+            }
+            if (schedule.add(slot)) {
+                added.add(slot);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Trả khung giờ của suất chiếu sau khi transaction commit (xóa suất chiếu, đổi giờ, đổi phòng).
+     */
+    public void release(Long roomId, ShowtimeSlot slot) {
+        TransactionCallbacks.afterCommit(() -> {
+            RoomSchedule schedule = rooms.get(roomId);
+            if (schedule != null) {
+                schedule.remove(slot);
+            }
+        });
+    }
+
+    /**
+     * Các khoảng trống của phòng trong [from, to), dài ít nhất {@code minLength}.
+     */
+    public List<FreeSlotDTO> freeSlots(Long roomId, LocalDateTime from, LocalDateTime to, Duration minLength) {
+        RoomSchedule schedule = schedule(roomId);
+        List<FreeSlotDTO> slots = new ArrayList<>();
+        schedule.lock.lock();
+        try {
+            LocalDateTime cursor = from;
+            // Suất chiếu bắt đầu trước from vẫn có thể chiếm phần đầu khoảng
+            LocalDateTime scanFrom = from.minus(schedule.longest).minus(cleaningGap);
+            for (ShowtimeSlot busy : schedule.startingBetween(scanFrom, to.plus(cleaningGap))) {
+                LocalDateTime busyFrom = busy.startsAt().minus(cleaningGap);
+                LocalDateTime busyTo = busy.endsAt().plus(cleaningGap);
+                if (busyFrom.isAfter(cursor)) {
+                    addSlot(slots, cursor, busyFrom.isBefore(to) ? busyFrom : to, minLength);
+                }
+                if (busyTo.isAfter(cursor)) {
+                    cursor = busyTo;
+                }
+                if (!cursor.isBefore(to)) {
+                    break;
+                }
+            }
+            addSlot(slots, cursor, to, minLength);
+        } finally {
+            schedule.lock.unlock();
+        }
+        return slots;
+    }
+
+    public void evictRoom(Long roomId) {
+        TransactionCallbacks.afterCommit(() -> rooms.remove(roomId));
+    }
+
+    // Xóa phim xóa luôn các suất chiếu của phim (cascade)
+    public void evictMovie(Long movieId) {
+        TransactionCallbacks.afterCommit(() -> rooms.values().removeIf(schedule -> schedule.hasMovie(movieId)));
+    }
+
+    private static void addSlot(List<FreeSlotDTO> slots, LocalDateTime from, LocalDateTime to, Duration minLength) {
+        Duration length = Duration.between(from, to);
+        if (!length.isNegative() && !length.isZero() && length.compareTo(minLength) >= 0) {
+            slots.add(FreeSlotDTO.builder().from(from).to(to).minutes(length.toMinutes()).build());
+        }
+    }
+
+    private RoomSchedule schedule(Long roomId) {
+        RoomSchedule schedule = rooms.computeIfAbsent(roomId, id -> new RoomSchedule());
+        if (schedule.loaded) {
+            return schedule;
+        }
+        schedule.lock.lock();
+        try {
+            if (!schedule.loaded) {
+                loadTransaction.execute(status -> showtimeRepository.findSlotsByRoomId(roomId)).forEach(schedule::add);
+                schedule.loaded = true;
+            }
+        } finally {
+            schedule.lock.unlock();
+        }
+        return schedule;
+    }
+
+    private static final class RoomSchedule {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final NavigableSet<ShowtimeSlot> slots = new TreeSet<>(BY_START);
+        // Chỉ tăng: gỡ suất chiếu dài nhất chỉ làm phạm vi quét rộng hơn cần thiết, không làm sai kết quả
+        private Duration longest = Duration.ZERO;
+        private volatile boolean loaded;
+
+        // Gọi khi đang giữ lock
+        boolean add(ShowtimeSlot slot) {
+            if (slot.length().compareTo(longest) > 0) {
+                longest = slot.length();
+            }
+            return slots.add(slot);
+        }
+
+        void remove(ShowtimeSlot slot) {
+            lock.lock();
+            try {
+                slots.remove(slot);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        ShowtimeSlot findConflict(LocalDateTime startsAt, LocalDateTime endsAt, Long ignoredShowtimeId, Duration gap) {
+            LocalDateTime scanFrom = startsAt.minus(longest).minus(gap);
+            for (ShowtimeSlot other : startingBetween(scanFrom, endsAt.plus(gap))) {
+                if (other.showtimeId().equals(ignoredShowtimeId)) {
+                    continue;
+                }
+                if (other.endsAt().plus(gap).isAfter(startsAt)) {
+                    return other;
+                }
+            }
+            return null;
+        }
+
+        // Các suất bắt đầu trong [from, to)
+        NavigableSet<ShowtimeSlot> startingBetween(LocalDateTime from, LocalDateTime to) {
+            if (!from.isBefore(to)) {
+                return new TreeSet<>(BY_START);
+            }
+            return slots.subSet(new ShowtimeSlot(Long.MIN_VALUE, null, from, LocalDateTime.MIN), true,
+                    new ShowtimeSlot(Long.MIN_VALUE, null, to, LocalDateTime.MIN), false);
+        }
+
+        boolean hasMovie(Long movieId) {
+            lock.lock();
+            try {
+                return slots.stream().anyMatch(slot -> movieId.equals(slot.movieId()));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.cinema.service;
+
+import com.cinema.repository.SeatRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bộ đệm sơ đồ ghế theo phòng: mã ghế → id ghế, loại ghế, vị trí.
+ *
+ * Sơ đồ phòng gần như không đổi nên được nạp một lần từ {@code SeatRepository.findByRoomId} và dùng chung
+ * cho mọi suất chiếu của phòng; việc tra mã ghế khi đặt vé / xem sơ đồ ghế không tốn câu SQL nào.
+ * Bộ đệm chỉ bị xóa khi sơ đồ phòng thay đổi (sau khi transaction commit).
+ *
+ * Câu SQL nạp sơ đồ chạy dưới khóa riêng của phòng, ngoài khóa của ConcurrentHashMap: virtual thread chờ nạp
+ * chỉ park, không giữ chặt carrier thread.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoomSeatIndex {
+
+    private final SeatRepository seatRepository;
+
+    private final ConcurrentMap<Long, Holder> layouts = new ConcurrentHashMap<>();
+
+    public SeatLayout get(Long roomId) {
+        Holder holder = layouts.computeIfAbsent(roomId, id -> new Holder());
+        SeatLayout layout = holder.layout;
+        if (layout != null) {
+            return layout;
+        }
+        holder.lock.lock();
+        try {
+            // invalidate() giữa chừng gỡ holder khỏi map: bản đang nạp dở chỉ trả cho các lượt gọi đang chờ nó
+            if (holder.layout == null) {
+                holder.layout = SeatLayout.of(seatRepository.findByRoomId(roomId));
+            }
+            return holder.layout;
+        } finally {
+            holder.lock.unlock();
+        }
+    }
+
+    public void invalidate(Long roomId) {
+        TransactionCallbacks.afterCommit(() -> layouts.remove(roomId));
+    }
+
+    private static final class Holder {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile SeatLayout layout;
+    }
+}
@@ -22,6 +22,10 @@ public class RoomService_duc {
 
     private final RoomRepository roomRepository;
     private final SeatRepository seatRepository;
+    private final SeatStateEngine seatStateEngine;
+    private final TicketInventoryService ticketInventoryService;
+    private final RoomSeatIndex roomSeatIndex;
+    private final RoomScheduleIndex roomScheduleIndex;
 
     public List<RoomDTO> getAllRooms() {
         return roomRepository.findAll().stream()
@@ -62,6 +66,8 @@ public class RoomService_duc {
         room.setSeatsPerRow(roomDTO.getSeatsPerRow());
 
         if (dimensionsChanged) {
+            // Vé sinh sẵn tham chiếu tới ghế cũ: xóa trước, sinh lại theo sơ đồ mới bên dưới
+            ticketInventoryService.removeUnsoldForRoom(roomId);
             seatRepository.deleteByRoomId(roomId); 
             room.getSeats().clear(); 
             List<Seat> newSeats = generateDefaultSeats(room);
@@ -69,6 +75,11 @@ public class RoomService_duc {
         }
 
         Room updatedRoom = roomRepository.save(room);
+        if (dimensionsChanged) {
+            ticketInventoryService.syncRoom(roomId);
+        }
+        roomSeatIndex.invalidate(roomId);
+        seatStateEngine.evictRoom(roomId);
         return mapToRoomDTO(updatedRoom);
     }
 
@@ -77,6 +88,9 @@ public class RoomService_duc {
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Room", "id", roomId));
         roomRepository.delete(room); 
+        roomSeatIndex.invalidate(roomId);
+        roomScheduleIndex.evictRoom(roomId);
+        seatStateEngine.evictRoom(roomId);
     }
 
     public RoomLayoutDTO getRoomLayout(Long roomId) {
@@ -124,6 +138,10 @@ public RoomLayoutDTO updateRoomLayout(Long roomId, RoomLayoutDTO layoutDTO) {
 
     // Lưu room (cascade sẽ tự động lưu seats)
     Room savedRoom = roomRepository.save(room);
+    // Loại ghế thay đổi thì giá vé còn trống cũng thay đổi
+    ticketInventoryService.syncRoom(roomId);
+    roomSeatIndex.invalidate(roomId);
+    seatStateEngine.evictRoom(roomId);
 
     // Trả về layout đã cập nhật
     layoutDTO.setRoomId(savedRoom.getId());
@@ -0,0 +1,20 @@
+package com.cinema.service;
+
+/**
+ * Các ghế đổi trạng thái của một suất chiếu kể từ một phiên bản sơ đồ ghế.
+ *
+ * @param snapshot        ảnh chụp hiện tại; trạng thái của các ghế trong {@code positions} lấy từ đây
+ * @param fromVersion     phiên bản client đang có
+ * @param positions       vị trí (trong {@link SeatLayout}) các ghế đã đổi, mỗi ghế một lần
+ * @param occupiedBefore  số ghế có chủ ở phiên bản {@code fromVersion}
+ */
+public record SeatChanges(ShowtimeSeatSnapshot snapshot, long fromVersion, int[] positions, int occupiedBefore) {
+
+    /**
+     * Tỷ lệ lấp đầy ở phiên bản {@code fromVersion}, cùng cách làm tròn với {@link ShowtimeSeatSnapshot#occupancyPercent()}.
+     */
+    public int occupancyPercentBefore() {
+        int size = snapshot.states().length;
+        return size == 0 ? 0 : occupiedBefore * 100 / size;
+    }
+}
@@ -0,0 +1,272 @@
+package com.cinema.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Đẩy thay đổi trạng thái ghế tới trang chọn ghế qua Server-Sent Events.
+ *
+ * Mỗi suất chiếu có một kênh dùng chung: {@link SeatStateEngine} chỉ ghi thay đổi vào bộ đệm của kênh (ghế
+ * đổi nhiều lần trong một nhịp chỉ giữ trạng thái cuối), một luồng định kỳ gom bộ đệm thành một sự kiện,
+ * serialize một lần rồi gửi cùng một payload cho mọi kết nối.
+ *
+ * Mỗi kết nối có hàng đợi và tác vụ gửi riêng trên virtual thread: client chậm chỉ làm chậm chính nó (lệnh ghi bị
+ * chặn chỉ park virtual thread của nó), không làm chậm kênh hay client khác. Kết nối để dồn quá
+ * {@code cinema.seat-stream.max-queued} sự kiện bị đóng; client kết nối lại và bù phần thiếu bằng
+ * {@code ?sinceVersion=} theo id của sự kiện cuối cùng đã nhận (id của sự kiện {@code seats} là phiên bản sơ đồ ghế).
+ * Kết nối SSE dùng servlet async nên không chiếm luồng nào khi đang chờ.
+ */
+@Service
+public class SeatEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatEventBroadcaster.class);
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+    private final int maxQueued;
+    private final ExecutorService fanOut;
+
+    private final ConcurrentMap<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public SeatEventBroadcaster(ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${cinema.seat-stream.timeout:PT30M}") Duration timeout,
+                                @Value("${cinema.seat-stream.max-queued:32}") int maxQueued) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+        this.maxQueued = maxQueued;
+        // Mỗi kết nối có nhiều nhất một tác vụ gửi nên số virtual thread không vượt quá số kết nối
+        this.fanOut = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("seat-stream-", 0).factory());
+        meterRegistry.gauge("cinema.seat_stream.subscribers", subscribers);
+    }
+
+    public SseEmitter subscribe(Long showtimeId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        channels.compute(showtimeId, (id, channel) -> {
+            Channel target = channel != null ? channel : new Channel();
+            target.subscribers.add(new Subscriber(emitter));
+            return target;
+        });
+        subscribers.incrementAndGet();
+
+        Runnable remove = () -> unsubscribe(showtimeId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * Có ai đang theo dõi suất chiếu không; bộ máy trạng thái ghế bỏ qua việc ghi bộ đệm nếu không.
+     */
+    public boolean hasSubscribers(Long showtimeId) {
+        return channels.containsKey(showtimeId);
+    }
+
+    /**
+     * Ghi nhận một ghế đổi trạng thái; sự kiện được gửi ở nhịp flush kế tiếp.
+     *
+     * @param version phiên bản sơ đồ ghế sau thay đổi
+     */
+    public void publish(Long showtimeId, long seatId, String seatCode, byte state, long version) {
+        Channel channel = channels.get(showtimeId);
+        if (channel == null) {
+            return;
+        }
+        channel.lock.lock();
+        try {
+            channel.pending.put(seatId, new SeatDelta(seatId, seatCode, stateName(state)));
+            channel.version = Math.max(channel.version, version);
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+
+    /**
+     * Sơ đồ ghế của suất chiếu thay đổi (đổi phòng, sửa sơ đồ...): client phải tải lại toàn bộ.
+     */
+    public void reset(Long showtimeId) {
+        Channel channel = channels.get(showtimeId);
+        if (channel == null) {
+            return;
+        }
+        channel.lock.lock();
+        try {
+            channel.pending.clear();
+            channel.reset = true;
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.seat-stream.flush-interval:PT0.1S}")
+    public void flush() {
+        channels.forEach((showtimeId, channel) -> {
+            List<SeatDelta> changes;
+            boolean reset;
+            long version;
+            channel.lock.lock();
+            try {
+                if (channel.pending.isEmpty() && !channel.reset) {
+                    return;
+                }
+                changes = new ArrayList<>(channel.pending.values());
+                reset = channel.reset;
+                version = channel.version;
+                channel.pending.clear();
+                channel.reset = false;
+            } finally {
+                channel.lock.unlock();
+            }
+            SseEmitter.SseEventBuilder event = reset
+                    ? SseEmitter.event().name("reset").data("{\"showtimeId\":" + showtimeId + "}", MediaType.APPLICATION_JSON)
+                    : SseEmitter.event().name("seats").id(String.valueOf(version))
+                            .data(toJson(new SeatDeltaEvent(showtimeId, version, changes)), MediaType.APPLICATION_JSON);
+            broadcast(showtimeId, channel, event.build());
+        });
+    }
+
+    // Giữ kết nối qua proxy và phát hiện client đã đóng
+    @Scheduled(fixedRateString = "${cinema.seat-stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        if (channels.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        channels.forEach((showtimeId, channel) -> broadcast(showtimeId, channel, ping));
+    }
+
+    private void broadcast(Long showtimeId, Channel channel, Set<ResponseBodyEmitter.DataWithMediaType> payload) {
+        for (Subscriber subscriber : channel.subscribers) {
+            if (subscriber.closed.get()) {
+                continue;
+            }
+            if (subscriber.queued.incrementAndGet() > maxQueued) {
+                meterRegistry.counter("cinema.seat_stream.dropped").increment();
+                close(showtimeId, subscriber, new IOException("Client SSE nhận sự kiện quá chậm"));
+                continue;
+            }
+            subscriber.outbox.add(payload);
+            if (subscriber.draining.compareAndSet(false, true)) {
+                fanOut.execute(() -> drain(showtimeId, subscriber));
+            }
+        }
+    }
+
+    // Mỗi kết nối có nhiều nhất một tác vụ gửi đang chạy, nên các sự kiện tới từng client luôn đúng thứ tự
+    private void drain(Long showtimeId, Subscriber subscriber) {
+        do {
+            Set<ResponseBodyEmitter.DataWithMediaType> payload;
+            while ((payload = subscriber.outbox.poll()) != null) {
+                subscriber.queued.decrementAndGet();
+                if (subscriber.closed.get()) {
+                    continue;
+                }
+                try {
+                    subscriber.emitter.send(payload);
+                } catch (IOException | IllegalStateException e) {
+                    // Client đã ngắt kết nối
+                    close(showtimeId, subscriber, e);
+                }
+            }
+            subscriber.draining.set(false);
+        } while (!subscriber.outbox.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void close(Long showtimeId, Subscriber subscriber, Exception cause) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            unsubscribe(showtimeId, subscriber.emitter);
+            subscriber.emitter.completeWithError(cause);
+        }
+    }
+
+    private void unsubscribe(Long showtimeId, SseEmitter emitter) {
+        channels.computeIfPresent(showtimeId, (id, channel) -> {
+            if (channel.subscribers.removeIf(subscriber -> subscriber.emitter == emitter)) {
+                subscribers.decrementAndGet();
+            }
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            logger.warn("Không serialize được sự kiện ghế", e);
+            return "{}";
+        }
+    }
+
+    private static String stateName(byte state) {
+        return switch (state) {
+            case SeatStateEngine.BOOKED -> "BOOKED";
+            case SeatStateEngine.HELD -> "HELD";
+            default -> "AVAILABLE";
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOut.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    private static final class Channel {
+        private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        // Trạng thái cuối của từng ghế trong nhịp hiện tại, theo thứ tự thay đổi
+        private final Map<Long, SeatDelta> pending = new LinkedHashMap<>();
+        private boolean reset;
+        private long version;
+    }
+
+    record SeatDelta(long seatId, String seat, String state) {
+    }
+
+    record SeatDeltaEvent(Long showtimeId, long version, List<SeatDelta> changes) {
+    }
+}
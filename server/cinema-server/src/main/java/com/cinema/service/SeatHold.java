@@ -0,0 +1,17 @@
+package com.cinema.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Một lượt giữ ghế có thời hạn của khách hàng, chỉ tồn tại trong bộ nhớ.
+ */
+public record SeatHold(
+        String id,
+        Long userId,
+        Long showtimeId,
+        List<Long> seatIds,
+        List<String> seatCodes,
+        Instant expiresAt
+) {
+}
@@ -0,0 +1,181 @@
+package com.cinema.service;
+
+import com.cinema.exception.NotFoundException;
+import com.cinema.exception.ResourceNotFoundException;
+import com.cinema.exception.SeatUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Quản lý giữ ghế có thời hạn (TTL).
+ *
+ * Ghế được giữ trong {@link SeatStateEngine} ở trạng thái HELD. Các hold được đánh chỉ mục theo
+ * thời điểm hết hạn, nên luồng dọn dẹp chỉ duyệt đúng những hold đã hết hạn và trả ghế theo lô
+ * cho từng suất chiếu, không cần quét bảng tickets.
+ *
+ * Id của hold là chủ của các ghế HELD trong bộ máy trạng thái ghế: hold chỉ trả được ghế mà nó còn sở hữu, nên
+ * hold còn hạn sau khi suất chiếu bị nạp lại không trả nhầm ghế mà người khác vừa giữ.
+ */
+@Service
+public class SeatHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatHoldService.class);
+
+    private final SeatStateEngine seatStateEngine;
+    private final Duration holdTtl;
+
+    private final ConcurrentMap<String, SeatHold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<ExpiryKey> expiryIndex = new ConcurrentSkipListSet<>();
+
+    public SeatHoldService(SeatStateEngine seatStateEngine,
+                           @Value("${cinema.booking.hold-ttl:PT10M}") Duration holdTtl) {
+        this.seatStateEngine = seatStateEngine;
+        this.holdTtl = holdTtl;
+    }
+
+    public SeatHold createHold(Long userId, Long showtimeId, List<String> seatCodes) {
+        List<String> codes = normalize(seatCodes);
+        String holdId = UUID.randomUUID().toString();
+        List<Long> seatIds = holdSeats(showtimeId, codes, holdId);
+
+        SeatHold hold = new SeatHold(holdId, userId, showtimeId,
+                List.copyOf(seatIds), codes, Instant.now().plus(holdTtl));
+        holds.put(hold.id(), hold);
+        expiryIndex.add(new ExpiryKey(hold.expiresAt(), hold.id()));
+        return hold;
+    }
+
+    /**
+     * Dùng hold để xác nhận đặt vé trong transaction hiện tại.
+     * Hold được gỡ khỏi kho ngay để luồng dọn dẹp không thể trả ghế giữa chừng;
+     * nếu transaction rollback thì ghế được trả lại.
+     *
+     * @throws SeatUnavailableException nếu suất chiếu đã bị nạp lại và ghế của hold đã có người khác giữ / đặt
+     */
+    public SeatHold claim(String holdId, Long userId, Long showtimeId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null || !hold.userId().equals(userId) || !hold.showtimeId().equals(showtimeId)
+                || !holds.remove(holdId, hold)) {
+            throw new ResourceNotFoundException("SeatHold", "id", holdId);
+        }
+        expiryIndex.remove(new ExpiryKey(hold.expiresAt(), holdId));
+
+        if (hold.expiresAt().isBefore(Instant.now())) {
+            seatStateEngine.release(showtimeId, hold.seatIds(), holdId);
+            throw new ResourceNotFoundException("SeatHold", "id", holdId);
+        }
+        // Suất chiếu bị nạp lại thì ghế HELD mất: giữ lại, hoặc báo ghế đã có người khác lấy
+        List<String> unavailable = seatStateEngine.tryHold(showtimeId, hold.seatIds(), holdId);
+        if (!unavailable.isEmpty()) {
+            seatStateEngine.release(showtimeId, hold.seatIds(), holdId);
+            throw new SeatUnavailableException(unavailable);
+        }
+        TransactionCallbacks.afterRollback(() -> seatStateEngine.release(showtimeId, hold.seatIds(), holdId));
+        return hold;
+    }
+
+    /**
+     * Giữ ghế cho một lượt đặt vé không đi qua hold: ghế bị khóa trong bộ nhớ
+     * cho đến khi transaction hiện tại kết thúc.
+     */
+    public List<Long> holdForCheckout(Long showtimeId, List<String> seatCodes) {
+        String owner = UUID.randomUUID().toString();
+        List<Long> seatIds = holdSeats(showtimeId, normalize(seatCodes), owner);
+        TransactionCallbacks.afterRollback(() -> seatStateEngine.release(showtimeId, seatIds, owner));
+        return seatIds;
+    }
+
+    public void release(String holdId, Long userId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null || !hold.userId().equals(userId)) {
+            throw new ResourceNotFoundException("SeatHold", "id", holdId);
+        }
+        if (holds.remove(holdId, hold)) {
+            expiryIndex.remove(new ExpiryKey(hold.expiresAt(), holdId));
+            seatStateEngine.release(hold.showtimeId(), hold.seatIds(), holdId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.booking.hold-sweep-interval:PT1S}")
+    public void expireHolds() {
+        // headSet chỉ chứa các hold có thời điểm hết hạn trước "now"
+        ExpiryKey bound = new ExpiryKey(Instant.now(), "");
+        // showtimeId -> (seatId -> hold sở hữu ghế)
+        Map<Long, Map<Long, String>> releasedByShowtime = new HashMap<>();
+        int expired = 0;
+
+        Iterator<ExpiryKey> it = expiryIndex.headSet(bound).iterator();
+        while (it.hasNext()) {
+            ExpiryKey key = it.next();
+            it.remove();
+            SeatHold hold = holds.remove(key.holdId());
+            if (hold != null) {
+                Map<Long, String> owners = releasedByShowtime.computeIfAbsent(hold.showtimeId(), id -> new HashMap<>());
+                for (Long seatId : hold.seatIds()) {
+                    // Hai hold cùng ghế chỉ xảy ra khi suất chiếu bị nạp lại: trả riêng, bộ máy tự biết hold nào sở hữu
+                    if (owners.putIfAbsent(seatId, hold.id()) != null) {
+                        seatStateEngine.release(hold.showtimeId(), List.of(seatId), hold.id());
+                    }
+                }
+                expired++;
+            }
+        }
+
+        releasedByShowtime.forEach(seatStateEngine::release);
+        if (expired > 0) {
+            logger.debug("Đã trả {} hold hết hạn trên {} suất chiếu", expired, releasedByShowtime.size());
+        }
+    }
+
+    private List<Long> holdSeats(Long showtimeId, List<String> codes, String owner) {
+        ShowtimeSeatSnapshot snapshot = seatStateEngine.find(showtimeId)
+                .orElseThrow(() -> new NotFoundException("Showtime not found: " + showtimeId));
+
+        List<Long> seatIds = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            int pos = snapshot.layout().positionOfCode(code);
+            if (pos < 0) {
+                throw new IllegalArgumentException("Seat not found in room: " + code);
+            }
+            seatIds.add(snapshot.layout().seatIdAt(pos));
+        }
+
+        List<String> unavailable = seatStateEngine.tryHold(showtimeId, seatIds, owner);
+        if (!unavailable.isEmpty()) {
+            throw new SeatUnavailableException(unavailable);
+        }
+        return seatIds;
+    }
+
+    private static List<String> normalize(List<String> seatCodes) {
+        LinkedHashSet<String> codes = new LinkedHashSet<>();
+        for (String code : seatCodes) {
+            codes.add(code.trim().toUpperCase());
+        }
+        return List.copyOf(codes);
+    }
+
+    private record ExpiryKey(Instant expiresAt, String holdId) implements Comparable<ExpiryKey> {
+        @Override
+        public int compareTo(ExpiryKey other) {
+            int cmp = expiresAt.compareTo(other.expiresAt);
+            return cmp != 0 ? cmp : holdId.compareTo(other.holdId);
+        }
+    }
+}
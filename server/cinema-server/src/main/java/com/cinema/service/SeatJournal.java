@@ -0,0 +1,537 @@
+package com.cinema.service;
+
+import com.cinema.dto.SeatJournalEventDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Nhật ký chỉ ghi thêm (append-only) các lần đổi trạng thái ghế, ghi vào file ánh xạ bộ nhớ (memory-mapped).
+ *
+ * Mỗi bản ghi dài cố định 32 byte:
+ * <pre>
+ *   0  int   CRC32C của 28 byte còn lại
+ *   4  byte  loại bản ghi (STATE, BASELINE, INVALIDATE, CHECKPOINT)
+ *   5  byte  trạng thái ghế mới ({@link SeatStateEngine#AVAILABLE}, BOOKED, HELD)
+ *   6  byte  nguồn thay đổi ({@link Source})
+ *   7  byte  dự phòng
+ *   8  long  thời điểm (epoch millis)
+ *  16  long  showtimeId
+ *  24  long  seatId (BASELINE: roomId)
+ * </pre>
+ * File được cấp phát trước và chứa toàn số 0, nên bản ghi có loại 0 đánh dấu điểm cuối; bản ghi sai CRC
+ * (ghi dở khi sập máy) cũng kết thúc segment. Dữ liệu được fsync theo lô mỗi {@code cinema.journal.fsync-interval}.
+ *
+ * Lúc khởi động, nhật ký được đọc lại để dựng danh sách ghế đã bán của các suất chiếu có BASELINE, nên
+ * {@link SeatStateEngine} không phải quét bảng tickets. Nhật ký tự theo dõi trạng thái mà nó dựng lại được; mỗi khi
+ * sang segment mới (và sau khi đọc lại lúc khởi động), trạng thái đó được ghi gọn vào đầu segment mới dưới dạng
+ * checkpoint, nên lần đọc lại chỉ đi từ checkpoint mới nhất và không lớn dần theo thời gian chạy. Các segment cũ hơn
+ * được giữ lại ({@code retain-segments}) để tra cứu khi có khiếu nại bán trùng ghế, rồi bị xóa.
+ * DB vẫn là nguồn sự thật. Trạng thái đọc lại có thể lệch DB: bản ghi được ghi sau khi transaction commit và fsync
+ * theo lô, nên các thay đổi trong khoảng {@code fsync-interval} cuối trước khi sập có thể mất, và thay đổi do node
+ * khác ghi vào DB trong lúc node này dừng không có trong nhật ký. Vì vậy {@link SeatStateEngine} chỉ coi trạng thái
+ * đọc lại là tạm thời và đối chiếu với DB khi nó từ chối giữ ghế; luồng đặt vé luôn kiểm tra DB bằng compare-and-set.
+ */
+@Service
+public class SeatJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatJournal.class);
+
+    static final int RECORD_SIZE = 32;
+
+    static final byte STATE = 1;
+    static final byte BASELINE = 2;
+    static final byte INVALIDATE = 3;
+    static final byte CHECKPOINT = 4;
+
+    private static final String SEGMENT_PREFIX = "seat-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    public enum Source {
+        LOAD, HOLD, RELEASE, BOOK, CANCEL, TICKET_UPDATE, CONFLICT, RECONCILE;
+
+        private static final Source[] VALUES = values();
+
+        static String nameOf(byte ordinal) {
+            return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal].name() : String.valueOf(ordinal);
+        }
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int retainSegments;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CRC32C crc = new CRC32C();
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private MappedByteBuffer buffer;
+    private long segmentSequence;
+    private long checkpointSequence;
+    private int position;
+    private int flushedPosition;
+
+    // Trạng thái đọc lại lúc khởi động, được lấy ra (và xóa) khi suất chiếu được nạp vào bộ nhớ lần đầu
+    private final Map<Long, Recovered> recovered = new ConcurrentHashMap<>();
+    // Trạng thái mà lần đọc lại kế tiếp sẽ dựng được, cập nhật theo từng bản ghi (khi đang giữ khóa);
+    // được ghi thành checkpoint khi sang segment mới
+    private final Map<Long, Recovered> tracked = new HashMap<>();
+    private final ReplayCursor tracker = new ReplayCursor(tracked);
+
+    public SeatJournal(@Value("${cinema.journal.enabled:true}") boolean enabled,
+                       @Value("${cinema.journal.directory:./data/journal}") Path directory,
+                       @Value("${cinema.journal.segment-size:64MB}") DataSize segmentSize,
+                       @Value("${cinema.journal.retain-segments:8}") int retainSegments) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE - RECORD_SIZE, segmentSize.toBytes()) / RECORD_SIZE * RECORD_SIZE;
+        this.retainSegments = Math.max(1, retainSegments);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+        List<Path> segments = listSegments();
+        long records = replay(segments);
+        recovered.forEach((id, state) -> tracked.put(id, new Recovered(state.roomId(), new HashSet<>(state.bookedSeatIds()))));
+
+        // Chỉ ghi checkpoint khi phần lớn nhật ký đã lỗi thời, để lần đọc lại sau luôn tỉ lệ với trạng thái còn sống
+        long live = 0;
+        for (Recovered state : recovered.values()) {
+            live += 1 + state.bookedSeatIds().size();
+        }
+        long next = segments.isEmpty() ? 1 : sequenceOf(segments.get(segments.size() - 1)) + 1;
+        if (checkpointSequence == 0 || records > 2 * live + 1) {
+            checkpoint(next, recovered);
+        } else {
+            lock.lock();
+            try {
+                segmentSequence = next;
+                buffer = map(segmentPath(next), FileChannel.MapMode.READ_WRITE, segmentSize);
+            } finally {
+                lock.unlock();
+            }
+        }
+        logger.info("Đọc lại {} bản ghi nhật ký ghế, khôi phục {} suất chiếu trong {} ms",
+                records, recovered.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Ghi một lần đổi trạng thái ghế. Được gọi khi bộ nhớ trạng thái ghế thực sự thay đổi.
+     */
+    public void recordState(Long showtimeId, long seatId, byte state, Source source) {
+        append(STATE, state, (byte) source.ordinal(), showtimeId, seatId);
+    }
+
+    /**
+     * Ghi trạng thái đầy đủ của suất chiếu vừa nạp từ DB: các bản ghi sau đó đủ để dựng lại suất chiếu này.
+     */
+    public void recordBaseline(Long showtimeId, Long roomId, Collection<Long> bookedSeatIds) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            write(BASELINE, (byte) 0, (byte) Source.LOAD.ordinal(), showtimeId, roomId);
+            for (Long seatId : bookedSeatIds) {
+                write(STATE, SeatStateEngine.BOOKED, (byte) Source.LOAD.ordinal(), showtimeId, seatId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Suất chiếu bị đổi (phòng, sơ đồ ghế...): lần nạp sau phải đọc lại DB.
+     */
+    public void invalidate(Long showtimeId) {
+        recovered.remove(showtimeId);
+        append(INVALIDATE, (byte) 0, (byte) 0, showtimeId, 0);
+    }
+
+    /**
+     * Suất chiếu có trạng thái khôi phục nhưng chưa được nạp vào bộ nhớ thì không nhận được các thay đổi sau đó:
+     * bỏ trạng thái khôi phục để lần nạp sau đọc DB.
+     */
+    public void forgetRecovered(Long showtimeId) {
+        if (recovered.remove(showtimeId) != null) {
+            append(INVALIDATE, (byte) 0, (byte) 0, showtimeId, 0);
+        }
+    }
+
+    public void invalidateRoom(Long roomId) {
+        recovered.entrySet().removeIf(entry -> {
+            if (!entry.getValue().roomId().equals(roomId)) {
+                return false;
+            }
+            append(INVALIDATE, (byte) 0, (byte) 0, entry.getKey(), 0);
+            return true;
+        });
+    }
+
+    /**
+     * Lấy các ghế đã bán của suất chiếu theo nhật ký (chỉ dùng được một lần, lúc nạp suất chiếu vào bộ nhớ).
+     */
+    public Optional<Set<Long>> takeRecovered(Long showtimeId, Long roomId) {
+        Recovered state = recovered.remove(showtimeId);
+        if (state == null || !state.roomId().equals(roomId)) {
+            return Optional.empty();
+        }
+        return Optional.of(state.bookedSeatIds());
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.journal.fsync-interval:PT0.2S}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        MappedByteBuffer target;
+        int from;
+        int to;
+        lock.lock();
+        try {
+            target = buffer;
+            from = flushedPosition;
+            to = position;
+            flushedPosition = position;
+        } finally {
+            lock.unlock();
+        }
+        // fsync ngoài khóa để không chặn luồng ghi
+        if (to > from) {
+            target.force(from, to - from);
+        }
+    }
+
+    /**
+     * Tra cứu lịch sử một suất chiếu (hoặc một ghế) trong toàn bộ các segment còn giữ, phục vụ điều tra sự cố.
+     */
+    public List<SeatJournalEventDTO> history(Long showtimeId, Long seatId, int limit) {
+        if (!enabled) {
+            return List.of();
+        }
+        flush();
+        List<SeatJournalEventDTO> events = new ArrayList<>();
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer r = ByteBuffer.wrap(record);
+        CRC32C checksum = new CRC32C();
+        try {
+            for (Path segment : listSegments()) {
+                ByteBuffer data = map(segment, FileChannel.MapMode.READ_ONLY, Files.size(segment));
+                for (int p = 0; p + RECORD_SIZE <= data.capacity(); p += RECORD_SIZE) {
+                    data.get(p, record);
+                    if (!valid(r, checksum)) {
+                        break;
+                    }
+                    if (r.getLong(16) != showtimeId || (seatId != null && r.get(4) == STATE && r.getLong(24) != seatId)) {
+                        continue;
+                    }
+                    events.add(toEvent(r, segment.getFileName().toString()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return events.size() > limit ? List.copyOf(events.subList(events.size() - limit, events.size())) : events;
+    }
+
+    @PreDestroy
+    void close() {
+        flush();
+    }
+
+    private void append(byte type, byte state, byte source, long showtimeId, long value) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            write(type, state, source, showtimeId, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Gọi khi đang giữ khóa
+    private void write(byte type, byte state, byte source, long showtimeId, long value) {
+        if (position + RECORD_SIZE > buffer.capacity()) {
+            roll();
+        }
+        writeRaw(type, state, source, showtimeId, value);
+        tracker.apply(ByteBuffer.wrap(scratch));
+    }
+
+    // Ghi không cập nhật trạng thái theo dõi (nội dung checkpoint); segment phải còn chỗ
+    private void writeRaw(byte type, byte state, byte source, long showtimeId, long value) {
+        encode(scratch, type, state, source, showtimeId, value);
+        buffer.put(position, scratch);
+        position += RECORD_SIZE;
+    }
+
+    private void encode(byte[] target, byte type, byte state, byte source, long showtimeId, long value) {
+        ByteBuffer r = ByteBuffer.wrap(target);
+        r.put(4, type);
+        r.put(5, state);
+        r.put(6, source);
+        r.put(7, (byte) 0);
+        r.putLong(8, System.currentTimeMillis());
+        r.putLong(16, showtimeId);
+        r.putLong(24, value);
+        crc.reset();
+        crc.update(target, 4, RECORD_SIZE - 4);
+        r.putInt(0, (int) crc.getValue());
+    }
+
+    // Segment mới bắt đầu bằng checkpoint của trạng thái đang theo dõi: các segment trước trở thành lịch sử,
+    // bị xóa sau retain-segments, và lần đọc lại chỉ tốn tỉ lệ với trạng thái còn sống cộng một segment
+    private void roll() {
+        try {
+            buffer.force();
+            checkpoint(segmentSequence + 1, tracked);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long replay(List<Path> segments) throws IOException {
+        // Chỉ cần đọc từ checkpoint mới nhất trở đi
+        int start = 0;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (startsWithCheckpoint(segments.get(i))) {
+                start = i;
+                checkpointSequence = sequenceOf(segments.get(i));
+                break;
+            }
+        }
+
+        long records = 0;
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer r = ByteBuffer.wrap(record);
+        CRC32C checksum = new CRC32C();
+        ReplayCursor cursor = new ReplayCursor(recovered);
+        for (Path segment : segments.subList(start, segments.size())) {
+            ByteBuffer data = map(segment, FileChannel.MapMode.READ_ONLY, Files.size(segment));
+            int p = 0;
+            for (; p + RECORD_SIZE <= data.capacity(); p += RECORD_SIZE) {
+                data.get(p, record);
+                if (!valid(r, checksum)) {
+                    break;
+                }
+                cursor.apply(r);
+                records++;
+            }
+            if (p + RECORD_SIZE <= data.capacity() && data.get(p + 4) != 0) {
+                logger.warn("Nhật ký ghế {} hỏng tại byte {}, bỏ qua phần còn lại của segment", segment, p);
+            }
+        }
+        return records;
+    }
+
+    // Áp từng bản ghi vào một bảng trạng thái (lúc đọc lại, hoặc theo dõi khi đang ghi).
+    // Bản ghi của cùng một suất chiếu thường nằm liền nhau: nhớ suất chiếu vừa dùng để tránh tra map mỗi bản ghi
+    private static final class ReplayCursor {
+        private final Map<Long, Recovered> states;
+        private long showtimeId = -1;
+        private Recovered state;
+
+        ReplayCursor(Map<Long, Recovered> states) {
+            this.states = states;
+        }
+
+        void apply(ByteBuffer r) {
+            long id = r.getLong(16);
+            switch (r.get(4)) {
+                case BASELINE -> {
+                    state = new Recovered(r.getLong(24), new HashSet<>());
+                    showtimeId = id;
+                    states.put(id, state);
+                }
+                case INVALIDATE -> {
+                    states.remove(id);
+                    if (id == showtimeId) {
+                        showtimeId = -1;
+                        state = null;
+                    }
+                }
+                case STATE -> {
+                    if (id != showtimeId) {
+                        showtimeId = id;
+                        state = states.get(id);
+                    }
+                    if (state == null) {
+                        return;
+                    }
+                    // Ghế đang giữ không còn ý nghĩa sau khi khởi động lại
+                    byte seatState = r.get(5);
+                    if (seatState == SeatStateEngine.BOOKED) {
+                        state.bookedSeatIds().add(r.getLong(24));
+                    } else if (seatState == SeatStateEngine.AVAILABLE) {
+                        state.bookedSeatIds().remove(r.getLong(24));
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Ghi trạng thái vào một segment mới, bắt đầu bằng bản ghi CHECKPOINT; các bản ghi sau được nối tiếp vào segment này.
+     * File được ghi dưới tên tạm và chỉ đổi tên khi đã fsync xong, nên checkpoint dở dang không bao giờ được đọc.
+     */
+    private void checkpoint(long sequence, Map<Long, Recovered> states) throws IOException {
+        long liveRecords = 0;
+        for (Recovered state : states.values()) {
+            liveRecords += 1 + state.bookedSeatIds().size();
+        }
+        long needed = RECORD_SIZE * (1 + liveRecords);
+        int size = (int) Math.min(Integer.MAX_VALUE - RECORD_SIZE, Math.max(segmentSize, needed + segmentSize / 2))
+                / RECORD_SIZE * RECORD_SIZE;
+
+        Path temp = directory.resolve(SEGMENT_PREFIX + "checkpoint" + SEGMENT_SUFFIX + ".tmp");
+        Files.deleteIfExists(temp);
+        lock.lock();
+        try {
+            buffer = map(temp, FileChannel.MapMode.READ_WRITE, size);
+            position = 0;
+            writeRaw(CHECKPOINT, (byte) 0, (byte) 0, 0, 0);
+            for (Map.Entry<Long, Recovered> entry : states.entrySet()) {
+                writeRaw(BASELINE, (byte) 0, (byte) Source.LOAD.ordinal(), entry.getKey(), entry.getValue().roomId());
+                for (Long seatId : entry.getValue().bookedSeatIds()) {
+                    writeRaw(STATE, SeatStateEngine.BOOKED, (byte) Source.LOAD.ordinal(), entry.getKey(), seatId);
+                }
+            }
+            buffer.force();
+            flushedPosition = position;
+            segmentSequence = sequence;
+            checkpointSequence = sequence;
+            Files.move(temp, segmentPath(sequence), StandardCopyOption.ATOMIC_MOVE);
+            deleteOldSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean startsWithCheckpoint(Path segment) throws IOException {
+        if (Files.size(segment) < RECORD_SIZE) {
+            return false;
+        }
+        ByteBuffer data = map(segment, FileChannel.MapMode.READ_ONLY, RECORD_SIZE);
+        byte[] record = new byte[RECORD_SIZE];
+        data.get(0, record);
+        ByteBuffer r = ByteBuffer.wrap(record);
+        return valid(r, new CRC32C()) && r.get(4) == CHECKPOINT;
+    }
+
+    private static boolean valid(ByteBuffer r, CRC32C checksum) {
+        if (r.get(4) == 0) {
+            return false;
+        }
+        checksum.reset();
+        checksum.update(r.array(), 4, RECORD_SIZE - 4);
+        return (int) checksum.getValue() == r.getInt(0);
+    }
+
+    private static SeatJournalEventDTO toEvent(ByteBuffer r, String segment) {
+        byte type = r.get(4);
+        SeatJournalEventDTO event = new SeatJournalEventDTO();
+        event.setTimestamp(Instant.ofEpochMilli(r.getLong(8)));
+        event.setShowtimeId(r.getLong(16));
+        event.setSegment(segment);
+        switch (type) {
+            case STATE -> {
+                event.setType("STATE");
+                event.setSeatId(r.getLong(24));
+                event.setState(switch (r.get(5)) {
+                    case SeatStateEngine.AVAILABLE -> "AVAILABLE";
+                    case SeatStateEngine.BOOKED -> "BOOKED";
+                    case SeatStateEngine.HELD -> "HELD";
+                    default -> String.valueOf(r.get(5));
+                });
+                event.setSource(Source.nameOf(r.get(6)));
+            }
+            case BASELINE -> {
+                event.setType("BASELINE");
+                event.setRoomId(r.getLong(24));
+            }
+            case INVALIDATE -> event.setType("INVALIDATE");
+            default -> event.setType(String.valueOf(type));
+        }
+        return event;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX)
+                            && sequenceOf(p) > 0)
+                    .sorted((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)))
+                    .toList();
+        }
+    }
+
+    // Segment từ checkpoint hiện tại trở đi cần cho lần đọc lại sau, luôn được giữ; chỉ xóa bớt các segment cũ hơn
+    private void deleteOldSegments() throws IOException {
+        List<Path> older = listSegments().stream().filter(p -> sequenceOf(p) < checkpointSequence).toList();
+        for (int i = 0; i < older.size() - retainSegments; i++) {
+            Files.deleteIfExists(older.get(i));
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, FileChannel.MapMode mode, long size) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE};
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    private record Recovered(Long roomId, Set<Long> bookedSeatIds) {
+    }
+}
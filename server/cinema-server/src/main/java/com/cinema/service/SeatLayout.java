@@ -0,0 +1,118 @@
+package com.cinema.service;
+
+import com.cinema.model.Seat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sơ đồ ghế bất biến của một phòng chiếu.
+ * Mỗi ghế có một vị trí cố định (sắp theo hàng rồi theo số ghế), vị trí này
+ * được dùng làm chỉ số cho mảng trạng thái ghế của từng suất chiếu.
+ */
+public final class SeatLayout {
+
+    private final long[] seatIds;
+    private final String[] rowLabels;
+    private final int[] seatNumbers;
+    private final String[] types;
+    private final String[] codes;
+    private final Map<Long, Integer> positionBySeatId;
+    private final Map<String, Integer> positionByCode;
+    // Vị trí bắt đầu của từng hàng; hàng r chiếm [rowStarts[r], rowStarts[r + 1])
+    private final int[] rowStarts;
+
+    private SeatLayout(List<Seat> sortedSeats) {
+        int size = sortedSeats.size();
+        this.seatIds = new long[size];
+        this.rowLabels = new String[size];
+        this.seatNumbers = new int[size];
+        this.types = new String[size];
+        this.codes = new String[size];
+        this.positionBySeatId = new HashMap<>(size * 2);
+        this.positionByCode = new HashMap<>(size * 2);
+
+        for (int pos = 0; pos < size; pos++) {
+            Seat seat = sortedSeats.get(pos);
+            seatIds[pos] = seat.getId();
+            rowLabels[pos] = seat.getRowLabel();
+            seatNumbers[pos] = seat.getSeatNumber();
+            types[pos] = seat.getType();
+            codes[pos] = seat.getRowLabel() + seat.getSeatNumber();
+            positionBySeatId.put(seat.getId(), pos);
+            positionByCode.put(codes[pos].toUpperCase(), pos);
+        }
+
+        List<Integer> starts = new ArrayList<>();
+        for (int pos = 0; pos < size; pos++) {
+            if (pos == 0 || !rowLabels[pos].equals(rowLabels[pos - 1])) {
+                starts.add(pos);
+            }
+        }
+        starts.add(size);
+        this.rowStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static SeatLayout of(List<Seat> seats) {
+        List<Seat> sorted = new ArrayList<>(seats);
+        sorted.sort(Comparator.comparing(Seat::getRowLabel).thenComparing(Seat::getSeatNumber));
+        return new SeatLayout(sorted);
+    }
+
+    public int size() {
+        return seatIds.length;
+    }
+
+    /**
+     * @return vị trí của ghế trong sơ đồ, hoặc -1 nếu ghế không thuộc phòng này
+     */
+    public int positionOf(Long seatId) {
+        Integer pos = positionBySeatId.get(seatId);
+        return pos != null ? pos : -1;
+    }
+
+    /**
+     * @param code mã ghế dạng "A1", không phân biệt hoa thường
+     * @return vị trí của ghế, hoặc -1 nếu phòng không có ghế này
+     */
+    public int positionOfCode(String code) {
+        Integer pos = code != null ? positionByCode.get(code.trim().toUpperCase()) : null;
+        return pos != null ? pos : -1;
+    }
+
+    public int rowCount() {
+        return rowStarts.length - 1;
+    }
+
+    public int rowStart(int row) {
+        return rowStarts[row];
+    }
+
+    // Vị trí ngay sau ghế cuối của hàng
+    public int rowEnd(int row) {
+        return rowStarts[row + 1];
+    }
+
+    public long seatIdAt(int pos) {
+        return seatIds[pos];
+    }
+
+    public String rowLabelAt(int pos) {
+        return rowLabels[pos];
+    }
+
+    public int seatNumberAt(int pos) {
+        return seatNumbers[pos];
+    }
+
+    public String typeAt(int pos) {
+        return types[pos];
+    }
+
+    public String codeAt(int pos) {
+        return codes[pos];
+    }
+}
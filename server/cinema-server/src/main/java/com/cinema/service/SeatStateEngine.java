@@ -0,0 +1,501 @@
+package com.cinema.service;
+
+import com.cinema.exception.NotFoundException;
+import com.cinema.model.Showtime;
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.TicketRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bộ máy trạng thái ghế trong bộ nhớ cho các suất chiếu đang hoạt động.
+ *
+ * Mỗi suất chiếu giữ một mảng trạng thái nhỏ (1 byte/ghế) đánh chỉ số theo vị trí ghế trong phòng.
+ * Lần đọc đầu tiên nạp từ DB, các lần sau trả lời hoàn toàn từ bộ nhớ. Các thay đổi từ luồng đặt vé /
+ * hủy vé được áp dụng sau khi transaction commit, nên bộ nhớ không bao giờ chứa trạng thái chưa commit.
+ * Mọi thay đổi trạng thái đều được ghi vào {@link SeatJournal}; suất chiếu có trong nhật ký được nạp
+ * lại mà không cần quét bảng tickets. Trạng thái đọc lại từ nhật ký có thể cũ (mất vài trăm mili giây cuối trước khi
+ * sập, thiếu thay đổi trong lúc server dừng), nên lần đầu nó làm một lượt giữ ghế thất bại, suất chiếu được đối chiếu
+ * lại với DB một lần: ghế trả vé bị mất không còn kẹt ở BOOKED mãi.
+ *
+ * Mỗi ảnh chụp mang một phiên bản tăng dần; các thay đổi gần nhất được giữ trong một vòng đệm có giới hạn
+ * để client đã có sơ đồ ghế chỉ cần tải phần thay đổi.
+ *
+ * Ghế HELD nhớ lượt giữ đang sở hữu nó (id của hold): chỉ đúng lượt giữ đó trả được ghế. Suất chiếu bị nạp lại
+ * thì mọi ghế HELD trở về trống; lượt giữ cũ hết hạn sau đó không trả nhầm ghế mà người khác vừa giữ, còn lượt giữ
+ * cũ được dùng để đặt vé thì phải giữ lại được ghế ({@link #tryHold} với cùng chủ).
+ */
+@Service
+public class SeatStateEngine {
+
+    public static final byte AVAILABLE = 0;
+    public static final byte BOOKED = 1;
+    public static final byte HELD = 2;
+
+    // Các trạng thái vé được coi là đã chiếm ghế
+    public static final List<String> OCCUPIED_TICKET_STATUSES = List.of("BOOKED", "PAID", "PROCESSING", "SOLD");
+
+    private final ShowtimeRepository showtimeRepository;
+    private final RoomSeatIndex roomSeatIndex;
+    private final TicketRepository ticketRepository;
+    private final SeatJournal seatJournal;
+    private final SeatEventBroadcaster seatEventBroadcaster;
+    private final DailyTimetableService dailyTimetable;
+    private final int deltaBufferSize;
+
+    private final ConcurrentMap<Long, Holder> holders = new ConcurrentHashMap<>();
+    // Dùng chung cho mọi suất chiếu và bắt đầu từ thời điểm khởi động, nên phiên bản của một suất chiếu
+    // vẫn tăng sau khi bị evict / nạp lại hoặc sau khi server khởi động lại
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public SeatStateEngine(ShowtimeRepository showtimeRepository,
+                           RoomSeatIndex roomSeatIndex,
+                           TicketRepository ticketRepository,
+                           SeatJournal seatJournal,
+                           SeatEventBroadcaster seatEventBroadcaster,
+                           DailyTimetableService dailyTimetable,
+                           @Value("${cinema.seat-map.delta-buffer:256}") int deltaBufferSize) {
+        this.showtimeRepository = showtimeRepository;
+        this.roomSeatIndex = roomSeatIndex;
+        this.ticketRepository = ticketRepository;
+        this.seatJournal = seatJournal;
+        this.seatEventBroadcaster = seatEventBroadcaster;
+        this.dailyTimetable = dailyTimetable;
+        this.deltaBufferSize = deltaBufferSize;
+    }
+
+    /**
+     * Lấy ảnh chụp trạng thái ghế của suất chiếu, nạp từ DB nếu chưa có trong bộ nhớ.
+     */
+    public Optional<ShowtimeSeatSnapshot> find(Long showtimeId) {
+        Holder holder = holders.computeIfAbsent(showtimeId, id -> new Holder());
+        ShowtimeSeatSnapshot snapshot = holder.snapshot;
+        if (snapshot != null) {
+            return Optional.of(snapshot);
+        }
+
+        holder.lock.lock();
+        try {
+            if (holder.snapshot == null) {
+                holder.snapshot = load(showtimeId, holder);
+                if (holder.snapshot != null) {
+                    holder.deltaFloor = holder.snapshot.version();
+                }
+            }
+            snapshot = holder.snapshot;
+        } finally {
+            holder.lock.unlock();
+        }
+
+        if (snapshot == null) {
+            holders.remove(showtimeId, holder);
+        }
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Giữ ghế ngay lập tức (không chờ commit): chỉ thành công khi mọi ghế đang trống hoặc đã do {@code owner} giữ.
+     *
+     * @return danh sách mã ghế không còn trống; rỗng nếu đã giữ được toàn bộ
+     */
+    public List<String> tryHold(Long showtimeId, Collection<Long> seatIds, String owner) {
+        while (true) {
+            if (find(showtimeId).isEmpty()) {
+                throw new NotFoundException("Showtime not found: " + showtimeId);
+            }
+            Holder holder = holders.get(showtimeId);
+            if (holder == null) {
+                continue;
+            }
+            holder.lock.lock();
+            try {
+                // Suất chiếu có thể vừa bị evict giữa lúc nạp và lúc khóa
+                if (holders.get(showtimeId) != holder || holder.snapshot == null) {
+                    continue;
+                }
+                List<String> unavailable = holdAll(showtimeId, holder, seatIds, owner);
+                if (!unavailable.isEmpty() && holder.recovered) {
+                    // Ghế bị từ chối có thể chỉ đang BOOKED trong nhật ký: đối chiếu DB rồi thử lại
+                    holder.recovered = false;
+                    if (reconcile(showtimeId, holder)) {
+                        unavailable = holdAll(showtimeId, holder, seatIds, owner);
+                    }
+                }
+                return unavailable;
+            } finally {
+                holder.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Các ghế đổi trạng thái kể từ phiên bản {@code sinceVersion}.
+     *
+     * @return rỗng nếu suất chiếu chưa nạp hoặc vòng đệm không còn đủ thay đổi (client phải tải toàn bộ sơ đồ)
+     */
+    public Optional<SeatChanges> changesSince(Long showtimeId, long sinceVersion) {
+        Holder holder = holders.get(showtimeId);
+        if (holder == null) {
+            return Optional.empty();
+        }
+        holder.lock.lock();
+        try {
+            ShowtimeSeatSnapshot current = holder.snapshot;
+            if (current == null || sinceVersion < holder.deltaFloor || sinceVersion > current.version()) {
+                return Optional.empty();
+            }
+            return Optional.of(holder.changesSince(current, sinceVersion));
+        } finally {
+            holder.lock.unlock();
+        }
+    }
+
+    /**
+     * Tăng phiên bản sơ đồ ghế khi dữ liệu khác ngoài trạng thái ghế thay đổi (ví dụ giá),
+     * đồng thời bỏ các thay đổi cũ vì chúng không mô tả được thay đổi đó.
+     */
+    public void touch(Long showtimeId) {
+        Holder holder = holders.get(showtimeId);
+        if (holder == null) {
+            return;
+        }
+        holder.lock.lock();
+        try {
+            ShowtimeSeatSnapshot current = holder.snapshot;
+            if (current != null) {
+                long version = versions.incrementAndGet();
+                holder.snapshot = current.withStates(current.states(), version);
+                holder.clearChanges(version);
+            }
+        } finally {
+            holder.lock.unlock();
+        }
+    }
+
+    private List<String> holdAll(Long showtimeId, Holder holder, Collection<Long> seatIds, String owner) {
+        ShowtimeSeatSnapshot current = holder.snapshot;
+        List<String> unavailable = new ArrayList<>();
+        List<Long> held = new ArrayList<>(seatIds.size());
+        byte[] next = current.states().clone();
+        for (Long seatId : seatIds) {
+            int pos = current.layout().positionOf(seatId);
+            if (pos >= 0 && next[pos] == HELD && owner.equals(holder.holdOwners.get(pos))) {
+                continue;
+            }
+            if (pos < 0 || next[pos] != AVAILABLE) {
+                unavailable.add(pos < 0 ? String.valueOf(seatId) : current.layout().codeAt(pos));
+                continue;
+            }
+            next[pos] = HELD;
+            held.add(seatId);
+        }
+        if (unavailable.isEmpty() && !held.isEmpty()) {
+            long version = versions.incrementAndGet();
+            holder.snapshot = current.withStates(next, version);
+            for (Long seatId : held) {
+                int pos = current.layout().positionOf(seatId);
+                holder.holdOwners.put(pos, owner);
+                holder.recordChange(version, pos, current.states()[pos], deltaBufferSize);
+                seatJournal.recordState(showtimeId, seatId, HELD, SeatJournal.Source.HOLD);
+                seatEventBroadcaster.publish(showtimeId, seatId, current.layout().codeAt(pos), HELD, version);
+            }
+        }
+        return unavailable;
+    }
+
+    /**
+     * Đưa trạng thái BOOKED / trống của suất chiếu nạp từ nhật ký về đúng DB, gọi khi giữ khóa của holder.
+     * Ghế HELD giữ nguyên. Thay đổi đã commit nhưng chưa được áp dụng vào bộ nhớ (afterCommit) cho cùng kết quả,
+     * nên áp dụng chúng sau đó không làm sai trạng thái.
+     *
+     * @return true nếu có ghế đổi trạng thái
+     */
+    private boolean reconcile(Long showtimeId, Holder holder) {
+        ShowtimeSeatSnapshot current = holder.snapshot;
+        Set<Long> bookedSeatIds = ticketRepository.findBookedSeatIdsByShowtimeIdAndStatus(showtimeId, OCCUPIED_TICKET_STATUSES);
+        byte[] next = null;
+        long version = 0;
+        SeatLayout layout = current.layout();
+        for (int pos = 0; pos < layout.size(); pos++) {
+            byte state = current.states()[pos];
+            if (state == HELD) {
+                continue;
+            }
+            Long seatId = layout.seatIdAt(pos);
+            byte actual = bookedSeatIds.contains(seatId) ? BOOKED : AVAILABLE;
+            if (state == actual) {
+                continue;
+            }
+            if (next == null) {
+                next = current.states().clone();
+                version = versions.incrementAndGet();
+            }
+            holder.recordChange(version, pos, state, deltaBufferSize);
+            next[pos] = actual;
+            seatJournal.recordState(showtimeId, seatId, actual, SeatJournal.Source.RECONCILE);
+            seatEventBroadcaster.publish(showtimeId, seatId, layout.codeAt(pos), actual, version);
+        }
+        if (next == null) {
+            return false;
+        }
+        holder.snapshot = current.withStates(next, version);
+        return true;
+    }
+
+    /**
+     * Trả lại các ghế đang do {@code owner} giữ (ghế đã bán hoặc do lượt giữ khác giữ không bị ảnh hưởng).
+     */
+    public void release(Long showtimeId, Collection<Long> seatIds, String owner) {
+        apply(showtimeId, seatIds, HELD, seatId -> owner, AVAILABLE, SeatJournal.Source.RELEASE);
+    }
+
+    /**
+     * Trả lại ghế của nhiều lượt giữ trên cùng suất chiếu trong một lần khóa: mỗi ghế chỉ được trả nếu vẫn do
+     * lượt giữ ghi kèm sở hữu.
+     */
+    public void release(Long showtimeId, Map<Long, String> ownerBySeat) {
+        apply(showtimeId, ownerBySeat.keySet(), HELD, ownerBySeat::get, AVAILABLE, SeatJournal.Source.RELEASE);
+    }
+
+    /**
+     * Đánh dấu ngay các ghế mà DB cho biết đã có chủ (bộ nhớ đang chậm hơn DB).
+     * Ghế được giữ trong transaction bị rollback sẽ không bị trả lại vì không còn ở trạng thái HELD.
+     */
+    public void markTaken(Long showtimeId, Collection<Long> seatIds) {
+        apply(showtimeId, seatIds, BOOKED, SeatJournal.Source.CONFLICT);
+    }
+
+    // Người gọi chỉ truyền các ghế vừa đổi trạng thái trong DB, nên số ghế cũng là số cần cộng / trừ ở lịch chiếu
+    public void markBooked(Long showtimeId, Collection<Long> seatIds) {
+        TransactionCallbacks.afterCommit(() -> {
+            apply(showtimeId, seatIds, BOOKED, SeatJournal.Source.BOOK);
+            dailyTimetable.seatsOccupied(showtimeId, seatIds.size());
+        });
+    }
+
+    public void markAvailable(Long showtimeId, Collection<Long> seatIds) {
+        TransactionCallbacks.afterCommit(() -> {
+            apply(showtimeId, seatIds, AVAILABLE, SeatJournal.Source.CANCEL);
+            dailyTimetable.seatsReleased(showtimeId, seatIds.size());
+        });
+    }
+
+    /**
+     * Đồng bộ một ghế theo trạng thái vé (dùng cho các thao tác sửa vé trực tiếp của admin).
+     */
+    public void applyTicketStatus(Long showtimeId, Long seatId, String ticketStatus) {
+        byte state = ticketStatus != null && OCCUPIED_TICKET_STATUSES.contains(ticketStatus.toUpperCase())
+                ? BOOKED : AVAILABLE;
+        TransactionCallbacks.afterCommit(() -> apply(showtimeId, List.of(seatId), state, SeatJournal.Source.TICKET_UPDATE));
+        dailyTimetable.evictShowtime(showtimeId);
+    }
+
+    public void evict(Long showtimeId) {
+        TransactionCallbacks.afterCommit(() -> {
+            holders.remove(showtimeId);
+            seatJournal.invalidate(showtimeId);
+            seatEventBroadcaster.reset(showtimeId);
+        });
+    }
+
+    public void evictRoom(Long roomId) {
+        TransactionCallbacks.afterCommit(() -> {
+            holders.entrySet().removeIf(entry -> {
+                ShowtimeSeatSnapshot snapshot = entry.getValue().snapshot;
+                if (snapshot == null || !snapshot.roomId().equals(roomId)) {
+                    return false;
+                }
+                seatJournal.invalidate(entry.getKey());
+                seatEventBroadcaster.reset(entry.getKey());
+                return true;
+            });
+            seatJournal.invalidateRoom(roomId);
+        });
+        dailyTimetable.evictAll();
+    }
+
+    public void evictMovie(Long movieId) {
+        TransactionCallbacks.afterCommit(() -> holders.values().removeIf(holder -> {
+            ShowtimeSeatSnapshot snapshot = holder.snapshot;
+            return snapshot != null && snapshot.movieId().equals(movieId);
+        }));
+        dailyTimetable.evictAll();
+    }
+
+    private void apply(Long showtimeId, Collection<Long> seatIds, byte newState, SeatJournal.Source source) {
+        apply(showtimeId, seatIds, (byte) -1, null, newState, source);
+    }
+
+    // expectedState = -1: không kiểm tra trạng thái hiện tại; expectedOwner = null: không kiểm tra chủ lượt giữ
+    private void apply(Long showtimeId, Collection<Long> seatIds, byte expectedState,
+                       Function<Long, String> expectedOwner, byte newState, SeatJournal.Source source) {
+        Holder holder = holders.get(showtimeId);
+        if (holder == null) {
+            // Chưa nạp: lần đọc sau sẽ lấy dữ liệu đã commit từ DB
+            seatJournal.forgetRecovered(showtimeId);
+            return;
+        }
+
+        holder.lock.lock();
+        try {
+            ShowtimeSeatSnapshot current = holder.snapshot;
+            if (current == null) {
+                seatJournal.forgetRecovered(showtimeId);
+                return;
+            }
+            byte[] next = null;
+            long version = 0;
+            for (Long seatId : seatIds) {
+                int pos = current.layout().positionOf(seatId);
+                if (pos < 0 || current.states()[pos] == newState) {
+                    continue;
+                }
+                if (expectedState >= 0 && current.states()[pos] != expectedState) {
+                    continue;
+                }
+                if (expectedOwner != null && !Objects.equals(expectedOwner.apply(seatId), holder.holdOwners.get(pos))) {
+                    continue;
+                }
+                if (next == null) {
+                    next = current.states().clone();
+                    version = versions.incrementAndGet();
+                }
+                // Cùng một ghế có thể xuất hiện hai lần trong danh sách: trạng thái trước đó lấy từ next
+                holder.recordChange(version, pos, next[pos], deltaBufferSize);
+                next[pos] = newState;
+                holder.holdOwners.remove(pos);
+                seatJournal.recordState(showtimeId, seatId, newState, source);
+                seatEventBroadcaster.publish(showtimeId, seatId, current.layout().codeAt(pos), newState, version);
+            }
+            if (next != null) {
+                holder.snapshot = current.withStates(next, version);
+            }
+        } finally {
+            holder.lock.unlock();
+        }
+    }
+
+    private ShowtimeSeatSnapshot load(Long showtimeId, Holder holder) {
+        Optional<Showtime> found = showtimeRepository.findByIdWithDetails(showtimeId);
+        if (found.isEmpty()) {
+            return null;
+        }
+        Showtime showtime = found.get();
+
+        Long roomId = showtime.getRoom().getId();
+        SeatLayout layout = roomSeatIndex.get(roomId);
+        // Ưu tiên trạng thái đọc lại từ nhật ký; không có thì quét tickets và ghi mốc mới vào nhật ký
+        Collection<Long> bookedSeatIds = seatJournal.takeRecovered(showtimeId, roomId).orElse(null);
+        holder.recovered = bookedSeatIds != null;
+        if (bookedSeatIds == null) {
+            bookedSeatIds = ticketRepository.findBookedSeatIdsByShowtimeIdAndStatus(showtimeId, OCCUPIED_TICKET_STATUSES);
+            seatJournal.recordBaseline(showtimeId, roomId, bookedSeatIds);
+        }
+        byte[] states = new byte[layout.size()];
+        for (Long seatId : bookedSeatIds) {
+            int pos = layout.positionOf(seatId);
+            if (pos >= 0) {
+                states[pos] = BOOKED;
+            }
+        }
+
+        return new ShowtimeSeatSnapshot(
+                showtime.getId(),
+                showtime.getMovie().getId(),
+                showtime.getMovie().getTitle(),
+                showtime.getStartsAt(),
+                showtime.getEndsAt(),
+                showtime.getBasePrice(),
+                showtime.getRoom().getId(),
+                showtime.getRoom().getName(),
+                showtime.getRoom().getTotalRows(),
+                showtime.getRoom().getSeatsPerRow(),
+                layout,
+                states,
+                versions.incrementAndGet()
+        );
+    }
+
+    // Mỗi suất chiếu có một khóa riêng cho việc nạp và ghi; đọc không cần khóa
+    private static final class Holder {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile ShowtimeSeatSnapshot snapshot;
+        // Trạng thái nạp từ nhật ký và chưa đối chiếu với DB, chỉ truy cập khi giữ khóa
+        private boolean recovered;
+        // Vị trí ghế HELD → id lượt giữ đang sở hữu, chỉ truy cập khi giữ khóa
+        private final Map<Integer, String> holdOwners = new HashMap<>();
+
+        // Vòng đệm các thay đổi gần nhất (phiên bản, vị trí ghế, trạng thái trước đó), chỉ truy cập khi giữ khóa.
+        // Cấp phát ở thay đổi đầu tiên nên suất chiếu chỉ được đọc không tốn thêm bộ nhớ.
+        private long[] changeVersions;
+        private int[] changePositions;
+        private byte[] changePrevious;
+        private int changeHead;
+        private int changeCount;
+        // Mọi thay đổi có phiên bản lớn hơn mốc này đều còn trong vòng đệm
+        private long deltaFloor;
+
+        void recordChange(long version, int pos, byte previous, int capacity) {
+            if (capacity <= 0) {
+                deltaFloor = version;
+                return;
+            }
+            if (changeVersions == null) {
+                changeVersions = new long[capacity];
+                changePositions = new int[capacity];
+                changePrevious = new byte[capacity];
+            }
+            if (changeCount == capacity) {
+                // Ghi đè thay đổi cũ nhất: từ nay không trả được delta cho phiên bản đó nữa
+                deltaFloor = changeVersions[changeHead];
+            } else {
+                changeCount++;
+            }
+            changeVersions[changeHead] = version;
+            changePositions[changeHead] = pos;
+            changePrevious[changeHead] = previous;
+            changeHead = (changeHead + 1) % capacity;
+        }
+
+        void clearChanges(long version) {
+            changeCount = 0;
+            changeHead = 0;
+            deltaFloor = version;
+        }
+
+        SeatChanges changesSince(ShowtimeSeatSnapshot current, long sinceVersion) {
+            // Duyệt từ mới tới cũ; trạng thái trước đó của mỗi ghế là của thay đổi cũ nhất sau sinceVersion
+            Map<Integer, Byte> previousByPosition = new HashMap<>();
+            int capacity = changeVersions != null ? changeVersions.length : 0;
+            for (int i = 0; i < changeCount; i++) {
+                int slot = Math.floorMod(changeHead - 1 - i, capacity);
+                if (changeVersions[slot] <= sinceVersion) {
+                    break;
+                }
+                previousByPosition.put(changePositions[slot], changePrevious[slot]);
+            }
+
+            int occupiedBefore = current.occupiedCount();
+            for (Map.Entry<Integer, Byte> entry : previousByPosition.entrySet()) {
+                if (current.isBooked(entry.getKey())) occupiedBefore--;
+                if (entry.getValue() != AVAILABLE) occupiedBefore++;
+            }
+            int[] positions = previousByPosition.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            return new SeatChanges(current, sinceVersion, positions, occupiedBefore);
+        }
+    }
+}
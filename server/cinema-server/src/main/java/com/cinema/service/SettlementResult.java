@@ -0,0 +1,18 @@
+package com.cinema.service;
+
+/**
+ * Thống kê một lượt đối soát thanh toán.
+ */
+public record SettlementResult(int scanned, int succeeded, int failed, int expired, long elapsedMillis) {
+
+    static final SettlementResult EMPTY = new SettlementResult(0, 0, 0, 0, 0);
+
+    SettlementResult plus(SettlementResult other) {
+        return new SettlementResult(scanned + other.scanned, succeeded + other.succeeded,
+                failed + other.failed, expired + other.expired, elapsedMillis);
+    }
+
+    SettlementResult withElapsed(long millis) {
+        return new SettlementResult(scanned, succeeded, failed, expired, millis);
+    }
+}
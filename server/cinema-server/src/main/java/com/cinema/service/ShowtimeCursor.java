@@ -0,0 +1,34 @@
+package com.cinema.service;
+
+import com.cinema.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Vị trí trong danh sách suất chiếu sắp theo (giờ bắt đầu, id): trang sau bắt đầu ngay sau dòng cuối của trang trước.
+ * Client chỉ nhận chuỗi base64 và gửi lại nguyên vẹn.
+ */
+public record ShowtimeCursor(LocalDateTime startsAt, Long id) {
+
+    public String encode() {
+        String raw = startsAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ShowtimeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            return new ShowtimeCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
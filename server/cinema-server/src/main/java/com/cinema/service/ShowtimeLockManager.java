@@ -0,0 +1,219 @@
+package com.cinema.service;
+
+import com.cinema.dto.ShowtimeLockStatsDTO;
+import com.cinema.exception.ShowtimeBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Khóa trong bộ nhớ theo suất chiếu cho luồng đặt vé / hủy vé.
+ *
+ * Các khóa được chia thành một số cố định "stripe" (ReentrantLock công bằng), suất chiếu được băm vào
+ * một stripe nên các suất chiếu khác nhau gần như không bao giờ tranh chấp. Khóa được giữ đến khi
+ * transaction hiện tại kết thúc, nên các lượt giành ghế cùng suất chiếu được xếp hàng trong bộ nhớ
+ * thay vì chờ khóa dòng / deadlock trong MySQL.
+ *
+ * Luồng chờ khóa bên trong transaction đã giữ một kết nối của pool DB trong lúc chờ (tối đa {@code lock-timeout}).
+ * Luồng nóng (đặt vé) dùng {@link #callWithLock} để khóa trước khi mở transaction; {@link #lockAllForTransaction}
+ * chỉ dành cho các luồng ít tranh chấp (hủy đơn, đối soát) cần biết suất chiếu từ DB trước khi khóa.
+ *
+ * Thống kê chờ khóa được giữ theo suất chiếu và bị xóa khi suất chiếu không có lượt khóa nào trong
+ * {@code lock-stats-retention}, nên số mục chỉ tỉ lệ với số suất chiếu đang được đặt vé.
+ */
+@Service
+public class ShowtimeLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final Duration timeout;
+    private final Duration statsRetention;
+
+    private final ConcurrentMap<Long, LockStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger totalWaiting = new AtomicInteger();
+    private final Timer waitTimer;
+
+    public ShowtimeLockManager(@Value("${cinema.booking.lock-stripes:1024}") int stripeCount,
+                               @Value("${cinema.booking.lock-timeout:PT5S}") Duration timeout,
+                               @Value("${cinema.booking.lock-stats-retention:PT1H}") Duration statsRetention,
+                               MeterRegistry meterRegistry) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+        this.timeout = timeout;
+        this.statsRetention = statsRetention;
+        this.waitTimer = Timer.builder("cinema.booking.lock.wait")
+                .description("Thời gian chờ khóa suất chiếu")
+                .register(meterRegistry);
+        meterRegistry.gauge("cinema.booking.lock.queue", totalWaiting);
+    }
+
+    /**
+     * Chạy {@code action} khi giữ khóa suất chiếu. Gọi ngoài transaction và để {@code action} tự mở transaction:
+     * khóa chỉ được trả sau khi transaction đó kết thúc.
+     */
+    public <T> T callWithLock(Long showtimeId, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("callWithLock must be called before the transaction starts");
+        }
+        ReentrantLock lock = stripes[stripeOf(showtimeId)];
+        acquire(showtimeId, lock);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Khóa nhiều suất chiếu theo thứ tự stripe cố định để tránh deadlock giữa các luồng.
+     */
+    public void lockAllForTransaction(Collection<Long> showtimeIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Showtime locks must be taken inside a transaction");
+        }
+
+        TreeSet<Long> ordered = new TreeSet<>(Comparator.comparingInt(this::stripeOf).thenComparing(Long::compareTo));
+        ordered.addAll(showtimeIds);
+
+        List<ReentrantLock> acquired = new ArrayList<>(ordered.size());
+        try {
+            for (Long showtimeId : ordered) {
+                ReentrantLock lock = stripes[stripeOf(showtimeId)];
+                acquire(showtimeId, lock);
+                acquired.add(lock);
+            }
+        } catch (RuntimeException e) {
+            unlockAll(acquired);
+            throw e;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlockAll(acquired);
+            }
+        });
+    }
+
+    public List<ShowtimeLockStatsDTO> getStats() {
+        List<ShowtimeLockStatsDTO> result = new ArrayList<>(stats.size());
+        stats.forEach((showtimeId, s) -> result.add(s.toDto(showtimeId)));
+        result.sort(Comparator.comparing(ShowtimeLockStatsDTO::getShowtimeId));
+        return result;
+    }
+
+    public ShowtimeLockStatsDTO getStats(Long showtimeId) {
+        LockStats s = stats.get(showtimeId);
+        return s != null ? s.toDto(showtimeId) : new LockStats().toDto(showtimeId);
+    }
+
+    // Xóa thống kê của suất chiếu không còn ai khóa (đã chiếu xong, ngừng bán...)
+    @Scheduled(fixedDelayString = "${cinema.booking.lock-stats-prune-interval:PT5M}")
+    public void pruneStats() {
+        long cutoff = System.nanoTime() - statsRetention.toNanos();
+        stats.values().removeIf(s -> s.queueDepth.get() == 0 && s.lastAcquiredNanos - cutoff < 0);
+    }
+
+    private void acquire(Long showtimeId, ReentrantLock lock) {
+        LockStats s = stats.computeIfAbsent(showtimeId, id -> new LockStats());
+        if (lock.tryLock()) {
+            s.recordAcquired(0);
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        s.enterQueue();
+        totalWaiting.incrementAndGet();
+        long start = System.nanoTime();
+        boolean locked = false;
+        try {
+            locked = lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            s.leaveQueue();
+            totalWaiting.decrementAndGet();
+        }
+
+        long waited = System.nanoTime() - start;
+        waitTimer.record(waited, TimeUnit.NANOSECONDS);
+        if (!locked) {
+            s.timeouts.increment();
+            throw new ShowtimeBusyException(showtimeId);
+        }
+        s.recordAcquired(waited);
+    }
+
+    private static void unlockAll(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private int stripeOf(Long showtimeId) {
+        long h = showtimeId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static final class LockStats {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final LongAdder timeouts = new LongAdder();
+        private volatile long lastAcquiredNanos = System.nanoTime();
+
+        void enterQueue() {
+            int depth = queueDepth.incrementAndGet();
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        void leaveQueue() {
+            queueDepth.decrementAndGet();
+        }
+
+        void recordAcquired(long waitNanos) {
+            lastAcquiredNanos = System.nanoTime();
+            acquisitions.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        ShowtimeLockStatsDTO toDto(Long showtimeId) {
+            long count = acquisitions.sum();
+            return ShowtimeLockStatsDTO.builder()
+                    .showtimeId(showtimeId)
+                    .acquisitions(count)
+                    .queueDepth(queueDepth.get())
+                    .maxQueueDepth(maxQueueDepth.get())
+                    .avgWaitMillis(count == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / count)
+                    .maxWaitMillis(maxWaitNanos.get() / 1_000_000.0)
+                    .timeouts(timeouts.sum())
+                    .build();
+        }
+    }
+}
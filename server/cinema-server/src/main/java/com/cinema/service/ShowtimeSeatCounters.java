@@ -0,0 +1,164 @@
+package com.cinema.service;
+
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.ShowtimeSeatCount;
+import com.cinema.repository.TicketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bộ đếm ghế đã bán / đang giữ trên từng dòng suất chiếu (showtimes.sold_seats, held_seats).
+ *
+ * Mọi chỗ đổi trạng thái vé ghi phần chênh lệch vào bộ đếm trong cùng transaction, bằng UPDATE cộng dồn, nên
+ * số ghế còn trống của nhiều suất chiếu đọc được bằng một câu lệnh theo khóa chính thay vì đếm bảng tickets.
+ * "Đã bán" là vé SOLD / PAID, "đang giữ" là vé BOOKED / PROCESSING (đã đặt, chờ thanh toán); ghế đang giữ
+ * trong bộ nhớ ({@link SeatHoldService}) chưa có trong DB nên không được đếm.
+ *
+ * Chỗ nào sửa bảng tickets mà không qua đây (SQL tay, bản sao dữ liệu...) sẽ làm lệch bộ đếm: lượt đối soát
+ * hằng đêm đếm lại từ tickets và sửa các dòng lệch.
+ */
+@Service
+public class ShowtimeSeatCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShowtimeSeatCounters.class);
+
+    public static final List<String> SOLD_TICKET_STATUSES = List.of("SOLD", "PAID");
+    public static final List<String> HELD_TICKET_STATUSES = List.of("BOOKED", "PROCESSING");
+
+    private final ShowtimeRepository showtimeRepository;
+    private final TicketRepository ticketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int reconcileChunkSize;
+
+    public ShowtimeSeatCounters(ShowtimeRepository showtimeRepository,
+                                TicketRepository ticketRepository,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${cinema.seat-counters.reconcile-chunk-size:200}") int reconcileChunkSize) {
+        this.showtimeRepository = showtimeRepository;
+        this.ticketRepository = ticketRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.reconcileChunkSize = reconcileChunkSize;
+    }
+
+    /**
+     * Ghi nhận {@code count} vé của suất chiếu đổi từ trạng thái {@code from} sang {@code to}.
+     * Phải gọi trong transaction đã đổi trạng thái vé.
+     */
+    public void move(Long showtimeId, String from, String to, int count) {
+        apply(changes().move(showtimeId, from, to, count));
+    }
+
+    public Changes changes() {
+        return new Changes();
+    }
+
+    /**
+     * Ghi các thay đổi đã gom, mỗi suất chiếu một lệnh UPDATE, theo thứ tự id để hai transaction cùng chạm
+     * nhiều suất chiếu không khóa chéo nhau.
+     */
+    public void apply(Changes changes) {
+        changes.deltas.forEach((showtimeId, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                showtimeRepository.adjustSeatCounters(showtimeId, delta[0], delta[1]);
+            }
+        });
+    }
+
+    @Scheduled(cron = "${cinema.seat-counters.reconcile-cron:0 30 3 * * *}")
+    void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Đếm lại vé của mọi suất chiếu và sửa bộ đếm lệch.
+     *
+     * @return số suất chiếu có bộ đếm bị sửa
+     */
+    public int reconcile() {
+        long started = System.nanoTime();
+        int scanned = 0;
+        int fixed = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = showtimeRepository.findIdsAfter(afterId, PageRequest.of(0, reconcileChunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+            scanned += ids.size();
+            fixed += transactionTemplate.execute(status -> reconcileChunk(ids));
+            if (ids.size() < reconcileChunkSize) {
+                break;
+            }
+        }
+        logger.info("Đối soát bộ đếm ghế {} suất chiếu trong {} ms: {} suất chiếu lệch",
+                scanned, (System.nanoTime() - started) / 1_000_000, fixed);
+        return fixed;
+    }
+
+    // Khóa dòng suất chiếu trước khi đếm: transaction đặt / hủy vé đang chạy phải chờ tới khi lô này commit,
+    // rồi mới cộng phần chênh lệch của nó vào số đã sửa
+    private int reconcileChunk(List<Long> ids) {
+        List<ShowtimeSeatCount> stored = showtimeRepository.lockSeatCounters(ids);
+        Map<Long, ShowtimeSeatCount> actual = new HashMap<>(ids.size() * 2);
+        ticketRepository.countSeatsByShowtimeIds(ids, SOLD_TICKET_STATUSES, HELD_TICKET_STATUSES)
+                .forEach(count -> actual.put(count.showtimeId(), count));
+
+        List<ShowtimeSeatCount> corrections = new ArrayList<>();
+        for (ShowtimeSeatCount counter : stored) {
+            ShowtimeSeatCount counted = actual.getOrDefault(counter.showtimeId(),
+                    new ShowtimeSeatCount(counter.showtimeId(), 0L, 0L));
+            if (!counter.sold().equals(counted.sold()) || !counter.held().equals(counted.held())) {
+                logger.warn("Bộ đếm ghế của suất chiếu {} lệch: đã bán {} (đúng {}), đang giữ {} (đúng {})",
+                        counter.showtimeId(), counter.sold(), counted.sold(), counter.held(), counted.held());
+                meterRegistry.counter("cinema.seat_counters.mismatch").increment();
+                corrections.add(counted);
+            }
+        }
+        showtimeRepository.overwriteSeatCounters(corrections);
+        return corrections.size();
+    }
+
+    /**
+     * Các thay đổi bộ đếm của một transaction, gom theo suất chiếu.
+     */
+    public static final class Changes {
+
+        // showtimeId -> [chênh lệch đã bán, chênh lệch đang giữ]
+        private final Map<Long, int[]> deltas = new TreeMap<>();
+
+        public Changes move(Long showtimeId, String from, String to, int count) {
+            int[] delta = deltas.computeIfAbsent(showtimeId, id -> new int[2]);
+            add(delta, from, -count);
+            add(delta, to, count);
+            return this;
+        }
+
+        private static void add(int[] delta, String status, int count) {
+            if (status == null) {
+                return;
+            }
+            String upper = status.toUpperCase();
+            if (SOLD_TICKET_STATUSES.contains(upper)) {
+                delta[0] += count;
+            } else if (HELD_TICKET_STATUSES.contains(upper)) {
+                delta[1] += count;
+            }
+        }
+    }
+}
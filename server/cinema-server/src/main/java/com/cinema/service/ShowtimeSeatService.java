@@ -1,7 +1,16 @@
 package com.cinema.service;
 
+import com.cinema.dto.SeatMapDeltaDTO;
 import com.cinema.dto.ShowtimeSeatInfoDTO;
 
+import java.util.Optional;
+
 public interface ShowtimeSeatService {
     ShowtimeSeatInfoDTO getShowtimeSeatInfo(Long showtimeId);
+
+    // Phiên bản hiện tại của sơ đồ ghế, để trả 304 mà không phải dựng lại sơ đồ
+    long getSeatMapVersion(Long showtimeId);
+
+    // Rỗng nếu không còn đủ lịch sử thay đổi; khi đó client cần cả sơ đồ
+    Optional<SeatMapDeltaDTO> getSeatMapDelta(Long showtimeId, long sinceVersion);
 }
\ No newline at end of file
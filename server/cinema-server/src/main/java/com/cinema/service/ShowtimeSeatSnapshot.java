@@ -0,0 +1,52 @@
+package com.cinema.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ảnh chụp bất biến trạng thái ghế của một suất chiếu.
+ * Mảng {@code states} được đánh chỉ số theo vị trí ghế trong {@link SeatLayout}
+ * và không bao giờ bị sửa sau khi công bố; mỗi thay đổi tạo ra một ảnh chụp mới với {@code version} lớn hơn.
+ */
+public record ShowtimeSeatSnapshot(
+        Long showtimeId,
+        Long movieId,
+        String movieTitle,
+        LocalDateTime startsAt,
+        LocalDateTime endsAt,
+        BigDecimal basePrice,
+        Long roomId,
+        String roomName,
+        Integer totalRows,
+        Integer seatsPerRow,
+        SeatLayout layout,
+        byte[] states,
+        long version
+) {
+
+    public boolean isBooked(int position) {
+        return states[position] != SeatStateEngine.AVAILABLE;
+    }
+
+    /**
+     * Tỷ lệ ghế đã có chủ (đã bán hoặc đang giữ), làm tròn xuống, từ 0 đến 100.
+     */
+    public int occupancyPercent() {
+        return states.length == 0 ? 0 : occupiedCount() * 100 / states.length;
+    }
+
+    public int occupiedCount() {
+        int taken = 0;
+        for (byte state : states) {
+            if (state != SeatStateEngine.AVAILABLE) {
+                taken++;
+            }
+        }
+        return taken;
+    }
+
+    ShowtimeSeatSnapshot withStates(byte[] nextStates, long nextVersion) {
+        return new ShowtimeSeatSnapshot(showtimeId, movieId, movieTitle, startsAt, endsAt, basePrice,
+                roomId, roomName, totalRows, seatsPerRow, layout, nextStates, nextVersion);
+    }
+}
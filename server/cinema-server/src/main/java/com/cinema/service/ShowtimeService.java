@@ -1,15 +1,28 @@
 package com.cinema.service;
 
+import com.cinema.dto.FreeSlotDTO;
+import com.cinema.dto.ScheduleGenerationResultDTO;
+import com.cinema.dto.ScheduleTemplateDTO;
 import com.cinema.dto.ShowtimeDetailResponse;
 import com.cinema.dto.ShowtimeDto;
+import com.cinema.dto.ShowtimePageDTO;
+import com.cinema.dto.ShowtimeSeatCountDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
 public interface ShowtimeService {
     ShowtimeDto create(ShowtimeDto dto);
+    ScheduleGenerationResultDTO generateSchedule(ScheduleTemplateDTO template);
     ShowtimeDto update(Long id, ShowtimeDto dto);
     ShowtimeDto getById(Long id);
     Page<ShowtimeDto> list(Pageable pageable);
+    ShowtimePageDTO search(LocalDate from, LocalDate to, Long movieId, Long roomId, String cursor, int size);
     void delete(Long id);
+    List<FreeSlotDTO> findFreeSlots(Long roomId, LocalDate from, LocalDate to, int minMinutes);
     ShowtimeDetailResponse getShowtimeDetails(Long showtimeId);   
+    List<ShowtimeSeatCountDTO> getSeatCounts(Collection<Long> showtimeIds);
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.cinema.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sinh mã vé duy nhất, ngắn và dễ gõ tại quầy, ví dụ {@code TKT-0J8ZK3M-9QW2X7B}.
+ *
+ * Giá trị 63 bit gồm: 41 bit mili giây kể từ 2024-01-01, 10 bit node id, 12 bit số thứ tự trong cùng
+ * mili giây. Node id khác nhau nên các node không bao giờ sinh trùng mã, không cần hỏi DB.
+ * Thời gian + số thứ tự được cập nhật bằng một CAS trên một AtomicLong nên không có khóa.
+ *
+ * Mã được mã hóa Crockford Base32 (không có I, L, O, U), thêm một ký tự kiểm tra Luhn mod 32
+ * để phát hiện gõ sai một ký tự hoặc đảo hai ký tự kề nhau.
+ */
+@Service
+public class TicketCodeGenerator {
+
+    public static final String PREFIX = "TKT-";
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int[] VALUES = new int[128];
+
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int VALUE_CHARS = 13; // 63 bit / 5 bit
+    private static final int GROUP_SIZE = 7;
+
+    static {
+        java.util.Arrays.fill(VALUES, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = i;
+            VALUES[Character.toLowerCase(ALPHABET[i])] = i;
+        }
+        // Các ký tự dễ nhầm khi đọc / gõ
+        VALUES['O'] = VALUES['o'] = 0;
+        VALUES['I'] = VALUES['i'] = VALUES['L'] = VALUES['l'] = 1;
+    }
+
+    private final long nodeId;
+    // (thời gian << SEQUENCE_BITS) | số thứ tự của mã được cấp gần nhất
+    private final AtomicLong state = new AtomicLong();
+
+    public TicketCodeGenerator(@Value("${cinema.ticket-code.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("cinema.ticket-code.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    public String next() {
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long prevTime = prev >>> SEQUENCE_BITS;
+            if (now > prevTime) {
+                next = now << SEQUENCE_BITS;
+            } else if ((prev & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = prev + 1;
+            } else {
+                // Hết số thứ tự trong mili giây (hoặc đồng hồ lùi): mượn mili giây kế tiếp
+                next = (prevTime + 1) << SEQUENCE_BITS;
+            }
+        } while (!state.compareAndSet(prev, next));
+
+        long time = next >>> SEQUENCE_BITS;
+        long sequence = next & SEQUENCE_MASK;
+        return encode((time << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence);
+    }
+
+    /**
+     * Chuẩn hóa mã do nhân viên gõ: bỏ tiền tố, dấu gạch, khoảng trắng; chữ thường và ký tự dễ nhầm
+     * (O → 0, I/L → 1) được chấp nhận.
+     *
+     * @return mã ở dạng chuẩn, hoặc null nếu sai định dạng / sai ký tự kiểm tra
+     */
+    public static String normalize(String input) {
+        if (input == null) {
+            return null;
+        }
+        String raw = input.trim();
+        if (raw.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            raw = raw.substring(PREFIX.length());
+        }
+
+        int[] digits = new int[VALUE_CHARS + 1];
+        int count = 0;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            int v = c < 128 ? VALUES[c] : -1;
+            if (v < 0 || count == digits.length) {
+                return null;
+            }
+            digits[count++] = v;
+        }
+        if (count != digits.length || checkDigit(digits, VALUE_CHARS) != digits[VALUE_CHARS]) {
+            return null;
+        }
+
+        char[] chars = new char[VALUE_CHARS + 1];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET[digits[i]];
+        }
+        return format(chars);
+    }
+
+    private static String encode(long value) {
+        int[] digits = new int[VALUE_CHARS + 1];
+        for (int i = VALUE_CHARS - 1; i >= 0; i--) {
+            digits[i] = (int) (value & 31);
+            value >>>= 5;
+        }
+        digits[VALUE_CHARS] = checkDigit(digits, VALUE_CHARS);
+
+        char[] chars = new char[VALUE_CHARS + 1];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET[digits[i]];
+        }
+        return format(chars);
+    }
+
+    private static String format(char[] chars) {
+        StringBuilder sb = new StringBuilder(PREFIX.length() + chars.length + 1);
+        sb.append(PREFIX).append(chars, 0, GROUP_SIZE).append('-').append(chars, GROUP_SIZE, chars.length - GROUP_SIZE);
+        return sb.toString();
+    }
+
+    // Luhn mod 32 trên các chữ số base32
+    private static int checkDigit(int[] digits, int length) {
+        int factor = 2;
+        int sum = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            int addend = factor * digits[i];
+            factor = factor == 2 ? 1 : 2;
+            sum += addend / 32 + addend % 32;
+        }
+        return (32 - sum % 32) % 32;
+    }
+}
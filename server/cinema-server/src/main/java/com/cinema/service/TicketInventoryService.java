@@ -0,0 +1,154 @@
+package com.cinema.service;
+
+import com.cinema.model.Seat;
+import com.cinema.model.Showtime;
+import com.cinema.model.Ticket;
+import com.cinema.repository.OrderTicketRef;
+import com.cinema.repository.SeatRepository;
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.TicketRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Kho vé sinh sẵn của suất chiếu: mỗi ghế trong phòng có sẵn một vé AVAILABLE,
+ * nên đặt vé chỉ còn là UPDATE trên các dòng đã có.
+ * Mọi thao tác ghi đều là lệnh batch / lệnh theo tập, không phụ thuộc số ghế.
+ */
+@Service
+@RequiredArgsConstructor
+public class TicketInventoryService {
+
+    private final TicketRepository ticketRepository;
+    private final SeatRepository seatRepository;
+    private final ShowtimeRepository showtimeRepository;
+    private final PricingEngine pricingEngine;
+    private final ShowtimeLockManager showtimeLockManager;
+    private final ShowtimeSeatCounters seatCounters;
+    private final SeatStateEngine seatStateEngine;
+
+    /**
+     * Sinh vé AVAILABLE cho mọi ghế chưa có vé của suất chiếu.
+     */
+    public void generate(Showtime showtime) {
+        ticketRepository.batchInsert(buildTickets(showtime));
+    }
+
+    /**
+     * Sinh vé cho nhiều suất chiếu mới trong một lệnh batch; sơ đồ ghế của mỗi phòng chỉ đọc một lần.
+     */
+    public void generate(List<Showtime> showtimes) {
+        Map<Long, List<Seat>> seatsByRoom = new HashMap<>();
+        Map<Long, SeatLayout> layoutsByRoom = new HashMap<>();
+        List<Ticket> tickets = new ArrayList<>();
+        for (Showtime showtime : showtimes) {
+            Long roomId = showtime.getRoom().getId();
+            List<Seat> seats = seatsByRoom.computeIfAbsent(roomId, seatRepository::findByRoomId);
+            SeatLayout layout = layoutsByRoom.computeIfAbsent(roomId, id -> SeatLayout.of(seats));
+            tickets.addAll(buildTickets(showtime, seats, layout));
+        }
+        ticketRepository.batchInsert(tickets);
+    }
+
+    /**
+     * Tính lại giá các vé còn trống, ví dụ khi đổi giá gốc hoặc loại ghế.
+     */
+    public void reprice(Showtime showtime) {
+        ticketRepository.batchUpdateAvailablePrice(buildTickets(showtime));
+    }
+
+    /**
+     * Khóa các suất chiếu có vé của đơn tới hết transaction. Gọi trước khi đọc lại đơn (kèm khóa dòng) để kiểm tra
+     * trạng thái: cùng thứ tự khóa với luồng đặt vé và luồng thanh toán nền (khóa suất chiếu trước, dòng DB sau).
+     */
+    public void lockOrderShowtimes(Long orderId) {
+        showtimeLockManager.lockAllForTransaction(ticketRepository.findShowtimeIdsByOrderId(orderId));
+    }
+
+    /**
+     * Trả các vé đơn còn sở hữu về AVAILABLE, sau {@link #lockOrderShowtimes} trong cùng transaction.
+     * Vé được đọc lại kèm khóa dòng rồi cập nhật có điều kiện, nên bộ đếm ghế và bộ nhớ trạng thái ghế chỉ đổi
+     * theo những vé thực sự được trả, kể cả khi hai lượt hủy cùng một đơn chạy đồng thời.
+     *
+     * @return số vé được trả
+     */
+    public int releaseOrder(Long orderId) {
+        List<OrderTicketRef> owned = ticketRepository.lockOwnedByOrderId(orderId);
+        if (owned.isEmpty()) {
+            return 0;
+        }
+        int released = ticketRepository.releaseOwned(orderId,
+                owned.stream().map(OrderTicketRef::ticketId).toList(), LocalDateTime.now());
+        if (released != owned.size()) {
+            throw new IllegalStateException("Tickets of order " + orderId + " changed while locked");
+        }
+
+        ShowtimeSeatCounters.Changes counterChanges = seatCounters.changes();
+        owned.forEach(ticket -> counterChanges.move(ticket.showtimeId(), ticket.status(), "AVAILABLE", 1));
+        seatCounters.apply(counterChanges);
+        owned.stream()
+                .collect(Collectors.groupingBy(OrderTicketRef::showtimeId,
+                        Collectors.mapping(OrderTicketRef::seatId, Collectors.toList())))
+                .forEach(seatStateEngine::markAvailable);
+        return released;
+    }
+
+    /**
+     * Xóa các vé còn trống của suất chiếu, kể cả vé đã được trả lại (đơn đã hủy mất liên kết tới các vé này).
+     *
+     * @return true nếu suất chiếu không còn vé nào (không có vé đang bán / đã bán)
+     */
+    public boolean removeUnsold(Long showtimeId) {
+        ticketRepository.unlinkUnsoldByShowtimeId(showtimeId);
+        ticketRepository.deleteUnsoldByShowtimeId(showtimeId);
+        return !ticketRepository.existsByShowtime_Id(showtimeId);
+    }
+
+    /**
+     * Xóa vé chưa bán của mọi suất chiếu trong phòng, trước khi sơ đồ ghế của phòng bị tạo lại.
+     */
+    public void removeUnsoldForRoom(Long roomId) {
+        ticketRepository.unlinkUnsoldByRoomId(roomId);
+        ticketRepository.deleteUnsoldByRoomId(roomId);
+    }
+
+    /**
+     * Đồng bộ kho vé của các suất chiếu sắp tới trong phòng sau khi sơ đồ ghế thay đổi:
+     * bổ sung vé cho ghế mới và tính lại giá vé còn trống.
+     */
+    public void syncRoom(Long roomId) {
+        for (Showtime showtime : showtimeRepository.findByRoomIdAndStartsAtAfter(roomId, LocalDateTime.now())) {
+            List<Ticket> tickets = buildTickets(showtime);
+            ticketRepository.batchInsert(tickets);
+            ticketRepository.batchUpdateAvailablePrice(tickets);
+        }
+    }
+
+    private List<Ticket> buildTickets(Showtime showtime) {
+        List<Seat> seats = seatRepository.findByRoomId(showtime.getRoom().getId());
+        return buildTickets(showtime, seats, SeatLayout.of(seats));
+    }
+
+    private List<Ticket> buildTickets(Showtime showtime, List<Seat> seats, SeatLayout layout) {
+        // Giá lưu sẵn là giá chưa tăng theo nhu cầu; lúc đặt vé giá được lấy lại từ bảng giá
+        PriceTable prices = pricingEngine.compile(showtime.getBasePrice(), showtime.getStartsAt(),
+                showtime.getRoom().getId(), layout);
+        List<Ticket> tickets = new ArrayList<>(seats.size());
+        for (Seat seat : seats) {
+            Ticket ticket = new Ticket();
+            ticket.setShowtime(showtime);
+            ticket.setSeat(seat);
+            ticket.setPrice(prices.basePriceAt(layout.positionOf(seat.getId())));
+            ticket.setStatus("AVAILABLE");
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+}
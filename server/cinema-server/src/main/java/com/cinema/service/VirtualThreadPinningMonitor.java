@@ -0,0 +1,103 @@
+package com.cinema.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Phát hiện virtual thread bị ghim vào luồng mang (carrier) khi chặn bên trong {@code synchronized} hoặc native frame.
+ *
+ * Đọc sự kiện JFR {@code jdk.VirtualThreadPinned} ngay trong tiến trình: mỗi lần bị ghim lâu hơn ngưỡng được đếm
+ * vào metric {@code cinema.virtual_threads.pinned} theo vị trí trong code, và mỗi vị trí được log kèm stack trace
+ * ở lần đầu tiên.
+ */
+@Component
+@ConditionalOnProperty(name = "cinema.virtual-threads.pinning-monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+
+    private final Set<String> reportedLocations = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${cinema.virtual-threads.pinning-monitor.threshold:PT0.02S}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        logger.info("Đang theo dõi virtual thread bị ghim lâu hơn {} ms", threshold.toMillis());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        String location = location(frames);
+        meterRegistry.counter("cinema.virtual_threads.pinned", "location", location).increment();
+        meterRegistry.timer("cinema.virtual_threads.pinned.duration").record(event.getDuration());
+
+        if (reportedLocations.add(location)) {
+            logger.warn("Virtual thread bị ghim {} ms tại {}:\n    {}", event.getDuration().toMillis(), location,
+                    frames.stream().limit(LOGGED_FRAMES).map(VirtualThreadPinningMonitor::describe)
+                            .collect(Collectors.joining("\n    ")));
+        }
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        return stackTrace != null ? stackTrace.getFrames() : List.of();
+    }
+
+    // Khung đầu tiên thuộc code của mình; không có thì lấy khung trên cùng (thư viện)
+    private static String location(List<RecordedFrame> frames) {
+        RecordedFrame top = null;
+        for (RecordedFrame frame : frames) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            if (top == null) {
+                top = frame;
+            }
+            if (frame.getMethod().getType().getName().startsWith("com.cinema.")) {
+                return describe(frame);
+            }
+        }
+        return top != null ? describe(top) : "unknown";
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.cinema.service;
+
+import com.cinema.dto.QueueStatusDTO;
+import com.cinema.dto.WaitingRoomStatsDTO;
+import com.cinema.exception.QueueAdmissionRequiredException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Phòng chờ ảo cho các đợt mở bán lớn.
+ *
+ * Khi admin mở phòng chờ cho một suất chiếu, khách phải lấy số thứ tự trước khi vào luồng chọn ghế /
+ * đặt vé. Mỗi giây một lượng khách cố định được cho vào, nên tải lên DB và thread pool bị chặn trên,
+ * còn khách đang chờ chỉ gọi endpoint hỏi vị trí rất nhẹ (không chạm DB).
+ * Suất chiếu không mở phòng chờ thì không bị ảnh hưởng gì.
+ */
+@Service
+public class WaitingRoomService {
+
+    public static final String TOKEN_HEADER = "X-Queue-Token";
+
+    private static final String WAITING = "WAITING";
+    private static final String ADMITTED = "ADMITTED";
+
+    private final int defaultAdmitPerSecond;
+    private final Duration admissionTtl;
+    private final Duration abandonAfter;
+    private final int pollAfterSeconds;
+
+    private final ConcurrentMap<Long, ShowtimeQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, QueueTicket> tickets = new ConcurrentHashMap<>();
+
+    public WaitingRoomService(@Value("${cinema.waiting-room.admit-per-second:50}") int defaultAdmitPerSecond,
+                              @Value("${cinema.waiting-room.admission-ttl:PT15M}") Duration admissionTtl,
+                              @Value("${cinema.waiting-room.abandon-after:PT2M}") Duration abandonAfter,
+                              @Value("${cinema.waiting-room.poll-after-seconds:5}") int pollAfterSeconds) {
+        this.defaultAdmitPerSecond = defaultAdmitPerSecond;
+        this.admissionTtl = admissionTtl;
+        this.abandonAfter = abandonAfter;
+        this.pollAfterSeconds = pollAfterSeconds;
+    }
+
+    public void open(Long showtimeId, Integer admitPerSecond) {
+        int rate = admitPerSecond != null && admitPerSecond > 0 ? admitPerSecond : defaultAdmitPerSecond;
+        queues.compute(showtimeId, (id, existing) -> {
+            if (existing == null) {
+                return new ShowtimeQueue(rate);
+            }
+            existing.admitPerSecond = rate;
+            return existing;
+        });
+    }
+
+    public void close(Long showtimeId) {
+        if (queues.remove(showtimeId) != null) {
+            tickets.values().removeIf(ticket -> ticket.showtimeId.equals(showtimeId));
+        }
+    }
+
+    public boolean isActive(Long showtimeId) {
+        return queues.containsKey(showtimeId);
+    }
+
+    public QueueStatusDTO join(Long showtimeId) {
+        ShowtimeQueue queue = queues.get(showtimeId);
+        if (queue == null) {
+            // Không mở phòng chờ: vào thẳng, không cần token
+            return QueueStatusDTO.builder()
+                    .showtimeId(showtimeId)
+                    .status(ADMITTED)
+                    .build();
+        }
+
+        QueueTicket ticket = new QueueTicket(showtimeId, queue.issued.incrementAndGet(), Instant.now());
+        String token = UUID.randomUUID().toString();
+        tickets.put(token, ticket);
+        return toStatus(token, ticket, queue);
+    }
+
+    public QueueStatusDTO status(Long showtimeId, String token) {
+        ShowtimeQueue queue = queues.get(showtimeId);
+        QueueTicket ticket = tickets.get(token);
+        if (queue == null || ticket == null || !ticket.showtimeId.equals(showtimeId)) {
+            throw new QueueAdmissionRequiredException(showtimeId, "unknown or expired queue token");
+        }
+        ticket.lastSeen = Instant.now();
+        return toStatus(token, ticket, queue);
+    }
+
+    /**
+     * Chặn request vào luồng đặt vé nếu suất chiếu đang mở phòng chờ và token chưa đến lượt.
+     */
+    public void requireAdmission(Long showtimeId, String token) {
+        ShowtimeQueue queue = queues.get(showtimeId);
+        if (queue == null) {
+            return;
+        }
+        QueueTicket ticket = token != null ? tickets.get(token) : null;
+        if (ticket == null || !ticket.showtimeId.equals(showtimeId)) {
+            throw new QueueAdmissionRequiredException(showtimeId, "join the queue first");
+        }
+        if (ticket.number > queue.admittedUpTo) {
+            throw new QueueAdmissionRequiredException(showtimeId, "not admitted yet");
+        }
+
+        Instant now = Instant.now();
+        Instant admittedAt = ticket.admitted(now);
+        if (admittedAt.plus(admissionTtl).isBefore(now)) {
+            tickets.remove(token, ticket);
+            throw new QueueAdmissionRequiredException(showtimeId, "admission expired");
+        }
+        ticket.lastSeen = now;
+    }
+
+    public List<WaitingRoomStatsDTO> getStats() {
+        List<WaitingRoomStatsDTO> result = new ArrayList<>(queues.size());
+        queues.forEach((showtimeId, queue) -> {
+            long issued = queue.issued.get();
+            long admitted = Math.min(issued, queue.admittedUpTo);
+            result.add(WaitingRoomStatsDTO.builder()
+                    .showtimeId(showtimeId)
+                    .admitPerSecond(queue.admitPerSecond)
+                    .issued(issued)
+                    .admitted(admitted)
+                    .waiting(issued - admitted)
+                    .build());
+        });
+        result.sort(Comparator.comparing(WaitingRoomStatsDTO::getShowtimeId));
+        return result;
+    }
+
+    // Mỗi giây nâng mốc cho vào của từng hàng chờ và dọn các token bị bỏ / hết hạn
+    @Scheduled(fixedRate = 1000)
+    public void admit() {
+        queues.values().forEach(queue ->
+                queue.admittedUpTo = Math.min(queue.issued.get(), queue.admittedUpTo + queue.admitPerSecond));
+
+        Instant now = Instant.now();
+        Instant abandonedBefore = now.minus(abandonAfter);
+        Instant admissionStartedBefore = now.minus(admissionTtl);
+        tickets.values().removeIf(ticket -> {
+            ShowtimeQueue queue = queues.get(ticket.showtimeId);
+            if (queue == null) {
+                return true;
+            }
+            Instant admittedAt = ticket.admittedAt;
+            if (admittedAt != null) {
+                return admittedAt.isBefore(admissionStartedBefore);
+            }
+            return ticket.number > queue.admittedUpTo && ticket.lastSeen.isBefore(abandonedBefore);
+        });
+    }
+
+    private QueueStatusDTO toStatus(String token, QueueTicket ticket, ShowtimeQueue queue) {
+        long position = Math.max(0, ticket.number - queue.admittedUpTo);
+        QueueStatusDTO.QueueStatusDTOBuilder builder = QueueStatusDTO.builder()
+                .token(token)
+                .showtimeId(ticket.showtimeId);
+        if (position > 0) {
+            return builder.status(WAITING)
+                    .position(position)
+                    .estimatedWaitSeconds((position + queue.admitPerSecond - 1) / queue.admitPerSecond)
+                    .pollAfterSeconds(pollAfterSeconds)
+                    .build();
+        }
+        return builder.status(ADMITTED)
+                .admittedUntil(ticket.admitted(Instant.now()).plus(admissionTtl))
+                .build();
+    }
+
+    private static final class ShowtimeQueue {
+        private final AtomicLong issued = new AtomicLong();
+        // Chỉ luồng admit() ghi, các luồng request chỉ đọc
+        private volatile long admittedUpTo;
+        private volatile int admitPerSecond;
+
+        private ShowtimeQueue(int admitPerSecond) {
+            this.admitPerSecond = admitPerSecond;
+        }
+    }
+
+    private static final class QueueTicket {
+        private final Long showtimeId;
+        private final long number;
+        private volatile Instant lastSeen;
+        private volatile Instant admittedAt;
+
+        private QueueTicket(Long showtimeId, long number, Instant now) {
+            this.showtimeId = showtimeId;
+            this.number = number;
+            this.lastSeen = now;
+        }
+
+        // Thời gian vào được tính từ lần đầu khách thấy mình đã đến lượt
+        private Instant admitted(Instant now) {
+            Instant at = admittedAt;
+            if (at == null) {
+                at = now;
+                admittedAt = now;
+            }
+            return at;
+        }
+    }
+}
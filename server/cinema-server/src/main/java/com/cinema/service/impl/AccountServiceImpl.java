@@ -5,11 +5,13 @@ import com.cinema.dto.UserProfileDTO;
 import com.cinema.exception.NotFoundException;
 import com.cinema.model.Order;
 import com.cinema.model.Showtime; // Cần import
+import com.cinema.model.Ticket;
 import com.cinema.model.User;
 import com.cinema.repository.OrderRepository;
 import com.cinema.repository.TicketRepository;
 import com.cinema.repository.UserRepository;
 import com.cinema.service.AccountService;
+import com.cinema.service.TicketInventoryService;
 
 
 import org.springframework.transaction.annotation.Transactional; 
@@ -29,9 +31,12 @@ public class AccountServiceImpl implements AccountService {
     private final OrderRepository orderRepository;
     // Add to the existing field declarations
 private final TicketRepository ticketRepository;
+    private final TicketInventoryService ticketInventoryService;
     // Định dạng ngày giờ theo DTO
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    // Đơn đã hủy / hoàn tiền không còn ghế để trả
+    private static final List<String> RELEASED_ORDER_STATUSES = List.of("CANCELED", "CANCELLED", "REFUNDED");
 
     @Override
     @Transactional(readOnly = true) 
@@ -56,20 +61,24 @@ private final TicketRepository ticketRepository;
     @Override
 @Transactional 
 public void cancelBooking(Long bookingId, Long userId) {
-    Order order = orderRepository.findById(bookingId)
+    // Khóa suất chiếu trước rồi mới đọc đơn (kèm khóa dòng): trạng thái được kiểm tra trên dữ liệu mới nhất
+    ticketInventoryService.lockOrderShowtimes(bookingId);
+    Order order = orderRepository.findByIdForUpdate(bookingId)
             .orElseThrow(() -> new NotFoundException("Order not found with ID: " + bookingId));
 
     if (!order.getUser().getId().equals(userId)) {
         throw new SecurityException("Access denied: Order does not belong to user.");
     }
 
+    if (RELEASED_ORDER_STATUSES.contains(order.getStatus().toUpperCase())) {
+        throw new IllegalStateException("Order " + bookingId + " is already " + order.getStatus());
+    }
+
     order.setStatus("CANCELED");
     orderRepository.save(order);
-    // Use the instance variable instead of the class name
-    order.getTickets().forEach(ticket -> {
-        ticket.setStatus("AVAILABLE");
-        ticketRepository.save(ticket);  // Fixed: Using instance variable
-    });
+    // Vé sinh sẵn được dùng lại cho người mua sau, còn order_tickets của đơn cũ vẫn trỏ tới: chỉ trả những vé
+    // mà đơn này còn sở hữu
+    ticketInventoryService.releaseOrder(bookingId);
 }
 
     // Hàm Ánh xạ dữ liệu (Mapper)
@@ -2,20 +2,33 @@ package com.cinema.service.impl;
 
 import com.cinema.dto.BookingRequestDTO;
 import com.cinema.dto.BookingResponseDTO;
+import com.cinema.exception.SeatUnavailableException;
 import com.cinema.model.*;
 import com.cinema.repository.*;
 import com.cinema.service.BookingService; 
+import com.cinema.service.PriceTable;
+import com.cinema.service.PricingEngine;
+import com.cinema.service.SeatHold;
+import com.cinema.service.RoomSeatIndex;
+import com.cinema.service.SeatHoldService;
+import com.cinema.service.SeatLayout;
+import com.cinema.service.SeatStateEngine;
+import com.cinema.service.ShowtimeLockManager;
+import com.cinema.service.ShowtimeSeatCounters;
+import com.cinema.service.ShowtimeSeatSnapshot;
+import com.cinema.service.TicketCodeGenerator;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -27,10 +40,17 @@ public class BookingServiceImpl implements BookingService {
     private final OrderRepository orderRepository; 
     private final UserRepository userRepository; 
     private final TransactionRepository transactionRepository;
+    private final SeatStateEngine seatStateEngine;
+    private final SeatHoldService seatHoldService;
+    private final ShowtimeLockManager showtimeLockManager;
+    private final RoomSeatIndex roomSeatIndex;
+    private final TicketCodeGenerator ticketCodeGenerator;
+    private final PricingEngine pricingEngine;
+    private final ShowtimeSeatCounters seatCounters;
+    private final TransactionTemplate transactionTemplate;
 
 
     @Override
-    @Transactional
     public BookingResponseDTO createBooking(Long userId, BookingRequestDTO request) { 
 
         // Lấy User từ tham số (userId được lấy từ DTO hoặc Principal ở Controller)
@@ -38,6 +58,13 @@ public class BookingServiceImpl implements BookingService {
             throw new IllegalArgumentException("User ID is required to create a booking.");
         }
 
+        // Xếp hàng các lượt đặt vé cùng suất chiếu trong bộ nhớ trước khi mở transaction: lượt đang chờ không giữ
+        // kết nối DB. Khóa được giữ tới khi transaction commit / rollback xong.
+        return showtimeLockManager.callWithLock(request.getShowtimeId(),
+                () -> transactionTemplate.execute(status -> book(userId, request)));
+    }
+
+    private BookingResponseDTO book(Long userId, BookingRequestDTO request) {
         User currentUser = userRepository.findById(userId)
             .orElseThrow(() -> new EntityNotFoundException("User not found with ID: " + userId));
 
@@ -46,8 +73,18 @@ public class BookingServiceImpl implements BookingService {
             .orElseThrow(() -> new EntityNotFoundException("Showtime not found: " + request.getShowtimeId()));
         Long roomId = showtime.getRoom().getId();
 
-        List<Ticket> ticketsForOrder = new ArrayList<>();
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        // Khóa ghế trong bộ nhớ trước khi ghi DB: dùng hold đã tạo, hoặc giữ tạm cho riêng lượt đặt này.
+        // Nếu transaction rollback thì ghế được trả lại.
+        List<String> selectedSeats;
+        List<Long> seatIds;
+        if (request.getHoldId() != null && !request.getHoldId().isBlank()) {
+            SeatHold hold = seatHoldService.claim(request.getHoldId(), userId, showtime.getId());
+            selectedSeats = hold.seatCodes();
+            seatIds = hold.seatIds();
+        } else {
+            selectedSeats = request.getSelectedSeats();
+            seatIds = seatHoldService.holdForCheckout(showtime.getId(), selectedSeats);
+        }
 
         // Định nghĩa trạng thái theo phương thức thanh toán
         String nextTicketStatus;
@@ -66,60 +103,106 @@ public class BookingServiceImpl implements BookingService {
             transactionStatus = "PENDING";
         }
 
-        // Lặp qua ghế được chọn
-        for (String seatIdString : request.getSelectedSeats()) {
-            String rowLabel;
-            int seatNumber;
-            try {
-                rowLabel = seatIdString.substring(0, 1).toUpperCase();
-                seatNumber = Integer.parseInt(seatIdString.substring(1));
-            } catch (Exception e) {
-                throw new IllegalArgumentException("Invalid seat identifier format: " + seatIdString);
+        // Số câu lệnh không phụ thuộc số ghế: ghế được tra trong sơ đồ phòng đã cache (không SQL),
+        // một truy vấn IN cho vé đã có, một UPDATE batch chốt giá, một UPDATE có điều kiện cho vé đã có,
+        // một INSERT batch cho vé mới và một INSERT cho bảng nối.
+        SeatLayout layout = roomSeatIndex.get(roomId);
+        for (Long seatId : seatIds) {
+            if (layout.positionOf(seatId) < 0) {
+                throw new IllegalArgumentException("Seat not found in room: " + selectedSeats);
             }
+        }
 
-            Seat seat = seatRepository.findByRoomIdAndRowLabelAndSeatNumber(roomId, rowLabel, seatNumber)
-                    .orElseThrow(() -> new IllegalArgumentException("Seat not found in room: " + seatIdString));
-            Optional<Ticket> existingTicketOpt = ticketRepository.findByShowtime_IdAndSeat_Id(showtime.getId(), seat.getId());
+        // Giá theo quy tắc, với mức lấp đầy trước lượt đặt này (ghế của lượt này đang được giữ trong bộ nhớ)
+        ShowtimeSeatSnapshot snapshot = seatStateEngine.find(showtime.getId())
+                .orElseThrow(() -> new EntityNotFoundException("Showtime not found: " + showtime.getId()));
+        PriceTable prices = snapshot.layout() == layout
+                ? pricingEngine.tableFor(snapshot)
+                : pricingEngine.compile(showtime.getBasePrice(), showtime.getStartsAt(), roomId, layout);
+        int occupancyPercent = layout.size() == 0 ? 0
+                : Math.max(0, snapshot.occupiedCount() - seatIds.size()) * 100 / layout.size();
+
+        Map<Long, Ticket> existingBySeatId = new HashMap<>();
+        for (Ticket ticket : ticketRepository.findByShowtime_IdAndSeat_IdIn(showtime.getId(), seatIds)) {
+            existingBySeatId.put(ticket.getSeat().getId(), ticket);
+        }
 
-            Ticket ticket;
+        List<Long> existingSeatIds = new ArrayList<>();
+        List<Ticket> newTickets = new ArrayList<>();
+        List<Ticket> repriced = new ArrayList<>();
+        List<Long> takenSeatIds = new ArrayList<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
 
-            if (existingTicketOpt.isPresent()) {
-                ticket = existingTicketOpt.get();
-                if (!"AVAILABLE".equalsIgnoreCase(ticket.getStatus())) {
-                    throw new IllegalStateException("Seat " + seatIdString + " is not available.");
+        for (Long seatId : seatIds) {
+            Ticket existing = existingBySeatId.get(seatId);
+            BigDecimal price = prices.priceAt(layout.positionOf(seatId), occupancyPercent);
+
+            if (existing != null) {
+                if (!"AVAILABLE".equalsIgnoreCase(existing.getStatus())) {
+                    takenSeatIds.add(seatId);
+                    continue;
+                }
+                existingSeatIds.add(seatId);
+                if (existing.getPrice() == null || existing.getPrice().compareTo(price) != 0) {
+                    Ticket update = new Ticket();
+                    update.setShowtime(showtime);
+                    update.setSeat(existing.getSeat());
+                    update.setPrice(price);
+                    repriced.add(update);
                 }
+                totalAmount = totalAmount.add(price);
             } else {
-                ticket = new Ticket();
+                // Suất chiếu tạo trước khi có kho vé sinh sẵn: tạo vé mới khi đặt
+                Ticket ticket = new Ticket();
                 ticket.setShowtime(showtime);
-                ticket.setSeat(seat);
-
-                // ✅ Tính giá theo loại ghế
-                BigDecimal ticketPrice = calculateTicketPrice(showtime.getBasePrice(), seat.getType());
-                ticket.setPrice(ticketPrice);
-                ticket.setStatus("AVAILABLE");
+                ticket.setSeat(seatRepository.getReferenceById(seatId));
+                ticket.setPrice(price);
+                ticket.setStatus(nextTicketStatus);
+                newTickets.add(ticket);
+                totalAmount = totalAmount.add(ticket.getPrice());
             }
-
-            ticket.setStatus(nextTicketStatus);
-            ticketsForOrder.add(ticket);
-            totalAmount = totalAmount.add(ticket.getPrice());
+        }
+        // Ghế đã bị bán ở node khác / trước khi nạp vào bộ nhớ: từ chối trước khi ghi gì vào DB
+        if (!takenSeatIds.isEmpty()) {
+            throw seatsTaken(showtime.getId(), takenSeatIds, layout);
         }
 
-        // Tạo Order
+        // Tạo Order (vé được gắn vào order_tickets bằng SQL bên dưới)
         Order newOrder = new Order();
         newOrder.setUser(currentUser);
         newOrder.setTotalAmount(totalAmount);
         newOrder.setStatus(orderStatus);
-        newOrder.setTicketCode("TKT-" + System.currentTimeMillis() + "-" +
-                UUID.randomUUID().toString().substring(0, 4).toUpperCase());
-        newOrder.setTickets(ticketsForOrder);
+        newOrder.setTicketCode(ticketCodeGenerator.next());
 
         Order savedOrder = orderRepository.save(newOrder);
 
-        // Cập nhật vé (Đã lưu trạng thái mới ở đây)
-        for (Ticket ticket : ticketsForOrder) {
-            ticket.setOrder(savedOrder);
-            ticketRepository.save(ticket);
+        // Giành ghế bằng compare-and-set: vé đã có chỉ được nhận khi còn AVAILABLE,
+        // vé mới trùng (showtime, seat) bị bỏ qua thay vì vi phạm uk_showtime_seat
+        int claimed = 0;
+        // Vé sinh sẵn mang giá chưa tăng theo nhu cầu: chốt giá lúc bán trước khi giành ghế
+        ticketRepository.batchUpdateAvailablePrice(repriced);
+        if (!existingSeatIds.isEmpty()) {
+            claimed = ticketRepository.claimAvailable(showtime.getId(), existingSeatIds, savedOrder, nextTicketStatus, LocalDateTime.now());
         }
+        newTickets.forEach(ticket -> ticket.setOrder(savedOrder));
+        ticketRepository.batchInsert(newTickets);
+
+        // Batch insert không trả về số dòng tin cậy khi được gộp, nên chỉ khi có vé mới mới cần đối chiếu lại
+        if (claimed != existingSeatIds.size() || !newTickets.isEmpty()) {
+            Set<Long> owned = ticketRepository.findSeatIdsByOrderIdAndSeatIdIn(savedOrder.getId(), seatIds);
+            for (Long seatId : seatIds) {
+                if (!owned.contains(seatId)) {
+                    takenSeatIds.add(seatId);
+                }
+            }
+            if (!takenSeatIds.isEmpty()) {
+                throw seatsTaken(showtime.getId(), takenSeatIds, layout);
+            }
+        }
+        orderRepository.linkTicketsByOrderId(savedOrder.getId());
+        seatCounters.move(showtime.getId(), "AVAILABLE", nextTicketStatus, seatIds.size());
+
+        seatStateEngine.markBooked(showtime.getId(), seatIds);
 
         // Tạo Transaction
         Transaction transaction = new Transaction();
@@ -135,29 +218,18 @@ public class BookingServiceImpl implements BookingService {
                 .bookingId(savedOrder.getId())
                 .ticketCode(savedOrder.getTicketCode())
                 .status(savedOrder.getStatus())
-                .seats(request.getSelectedSeats())
+                .seats(selectedSeats)
                 .totalAmount(savedOrder.getTotalAmount())
                 .build();
     }
 
-    /**
-     * Tính giá vé theo loại ghế
-     * - STANDARD: 1.0x basePrice
-     * - VIP: 1.25x basePrice
-     * - COUPLE: 2.0x basePrice (ghế đôi cho 2 người)
-     * - DISABLED: 0 (không bán)
-     */
-    private BigDecimal calculateTicketPrice(BigDecimal basePrice, String seatType) {
-        if (seatType == null) {
-            return basePrice;
+    // DB cho biết ghế đã có chủ trong khi bộ nhớ chưa biết: đồng bộ lại để lượt sau bị chặn sớm
+    private SeatUnavailableException seatsTaken(Long showtimeId, List<Long> takenSeatIds, SeatLayout layout) {
+        seatStateEngine.markTaken(showtimeId, takenSeatIds);
+        List<String> codes = new ArrayList<>(takenSeatIds.size());
+        for (Long seatId : takenSeatIds) {
+            codes.add(layout.codeAt(layout.positionOf(seatId)));
         }
-
-        return switch (seatType.toUpperCase()) {
-            case "VIP" -> basePrice.multiply(new BigDecimal("1.25"));
-            case "COUPLE" -> basePrice.multiply(new BigDecimal("2.0"));
-            case "STANDARD" -> basePrice;
-            case "DISABLED" -> BigDecimal.ZERO;
-            default -> basePrice;
-        };
+        return new SeatUnavailableException(codes);
     }
-}
\ No newline at end of file
+}
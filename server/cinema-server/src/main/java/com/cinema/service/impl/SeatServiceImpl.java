@@ -5,9 +5,13 @@ import com.cinema.model.Room;
 import com.cinema.model.Seat;
 import com.cinema.repository.RoomRepository;
 import com.cinema.repository.SeatRepository;
+import com.cinema.service.RoomSeatIndex;
 import com.cinema.service.SeatService;
+import com.cinema.service.SeatStateEngine;
+import com.cinema.service.TicketInventoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -20,7 +24,17 @@ public class SeatServiceImpl implements SeatService {
     @Autowired
     private RoomRepository roomRepository;
 
+    @Autowired
+    private SeatStateEngine seatStateEngine;
+
+    @Autowired
+    private TicketInventoryService ticketInventoryService;
+
+    @Autowired
+    private RoomSeatIndex roomSeatIndex;
+
     @Override
+    @Transactional
     public Seat create(SeatCreateDto dto) {
         Optional<Room> roomOpt = roomRepository.findById(dto.getRoomId());
         if (!roomOpt.isPresent()) {
@@ -34,6 +48,10 @@ public class SeatServiceImpl implements SeatService {
         seat.setSeatNumber(dto.getSeatNumber());
         seat.setType(dto.getSeatType() != null ? dto.getSeatType() : "STANDARD");
 
-        return seatRepository.save(seat);
+        Seat saved = seatRepository.save(seat);
+        ticketInventoryService.syncRoom(room.getId());
+        roomSeatIndex.invalidate(room.getId());
+        seatStateEngine.evictRoom(room.getId());
+        return saved;
     }
 }
\ No newline at end of file
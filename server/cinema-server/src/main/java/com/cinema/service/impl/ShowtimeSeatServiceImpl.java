@@ -1,81 +1,113 @@
 package com.cinema.service.impl;
 
 import com.cinema.dto.SeatDTO;
+import com.cinema.dto.SeatMapDeltaDTO;
 import com.cinema.dto.ShowtimeSeatInfoDTO;
-import com.cinema.model.Room;
-import com.cinema.model.Seat;
-import com.cinema.model.Showtime;
-import com.cinema.repository.SeatRepository;
-import com.cinema.repository.ShowtimeRepository;
-import com.cinema.repository.TicketRepository;
+import com.cinema.service.PriceTable;
+import com.cinema.service.PricingEngine;
+import com.cinema.service.SeatChanges;
+import com.cinema.service.SeatLayout;
+import com.cinema.service.SeatStateEngine;
 import com.cinema.service.ShowtimeSeatService;
+import com.cinema.service.ShowtimeSeatSnapshot;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Service
-@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ShowtimeSeatServiceImpl implements ShowtimeSeatService {
 
-    private final ShowtimeRepository showtimeRepository;
-    private final SeatRepository seatRepository;
-    private final TicketRepository ticketRepository;
-
-    private static final List<String> BOOKED_STATUSES =
-            List.of("BOOKED", "PAID", "PROCESSING", "SOLD");
+    private final SeatStateEngine seatStateEngine;
+    private final PricingEngine pricingEngine;
 
     @Override
     public ShowtimeSeatInfoDTO getShowtimeSeatInfo(Long showtimeId) {
-        Showtime showtime = showtimeRepository.findById(showtimeId)
-                .orElseThrow(() -> new EntityNotFoundException("Suất chiếu không tồn tại: " + showtimeId));
-
-        Room room = showtime.getRoom();
-        List<Seat> allSeatsInRoom = seatRepository.findByRoomId(room.getId());
-        
-        // ********** ĐÃ SỬA LỖI: SỬ DỤNG STREAMS ĐỂ CHUYỂN ĐỔI **********
-        Set<Long> bookedSeatIds = ticketRepository.findByShowtime_IdAndStatusIn(showtimeId, BOOKED_STATUSES)
-                .stream() 
-                .map(ticket -> ticket.getSeat().getId()) // Ánh xạ từ Ticket sang Seat ID
-                .collect(Collectors.toSet()); // Thu thập thành Set<Long>
-        // ***************************************************************
-
-        List<SeatDTO> allSeatDTOs = allSeatsInRoom.stream()
-                .map(seat -> mapToSeatDTO(seat, bookedSeatIds))
-                .collect(Collectors.toList());
+        // Đọc trạng thái ghế từ bộ nhớ, không cần truy vấn DB
+        ShowtimeSeatSnapshot snapshot = findSnapshot(showtimeId);
 
-        List<String> bookedSeatCodes = allSeatsInRoom.stream()
-                .filter(seat -> bookedSeatIds.contains(seat.getId()))
-                .map(seat -> seat.getRowLabel() + seat.getSeatNumber())
-                .collect(Collectors.toList());
+        SeatLayout layout = snapshot.layout();
+        PriceTable prices = pricingEngine.tableFor(snapshot);
+        int occupancyPercent = snapshot.occupancyPercent();
+        List<SeatDTO> allSeatDTOs = new ArrayList<>(layout.size());
+        List<String> bookedSeatCodes = new ArrayList<>();
+        for (int pos = 0; pos < layout.size(); pos++) {
+            boolean booked = snapshot.isBooked(pos);
+            SeatDTO seat = mapToSeatDTO(layout, pos, booked);
+            seat.setPrice(prices.priceAt(pos, occupancyPercent));
+            allSeatDTOs.add(seat);
+            if (booked) {
+                bookedSeatCodes.add(layout.codeAt(pos));
+            }
+        }
 
         return ShowtimeSeatInfoDTO.builder()
-                .showtimeId(showtime.getId())
-                .movieTitle(showtime.getMovie().getTitle())
-                .showDate(showtime.getStartsAt() != null ? showtime.getStartsAt().toLocalDate() : null)
-                .showTime(showtime.getStartsAt() != null ? showtime.getStartsAt().toLocalTime() : null)
-                .pricePerSeat(showtime.getBasePrice())
-                .roomId(room.getId())
-                .roomName(room.getName())
-                .totalRows(room.getTotalRows())
-                .seatsPerRow(room.getSeatsPerRow())
+                .showtimeId(snapshot.showtimeId())
+                .version(snapshot.version())
+                .movieTitle(snapshot.movieTitle())
+                .showDate(snapshot.startsAt() != null ? snapshot.startsAt().toLocalDate() : null)
+                .showTime(snapshot.startsAt() != null ? snapshot.startsAt().toLocalTime() : null)
+                .pricePerSeat(snapshot.basePrice())
+                .roomId(snapshot.roomId())
+                .roomName(snapshot.roomName())
+                .totalRows(snapshot.totalRows())
+                .seatsPerRow(snapshot.seatsPerRow())
                 .allSeats(List.copyOf(allSeatDTOs))
                 .bookedSeatIds(bookedSeatCodes)
                 .build();
     }
 
-    private SeatDTO mapToSeatDTO(Seat seat, Set<Long> bookedSeatIds) {
+    @Override
+    public long getSeatMapVersion(Long showtimeId) {
+        return findSnapshot(showtimeId).version();
+    }
+
+    @Override
+    public Optional<SeatMapDeltaDTO> getSeatMapDelta(Long showtimeId, long sinceVersion) {
+        return seatStateEngine.changesSince(showtimeId, sinceVersion).flatMap(changes -> {
+            ShowtimeSeatSnapshot snapshot = changes.snapshot();
+            PriceTable prices = pricingEngine.tableFor(snapshot);
+            int occupancyPercent = snapshot.occupancyPercent();
+            // Đổi mức giá theo lấp đầy thì giá của mọi ghế đều đổi: trả cả sơ đồ
+            if (prices.tierOf(occupancyPercent) != prices.tierOf(changes.occupancyPercentBefore())) {
+                return Optional.empty();
+            }
+            return Optional.of(toDelta(changes, prices, occupancyPercent));
+        });
+    }
+
+    private SeatMapDeltaDTO toDelta(SeatChanges changes, PriceTable prices, int occupancyPercent) {
+        ShowtimeSeatSnapshot snapshot = changes.snapshot();
+        List<SeatDTO> changedSeats = new ArrayList<>(changes.positions().length);
+        for (int pos : changes.positions()) {
+            SeatDTO seat = mapToSeatDTO(snapshot.layout(), pos, snapshot.isBooked(pos));
+            seat.setPrice(prices.priceAt(pos, occupancyPercent));
+            changedSeats.add(seat);
+        }
+        return SeatMapDeltaDTO.builder()
+                .showtimeId(snapshot.showtimeId())
+                .fromVersion(changes.fromVersion())
+                .version(snapshot.version())
+                .changedSeats(changedSeats)
+                .build();
+    }
+
+    private ShowtimeSeatSnapshot findSnapshot(Long showtimeId) {
+        return seatStateEngine.find(showtimeId)
+                .orElseThrow(() -> new EntityNotFoundException("Suất chiếu không tồn tại: " + showtimeId));
+    }
+
+    private SeatDTO mapToSeatDTO(SeatLayout layout, int pos, boolean booked) {
         SeatDTO dto = new SeatDTO();
-        dto.setId(seat.getId());
-        dto.setRowLabel(seat.getRowLabel());
-        dto.setSeatNumber(seat.getSeatNumber());
-        dto.setType(seat.getType());
-        dto.setBooked(bookedSeatIds.contains(seat.getId()));
+        dto.setId(layout.seatIdAt(pos));
+        dto.setRowLabel(layout.rowLabelAt(pos));
+        dto.setSeatNumber(layout.seatNumberAt(pos));
+        dto.setType(layout.typeAt(pos));
+        dto.setBooked(booked);
         return dto;
     }
-}
\ No newline at end of file
+}
@@ -1,29 +1,54 @@
 package com.cinema.service.impl;
 
+import com.cinema.dto.FreeSlotDTO;
+import com.cinema.dto.ScheduleGenerationResultDTO;
+import com.cinema.dto.ScheduleTemplateDTO;
 import com.cinema.dto.ShowtimeDto;
 import com.cinema.dto.ShowtimeDetailResponse;
+import com.cinema.dto.ShowtimePageDTO;
+import com.cinema.dto.ShowtimeSeatCountDTO;
+import com.cinema.dto.ShowtimeSummaryDTO;
 import com.cinema.dto.SeatResponse; 
 import com.cinema.exception.NotFoundException;
+import com.cinema.exception.ShowtimeConflictException;
 import com.cinema.model.Movie;
 import com.cinema.model.Room;
-import com.cinema.model.Seat;
 import com.cinema.model.Showtime;
-import com.cinema.model.Ticket;
 import com.cinema.repository.MovieRepository;
 import com.cinema.repository.RoomRepository;
 import com.cinema.repository.ShowtimeRepository;
-import com.cinema.repository.SeatRepository; 
-import com.cinema.repository.TicketRepository; 
+import com.cinema.repository.ShowtimeSeatCount;
+import com.cinema.repository.ShowtimeSlot;
+import com.cinema.service.DailyTimetableService;
+import com.cinema.service.PricingEngine;
+import com.cinema.service.RoomScheduleIndex;
+import com.cinema.service.RoomSeatIndex;
+import com.cinema.service.SeatLayout;
+import com.cinema.service.SeatStateEngine;
+import com.cinema.service.ShowtimeCursor;
+import com.cinema.service.ShowtimeSeatSnapshot;
 import com.cinema.service.ShowtimeService;
+import com.cinema.service.TicketInventoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,12 +63,32 @@ public class ShowtimeServiceImpl implements ShowtimeService {
     @Autowired
     private RoomRepository roomRepository;
     @Autowired
-    private SeatRepository seatRepository; 
+    private SeatStateEngine seatStateEngine;
     @Autowired
-    private TicketRepository ticketRepository; 
+    private TicketInventoryService ticketInventoryService;
+    @Autowired
+    private PricingEngine pricingEngine;
+    @Autowired
+    private RoomScheduleIndex roomScheduleIndex;
+    @Autowired
+    private DailyTimetableService dailyTimetable;
+    @Autowired
+    private RoomSeatIndex roomSeatIndex;
+
+    // Giới hạn phạm vi tra khoảng trống
+    private static final int MAX_FREE_SLOT_DAYS = 31;
+
+    // Giới hạn một lần sinh lịch từ mẫu
+    private static final int MAX_TEMPLATE_DAYS = 31;
+    private static final int MAX_GENERATED_SHOWTIMES = 5000;
+
+    // Danh sách suất chiếu theo keyset; mốc khi không lọc theo ngày nằm trong phạm vi DATETIME của MySQL
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
 
-    // Các trạng thái vé được coi là đã bị chiếm
-    private static final List<String> BOOKED_STATUSES = List.of("BOOKED", "SOLD", "PROCESSING");
+    // Số suất chiếu tối đa một lần hỏi số ghế còn trống
+    private static final int MAX_SEAT_COUNT_IDS = 200;
 
     @Override
     public ShowtimeDto create(ShowtimeDto dto) {
@@ -51,6 +96,7 @@ public class ShowtimeServiceImpl implements ShowtimeService {
             .orElseThrow(() -> new NotFoundException("Movie not found: " + dto.getMovieId()));
         Room room = roomRepository.findById(dto.getRoomId())
             .orElseThrow(() -> new NotFoundException("Room not found: " + dto.getRoomId()));
+        validateTimes(dto.getStartsAt(), dto.getEndsAt());
 
         Showtime s = Showtime.builder()
             .movie(movie)
@@ -61,27 +107,144 @@ public class ShowtimeServiceImpl implements ShowtimeService {
             .build();
 
         s = showtimeRepository.save(s);
+        // Chồng giờ thì ném lỗi trước khi sinh vé, transaction rollback
+        roomScheduleIndex.reserve(room.getId(), slotOf(s));
+        ticketInventoryService.generate(s);
+        dailyTimetable.evictDays(List.of(s.getStartsAt()));
         return toDto(s);
     }
     
+    @Override
+    public ScheduleGenerationResultDTO generateSchedule(ScheduleTemplateDTO template) {
+        Movie movie = movieRepository.findById(template.getMovieId())
+            .orElseThrow(() -> new NotFoundException("Movie not found: " + template.getMovieId()));
+        if (movie.getDurationMinutes() == null || movie.getDurationMinutes() <= 0) {
+            throw new IllegalArgumentException("Movie has no duration: " + movie.getId());
+        }
+        LocalDate startDate = template.getStartDate();
+        LocalDate endDate = template.getEndDate();
+        if (endDate.isBefore(startDate) || startDate.plusDays(MAX_TEMPLATE_DAYS).isBefore(endDate)) {
+            throw new IllegalArgumentException("Date range must be 1-" + MAX_TEMPLATE_DAYS + " days: " + startDate + " - " + endDate);
+        }
+        // Một lần đọc cho mọi phòng, giữ thứ tự trong mẫu
+        Map<Long, Room> rooms = new LinkedHashMap<>();
+        for (Long roomId : new LinkedHashSet<>(template.getRoomIds())) {
+            rooms.put(roomId, null);
+        }
+        roomRepository.findAllById(rooms.keySet()).forEach(room -> rooms.put(room.getId(), room));
+        rooms.forEach((roomId, room) -> {
+            if (room == null) throw new NotFoundException("Room not found: " + roomId);
+        });
+
+        Duration length = Duration.ofMinutes(movie.getDurationMinutes());
+        Set<LocalTime> times = new TreeSet<>(template.getTimes());
+        List<Showtime> showtimes = new ArrayList<>();
+        for (Room room : rooms.values()) {
+            for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+                if (template.getDaysOfWeek() != null && !template.getDaysOfWeek().isEmpty()
+                        && !template.getDaysOfWeek().contains(day.getDayOfWeek())) {
+                    continue;
+                }
+                for (LocalTime time : times) {
+                    LocalDateTime startsAt = day.atTime(time);
+                    showtimes.add(Showtime.builder()
+                        .movie(movie)
+                        .room(room)
+                        .startsAt(startsAt)
+                        .endsAt(startsAt.plus(length))
+                        .basePrice(template.getBasePrice())
+                        .build());
+                }
+            }
+        }
+        if (showtimes.size() > MAX_GENERATED_SHOWTIMES) {
+            throw new IllegalArgumentException("Template expands to " + showtimes.size()
+                    + " showtimes, limit is " + MAX_GENERATED_SHOWTIMES);
+        }
+
+        // Kiểm tra chồng giờ trong bộ nhớ trước khi chạm DB (id tạm là số âm), rồi ghi thật sau khi có id
+        Map<Long, List<Showtime>> byRoom = new LinkedHashMap<>();
+        showtimes.forEach(st -> byRoom.computeIfAbsent(st.getRoom().getId(), id -> new ArrayList<>()).add(st));
+        long draftId = 0;
+        for (Map.Entry<Long, List<Showtime>> entry : byRoom.entrySet()) {
+            List<ShowtimeSlot> drafts = new ArrayList<>(entry.getValue().size());
+            for (Showtime st : entry.getValue()) {
+                drafts.add(new ShowtimeSlot(--draftId, movie.getId(), st.getStartsAt(), st.getEndsAt()));
+            }
+            try {
+                roomScheduleIndex.checkAll(entry.getKey(), drafts);
+            } catch (ShowtimeConflictException e) {
+                if (e.getConflictingShowtimeId() >= 0) throw e;
+                // Chồng với chính một suất khác của mẫu: giờ chiếu quá sát nhau so với thời lượng phim
+                throw new IllegalArgumentException("Template time slots overlap each other (movie runs "
+                        + movie.getDurationMinutes() + " min): " + times);
+            }
+        }
+
+        showtimeRepository.batchInsert(showtimes);
+        // Lô khác có thể chen vào giữa lúc kiểm tra và lúc chèn: ghi thật vẫn kiểm tra lại, lỗi thì rollback cả lô
+        byRoom.forEach((roomId, roomShowtimes) -> roomScheduleIndex.reserveAll(roomId,
+                roomShowtimes.stream().map(ShowtimeServiceImpl::slotOf).toList()));
+        ticketInventoryService.generate(showtimes);
+        dailyTimetable.evictDays(showtimes.stream().map(Showtime::getStartsAt).toList());
+
+        List<ShowtimeSummaryDTO> created = showtimes.stream()
+            .map(st -> ShowtimeSummaryDTO.builder()
+                .id(st.getId())
+                .movieId(movie.getId())
+                .movieTitle(movie.getTitle())
+                .roomId(st.getRoom().getId())
+                .roomName(st.getRoom().getName())
+                .startsAt(st.getStartsAt())
+                .endsAt(st.getEndsAt())
+                .basePrice(st.getBasePrice())
+                .build())
+            .toList();
+        return ScheduleGenerationResultDTO.builder().created(created.size()).showtimes(created).build();
+    }
+
     @Override
     public ShowtimeDto update(Long id, ShowtimeDto dto) {
         Showtime s = showtimeRepository.findById(id).orElseThrow(() -> new NotFoundException("Showtime not found: " + id));
+        Long previousRoomId = s.getRoom().getId();
+        ShowtimeSlot previousSlot = slotOf(s);
         if (dto.getMovieId() != null) {
             Movie movie = movieRepository.findById(dto.getMovieId())
                     .orElseThrow(() -> new NotFoundException("Movie not found: " + dto.getMovieId()));
             s.setMovie(movie);
         }
-        if (dto.getRoomId() != null) {
+        boolean roomChanged = false;
+        if (dto.getRoomId() != null && !dto.getRoomId().equals(s.getRoom().getId())) {
             Room room = roomRepository.findById(dto.getRoomId())
                     .orElseThrow(() -> new NotFoundException("Room not found: " + dto.getRoomId()));
+            // Vé đã bán gắn với ghế của phòng cũ nên không thể chuyển phòng
+            if (!ticketInventoryService.removeUnsold(id)) {
+                throw new IllegalStateException("Showtime has booked tickets and cannot change room: " + id);
+            }
             s.setRoom(room);
+            roomChanged = true;
         }
+        // Giờ chiếu quyết định quy tắc giá theo ngày / khung giờ
+        boolean priceChanged = dto.getStartsAt() != null && !dto.getStartsAt().equals(s.getStartsAt());
         if (dto.getStartsAt() != null) s.setStartsAt(dto.getStartsAt());
         if (dto.getEndsAt() != null) s.setEndsAt(dto.getEndsAt());
+        priceChanged |= dto.getBasePrice() != null && dto.getBasePrice().compareTo(s.getBasePrice()) != 0;
         if (dto.getBasePrice() != null) s.setBasePrice(dto.getBasePrice());
+        validateTimes(s.getStartsAt(), s.getEndsAt());
 
         s = showtimeRepository.save(s);
+        ShowtimeSlot slot = slotOf(s);
+        if (roomChanged || !slot.equals(previousSlot)) {
+            roomScheduleIndex.reserve(s.getRoom().getId(), slot);
+            roomScheduleIndex.release(previousRoomId, previousSlot);
+        }
+        if (roomChanged) {
+            ticketInventoryService.generate(s);
+        } else if (priceChanged) {
+            ticketInventoryService.reprice(s);
+        }
+        seatStateEngine.evict(id);
+        dailyTimetable.evictDays(List.of(previousSlot.startsAt(), s.getStartsAt()));
         return toDto(s);
     }
 
@@ -97,40 +260,116 @@ public class ShowtimeServiceImpl implements ShowtimeService {
         return new PageImpl<>(p.stream().map(this::toDto).collect(Collectors.toList()), pageable, p.getTotalElements());
     }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ShowtimePageDTO search(LocalDate from, LocalDate to, Long movieId, Long roomId, String cursor, int size) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Date range is empty: " + from + " - " + to);
+        }
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // Trang đầu bắt đầu từ (from, 0): mọi suất chiếu lúc from trở đi đều đứng sau mốc này
+        ShowtimeCursor after = cursor != null && !cursor.isBlank()
+                ? ShowtimeCursor.decode(cursor)
+                : new ShowtimeCursor(from != null ? from.atStartOfDay() : EARLIEST, 0L);
+        LocalDateTime before = to != null ? to.plusDays(1).atStartOfDay() : LATEST;
+
+        // Lấy dư một dòng để biết còn trang sau hay không, không cần câu COUNT
+        List<ShowtimeSummaryDTO> rows = showtimeRepository.findSummariesAfter(after.startsAt(), after.id(), before,
+                movieId, roomId, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            ShowtimeSummaryDTO last = rows.get(pageSize - 1);
+            nextCursor = new ShowtimeCursor(last.getStartsAt(), last.getId()).encode();
+        }
+        return ShowtimePageDTO.builder().items(rows).nextCursor(nextCursor).build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ShowtimeSeatCountDTO> getSeatCounts(Collection<Long> showtimeIds) {
+        Set<Long> ids = new LinkedHashSet<>(showtimeIds);
+        if (ids.isEmpty() || ids.size() > MAX_SEAT_COUNT_IDS) {
+            throw new IllegalArgumentException("Expected 1-" + MAX_SEAT_COUNT_IDS + " showtime ids, got " + ids.size());
+        }
+        // Một câu lệnh theo khóa chính đọc bộ đếm trên dòng suất chiếu; tổng số ghế lấy từ sơ đồ phòng đã cache
+        Map<Long, ShowtimeSeatCount> counters = new LinkedHashMap<>();
+        showtimeRepository.findSeatCounters(ids).forEach(counter -> counters.put(counter.showtimeId(), counter));
+        List<ShowtimeSeatCountDTO> result = new ArrayList<>(counters.size());
+        for (Long id : ids) {
+            ShowtimeSeatCount counter = counters.get(id);
+            if (counter == null) {
+                continue;
+            }
+            int total = roomSeatIndex.get(counter.roomId()).size();
+            long taken = counter.sold() + counter.held();
+            result.add(ShowtimeSeatCountDTO.builder()
+                    .showtimeId(id)
+                    .totalSeats(total)
+                    .soldSeats(counter.sold().intValue())
+                    .heldSeats(counter.held().intValue())
+                    .remainingSeats((int) Math.max(0, total - taken))
+                    .build());
+        }
+        return result;
+    }
+
     @Override
     public void delete(Long id) {
-        if (!showtimeRepository.existsById(id)) throw new NotFoundException("Showtime not found: " + id);
+        Showtime s = showtimeRepository.findById(id).orElseThrow(() -> new NotFoundException("Showtime not found: " + id));
+        if (!ticketInventoryService.removeUnsold(id)) {
+            throw new IllegalStateException("Showtime has booked tickets and cannot be deleted: " + id);
+        }
         showtimeRepository.deleteById(id);
+        roomScheduleIndex.release(s.getRoom().getId(), slotOf(s));
+        seatStateEngine.evict(id);
+        dailyTimetable.evictDays(List.of(s.getStartsAt()));
+        pricingEngine.evict(id);
     }
     
     @Override
-    @Transactional(readOnly = true)
-public ShowtimeDetailResponse getShowtimeDetails(Long showtimeId) {
-    // 1. Lấy thông tin suất chiếu và phòng chiếu
-    Showtime showtime = showtimeRepository.findById(showtimeId)
-        .orElseThrow(() -> new NotFoundException("Suất chiếu không tồn tại: " + showtimeId));
-    Room room = showtime.getRoom();
-
-    // 2. Lấy tất cả ghế trong phòng
-    List<Seat> allSeats = seatRepository.findByRoomId(room.getId());
-
-    // 3. Lấy danh sách vé đã đặt
-    Set<Ticket> bookedTickets = ticketRepository.findByShowtime_IdAndStatusIn(showtimeId, BOOKED_STATUSES);
-
-    // 4. Lấy mã ghế đã đặt (ví dụ: A1, B5)
-    Set<String> bookedSeatCodes = bookedTickets.stream()
-        .map(ticket -> ticket.getSeat().getRowLabel() + ticket.getSeat().getSeatNumber())
-        .collect(Collectors.toSet());
-
-    // 5. Ánh xạ tất cả ghế sang DTO và đánh dấu trạng thái
-    Set<SeatResponse> seatResponses = allSeats.stream()
-        .map(seat -> toSeatResponse(seat, bookedSeatCodes))
-        .collect(Collectors.toSet());
-
-    // 6. Trả về DTO tổng hợp
-    return toShowtimeDetailResponse(showtime, room, seatResponses, bookedSeatCodes);
-}
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<FreeSlotDTO> findFreeSlots(Long roomId, LocalDate from, LocalDate to, int minMinutes) {
+        if (!roomRepository.existsById(roomId)) throw new NotFoundException("Room not found: " + roomId);
+        if (to.isBefore(from) || from.plusDays(MAX_FREE_SLOT_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("Date range must be 1-" + MAX_FREE_SLOT_DAYS + " days: " + from + " - " + to);
+        }
+        return roomScheduleIndex.freeSlots(roomId, from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                Duration.ofMinutes(Math.max(0, minMinutes)));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ShowtimeDetailResponse getShowtimeDetails(Long showtimeId) {
+        // 1. Lấy trạng thái ghế của suất chiếu từ bộ nhớ (chỉ truy vấn DB ở lần nạp đầu)
+        ShowtimeSeatSnapshot snapshot = seatStateEngine.find(showtimeId)
+            .orElseThrow(() -> new NotFoundException("Suất chiếu không tồn tại: " + showtimeId));
+        SeatLayout layout = snapshot.layout();
+
+        // 2. Ánh xạ tất cả ghế sang DTO và lấy mã ghế đã đặt (ví dụ: A1, B5)
+        Set<SeatResponse> seatResponses = new LinkedHashSet<>();
+        Set<String> bookedSeatCodes = new LinkedHashSet<>();
+        for (int pos = 0; pos < layout.size(); pos++) {
+            seatResponses.add(toSeatResponse(layout, pos));
+            if (snapshot.isBooked(pos)) {
+                bookedSeatCodes.add(layout.codeAt(pos));
+            }
+        }
+
+        // 3. Trả về DTO tổng hợp
+        return toShowtimeDetailResponse(snapshot, seatResponses, bookedSeatCodes);
+    }
     
+    private static void validateTimes(LocalDateTime startsAt, LocalDateTime endsAt) {
+        if (startsAt == null || endsAt == null || !endsAt.isAfter(startsAt)) {
+            throw new IllegalArgumentException("Showtime must end after it starts: " + startsAt + " - " + endsAt);
+        }
+    }
+
+    private static ShowtimeSlot slotOf(Showtime s) {
+        return new ShowtimeSlot(s.getId(), s.getMovie().getId(), s.getStartsAt(), s.getEndsAt());
+    }
+
     private ShowtimeDto toDto(Showtime s) {
         return ShowtimeDto.builder()
             .id(s.getId())
@@ -142,30 +381,31 @@ public ShowtimeDetailResponse getShowtimeDetails(Long showtimeId) {
             .build();
     }
     
-    private SeatResponse toSeatResponse(Seat seat, Set<String> bookedSeatCodes) {
+    private SeatResponse toSeatResponse(SeatLayout layout, int pos) {
         return new SeatResponse(
-            seat.getId(), 
-            seat.getRowLabel(), 
-            seat.getSeatNumber(), 
-            seat.getType()
+            layout.seatIdAt(pos),
+            layout.rowLabelAt(pos),
+            layout.seatNumberAt(pos),
+            layout.typeAt(pos)
         );
     }
 
  
     private ShowtimeDetailResponse toShowtimeDetailResponse(
-    Showtime showtime, Room room, Set<SeatResponse> allSeats, Set<String> bookedSeatCodes) {
+    ShowtimeSeatSnapshot snapshot, Set<SeatResponse> allSeats, Set<String> bookedSeatCodes) {
     
     return new ShowtimeDetailResponse(
-        showtime.getId(),
-        showtime.getMovie().getTitle(),
-        showtime.getStartsAt(),
-        room.getId(),
-        room.getName(),
-        room.getTotalRows(),
-        room.getSeatsPerRow(),
-        showtime.getBasePrice(),
+        snapshot.showtimeId(),
+        snapshot.movieTitle(),
+        snapshot.startsAt(),
+        snapshot.roomId(),
+        snapshot.roomName(),
+        snapshot.totalRows(),
+        snapshot.seatsPerRow(),
+        snapshot.basePrice(),
         allSeats,
-        bookedSeatCodes  // ✅ truyền đúng kiểu
+        bookedSeatCodes,  // ✅ truyền đúng kiểu
+        snapshot.version()
     );
 }
 
@@ -7,10 +7,14 @@ import com.cinema.model.Ticket;
 import com.cinema.repository.SeatRepository;
 import com.cinema.repository.ShowtimeRepository;
 import com.cinema.repository.TicketRepository;
+import com.cinema.service.RoomSeatIndex;
+import com.cinema.service.SeatStateEngine;
+import com.cinema.service.ShowtimeSeatCounters;
 import com.cinema.service.TicketService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -27,7 +31,17 @@ public class TicketServiceImpl implements TicketService {
     @Autowired
     private SeatRepository seatRepository;
 
+    @Autowired
+    private SeatStateEngine seatStateEngine;
+
+    @Autowired
+    private RoomSeatIndex roomSeatIndex;
+
+    @Autowired
+    private ShowtimeSeatCounters seatCounters;
+
     @Override
+    @Transactional
     public Ticket create(TicketCreateDto dto) {
         if (ticketRepository.existsByShowtime_IdAndSeat_Id(dto.getShowtimeId(), dto.getSeatId())) {
             throw new DataIntegrityViolationException("Ticket already exists for this showtime and seat");
@@ -35,7 +49,10 @@ public class TicketServiceImpl implements TicketService {
 
         Showtime showtime = showtimeRepository.findById(dto.getShowtimeId())
                 .orElseThrow(() -> new IllegalArgumentException("Showtime not found with id=" + dto.getShowtimeId()));
-        
+        if (roomSeatIndex.get(showtime.getRoom().getId()).positionOf(dto.getSeatId()) < 0) {
+            throw new IllegalArgumentException("Seat " + dto.getSeatId() + " does not belong to the showtime's room");
+        }
+
         Seat seat = seatRepository.findById(dto.getSeatId())
                 .orElseThrow(() -> new IllegalArgumentException("Seat not found with id=" + dto.getSeatId()));
 
@@ -45,7 +62,10 @@ public class TicketServiceImpl implements TicketService {
         t.setPrice(dto.getPrice());
         t.setStatus(dto.getStatus() == null ? "AVAILABLE" : dto.getStatus());
 
-        return ticketRepository.save(t);
+        Ticket saved = ticketRepository.save(t);
+        seatCounters.move(showtime.getId(), "AVAILABLE", saved.getStatus(), 1);
+        seatStateEngine.applyTicketStatus(showtime.getId(), seat.getId(), saved.getStatus());
+        return saved;
     }
 
     @Override
@@ -71,16 +91,27 @@ public class TicketServiceImpl implements TicketService {
 
 
     @Override
+    @Transactional
     public Ticket update(Long id, TicketUpdateDto dto) {
         Ticket t = ticketRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ticket not found"));
+        String oldStatus = t.getStatus();
         if (dto.getPrice() != null) t.setPrice(dto.getPrice());
         if (dto.getStatus() != null) t.setStatus(dto.getStatus());
-        return ticketRepository.save(t);
+        if ("AVAILABLE".equalsIgnoreCase(t.getStatus())) t.setOrder(null);
+        Ticket saved = ticketRepository.save(t);
+        seatCounters.move(saved.getShowtime().getId(), oldStatus, saved.getStatus(), 1);
+        seatStateEngine.applyTicketStatus(saved.getShowtime().getId(), saved.getSeat().getId(), saved.getStatus());
+        return saved;
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
+        ticketRepository.findById(id).ifPresent(t -> {
+            seatCounters.move(t.getShowtime().getId(), t.getStatus(), "AVAILABLE", 1);
+            seatStateEngine.applyTicketStatus(t.getShowtime().getId(), t.getSeat().getId(), "AVAILABLE");
+        });
         ticketRepository.deleteById(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+-- Lưu response theo Idempotency-Key khi chạy nhiều node (cinema.idempotency.store=db)
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(200) PRIMARY KEY,
+    request_hash CHAR(64) NOT NULL,
+    status_code INT NULL,
+    response_body TEXT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    INDEX idx_idempotency_expires_at (expires_at)
+);
@@ -0,0 +1,23 @@
+-- Quy tắc giá vé: hệ số nhân áp dụng khi mọi điều kiện (khác NULL) đều khớp
+CREATE TABLE IF NOT EXISTS pricing_rules (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    seat_type VARCHAR(30) NULL,
+    day_of_week VARCHAR(10) NULL,
+    start_time TIME NULL,
+    end_time TIME NULL,
+    room_id BIGINT NULL,
+    min_occupancy_percent INT NULL,
+    multiplier DECIMAL(6,3) NOT NULL DEFAULT 1.000,
+    priority INT NOT NULL DEFAULT 0,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT fk_pricing_rule_room FOREIGN KEY (room_id) REFERENCES rooms(id)
+);
+
+-- Giữ nguyên bảng giá theo loại ghế trước đây
+INSERT INTO pricing_rules (name, seat_type, multiplier, priority) VALUES
+    ('Ghế VIP', 'VIP', 1.250, 0),
+    ('Ghế đôi', 'COUPLE', 2.000, 0),
+    ('Ghế không bán', 'DISABLED', 0.000, 0);
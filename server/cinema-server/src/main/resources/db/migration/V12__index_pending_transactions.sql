@@ -0,0 +1,2 @@
+-- Đối soát thanh toán duyệt các giao dịch PENDING theo keyset (status, id)
+CREATE INDEX idx_transactions_status_id ON transactions (status, id);
@@ -0,0 +1,4 @@
+-- Danh sách suất chiếu phân trang keyset theo (starts_at, id), lọc thêm theo phim hoặc phòng
+CREATE INDEX idx_showtimes_starts_at_id ON showtimes (starts_at, id);
+CREATE INDEX idx_showtimes_movie_starts_at_id ON showtimes (movie_id, starts_at, id);
+CREATE INDEX idx_showtimes_room_starts_at_id ON showtimes (room_id, starts_at, id);
@@ -0,0 +1,16 @@
+-- Bộ đếm ghế theo suất chiếu, cập nhật cùng transaction với trạng thái vé
+-- sold_seats: vé SOLD / PAID; held_seats: vé BOOKED / PROCESSING (đang chờ thanh toán)
+ALTER TABLE showtimes
+    ADD COLUMN sold_seats INT NOT NULL DEFAULT 0,
+    ADD COLUMN held_seats INT NOT NULL DEFAULT 0;
+
+UPDATE showtimes s
+JOIN (
+    SELECT showtime_id,
+           SUM(status IN ('SOLD', 'PAID')) AS sold,
+           SUM(status IN ('BOOKED', 'PROCESSING')) AS held
+    FROM tickets
+    GROUP BY showtime_id
+) c ON c.showtime_id = s.id
+SET s.sold_seats = c.sold,
+    s.held_seats = c.held;
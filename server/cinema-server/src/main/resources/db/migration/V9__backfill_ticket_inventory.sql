@@ -0,0 +1,19 @@
+-- Sinh sẵn vé AVAILABLE cho các suất chiếu sắp tới.
+-- Hệ số theo loại ghế (VIP 1.25, COUPLE 2.0, DISABLED 0) là quy tắc giá đang áp dụng lúc viết migration này;
+-- giá về sau do bảng pricing_rules (V11) và PricingEngine quyết định, vé còn trống được chốt lại giá lúc bán.
+INSERT INTO tickets (showtime_id, seat_id, price, status)
+SELECT st.id,
+       s.id,
+       CASE UPPER(s.type)
+           WHEN 'VIP' THEN st.base_price * 1.25
+           WHEN 'COUPLE' THEN st.base_price * 2.0
+           WHEN 'DISABLED' THEN 0
+           ELSE st.base_price
+       END,
+       'AVAILABLE'
+FROM showtimes st
+JOIN seats s ON s.room_id = st.room_id
+WHERE st.starts_at > NOW()
+  AND NOT EXISTS (
+      SELECT 1 FROM tickets t WHERE t.showtime_id = st.id AND t.seat_id = s.id
+  );
@@ -0,0 +1,118 @@
+package com.cinema.service;
+
+import com.cinema.model.Seat;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BestAvailableSeatServiceTest {
+
+    @Test
+    void picksCenterOfMiddleRowInEmptyRoom() {
+        ShowtimeSeatSnapshot snapshot = room(5, 10);
+
+        // Hàng C, ghế 5-6
+        assertThat(codes(snapshot, 2, null)).containsExactly("C5", "C6");
+    }
+
+    @Test
+    void evenRowCountTieGoesToRowCloserToScreen() {
+        ShowtimeSeatSnapshot snapshot = room(4, 10);
+
+        assertThat(codes(snapshot, 2, null)).containsExactly("B5", "B6");
+    }
+
+    @Test
+    void equallyCenteredBlocksInRowTieToTheLeft() {
+        ShowtimeSeatSnapshot snapshot = room(1, 10);
+        book(snapshot, "A5", "A6");
+
+        assertThat(codes(snapshot, 2, null)).containsExactly("A3", "A4");
+    }
+
+    @Test
+    void blockDoesNotSpanGapInSeatNumbers() {
+        // Ghế 4 không tồn tại (lối đi): 1-3 và 5-7 liền nhau về vị trí nhưng không liền nhau về số ghế
+        ShowtimeSeatSnapshot snapshot = snapshot(seat(1, "A", 1), seat(2, "A", 2), seat(3, "A", 3),
+                seat(5, "A", 5), seat(6, "A", 6), seat(7, "A", 7));
+
+        assertThat(BestAvailableSeatService.findBlock(snapshot, 4, null)).isEqualTo(-1);
+        // Hai dãy cách tâm hàng (ghế 4) như nhau: chọn dãy bên trái
+        assertThat(codes(snapshot, 3, null)).containsExactly("A1", "A2", "A3");
+    }
+
+    @Test
+    void movesToOuterRowWhenMiddleRowHasNoRoom() {
+        ShowtimeSeatSnapshot snapshot = room(3, 4);
+        book(snapshot, "B2");
+
+        assertThat(codes(snapshot, 3, null)).containsExactly("A1", "A2", "A3");
+    }
+
+    @Test
+    void skipsUnsellableSeatsUnlessTypeRequested() {
+        ShowtimeSeatSnapshot snapshot = snapshot(seat(1, "A", 1, "STANDARD"), seat(2, "A", 2, "DISABLED"),
+                seat(3, "A", 3, "DISABLED"), seat(4, "A", 4, "STANDARD"));
+
+        assertThat(BestAvailableSeatService.findBlock(snapshot, 2, null)).isEqualTo(-1);
+        assertThat(BestAvailableSeatService.findBlock(snapshot, 2, "ANY")).isEqualTo(-1);
+        assertThat(codes(snapshot, 2, "disabled")).containsExactly("A2", "A3");
+    }
+
+    @Test
+    void returnsMinusOneWhenNoContiguousBlockIsFree() {
+        ShowtimeSeatSnapshot snapshot = room(2, 3);
+        book(snapshot, "A2", "B2");
+
+        assertThat(BestAvailableSeatService.findBlock(snapshot, 2, null)).isEqualTo(-1);
+    }
+
+    private static List<String> codes(ShowtimeSeatSnapshot snapshot, int count, String seatType) {
+        int first = BestAvailableSeatService.findBlock(snapshot, count, seatType);
+        assertThat(first).isNotNegative();
+        List<String> codes = new ArrayList<>();
+        for (int pos = first; pos < first + count; pos++) {
+            codes.add(snapshot.layout().codeAt(pos));
+        }
+        return codes;
+    }
+
+    private static void book(ShowtimeSeatSnapshot snapshot, String... codes) {
+        for (String code : codes) {
+            snapshot.states()[snapshot.layout().positionOfCode(code)] = SeatStateEngine.BOOKED;
+        }
+    }
+
+    private static ShowtimeSeatSnapshot room(int rows, int seatsPerRow) {
+        List<Seat> seats = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            for (int number = 1; number <= seatsPerRow; number++) {
+                seats.add(seat(row * seatsPerRow + number, String.valueOf((char) ('A' + row)), number));
+            }
+        }
+        return snapshot(seats.toArray(Seat[]::new));
+    }
+
+    private static ShowtimeSeatSnapshot snapshot(Seat... seats) {
+        SeatLayout layout = SeatLayout.of(List.of(seats));
+        return new ShowtimeSeatSnapshot(1L, 1L, "Movie", null, null, BigDecimal.TEN, 1L, "Room 1",
+                null, null, layout, new byte[layout.size()], 1L);
+    }
+
+    private static Seat seat(long id, String row, int number) {
+        return seat(id, row, number, "STANDARD");
+    }
+
+    private static Seat seat(long id, String row, int number, String type) {
+        Seat seat = new Seat();
+        seat.setId(id);
+        seat.setRowLabel(row);
+        seat.setSeatNumber(number);
+        seat.setType(type);
+        return seat;
+    }
+}
@@ -0,0 +1,125 @@
+package com.cinema.service;
+
+import com.cinema.dto.BookingResponseDTO;
+import com.cinema.exception.IdempotencyKeyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTest {
+
+    private static final Map<String, Object> REQUEST = Map.of("showtimeId", 1, "seats", List.of("A1", "A2"));
+
+    private IdempotencyService service;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(new InMemoryIdempotencyStore(100), new ObjectMapper(), Duration.ofHours(1));
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void requestWithoutKeyAlwaysRuns() {
+        execute(null, REQUEST);
+        execute(" ", REQUEST);
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void retryWithSameKeyReplaysStoredResponse() {
+        ResponseEntity<BookingResponseDTO> first = execute("key-1", REQUEST);
+        ResponseEntity<BookingResponseDTO> retry = execute("key-1", REQUEST);
+
+        assertThat(calls).hasValue(1);
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retry.getBody()).isEqualTo(first.getBody());
+    }
+
+    @Test
+    void sameKeyInAnotherScopeRunsAgain() {
+        execute("user:1", "key-1", REQUEST, this::book);
+        execute("user:2", "key-1", REQUEST, this::book);
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void reusingKeyForDifferentRequestIsRejected() {
+        execute("key-1", REQUEST);
+
+        assertThatThrownBy(() -> execute("key-1", Map.of("showtimeId", 2)))
+                .isInstanceOfSatisfying(IdempotencyKeyException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void retryWhileFirstRequestRunsIsRejected() {
+        // Lần gửi lại đến khi lượt đầu vẫn đang chạy (key đã giữ nhưng chưa có response)
+        execute("scope", "key-1", REQUEST, () -> {
+            assertThatThrownBy(() -> execute("key-1", REQUEST))
+                    .isInstanceOfSatisfying(IdempotencyKeyException.class,
+                            e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.CONFLICT));
+            return book();
+        });
+
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void failedRequestReleasesKeyForRetry() {
+        assertThatThrownBy(() -> execute("scope", "key-1", REQUEST, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("seat taken");
+        })).isInstanceOf(IllegalStateException.class);
+
+        ResponseEntity<BookingResponseDTO> retry = execute("key-1", REQUEST);
+
+        assertThat(calls).hasValue(2);
+        assertThat(retry.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+    }
+
+    @Test
+    void overlongKeyIsRejected() {
+        assertThatThrownBy(() -> execute("k".repeat(101), REQUEST))
+                .isInstanceOfSatisfying(IdempotencyKeyException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThat(calls).hasValue(0);
+    }
+
+    private ResponseEntity<BookingResponseDTO> execute(String key, Object request) {
+        return execute("scope", key, request, this::book);
+    }
+
+    private ResponseEntity<BookingResponseDTO> execute(String scope, String key, Object request,
+                                                       Supplier<ResponseEntity<BookingResponseDTO>> action) {
+        return service.execute(scope, key, request, BookingResponseDTO.class, action);
+    }
+
+    private ResponseEntity<BookingResponseDTO> book() {
+        int call = calls.incrementAndGet();
+        return ResponseEntity.ok(BookingResponseDTO.builder()
+                .bookingId((long) call)
+                .ticketCode("TKT-" + call)
+                .status("COMPLETED")
+                .seats(List.of("A1", "A2"))
+                .totalAmount(new BigDecimal("150000.00"))
+                .build());
+    }
+}
@@ -0,0 +1,130 @@
+package com.cinema.service;
+
+import com.cinema.dto.FreeSlotDTO;
+import com.cinema.exception.ShowtimeConflictException;
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.ShowtimeSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomScheduleIndexTest {
+
+    private static final Long ROOM = 1L;
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 1, 10, 0, 0);
+
+    private ShowtimeRepository showtimeRepository;
+    private RoomScheduleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        showtimeRepository = mock(ShowtimeRepository.class);
+        // Không có transaction đang chạy: release() được áp dụng ngay
+        index = new RoomScheduleIndex(showtimeRepository, mock(PlatformTransactionManager.class), Duration.ofMinutes(15));
+    }
+
+    @Test
+    void rejectsShowtimeStartingInsideCleaningGapAfterPrevious() {
+        load(slot(1, "10:00", "12:00"));
+
+        assertThatThrownBy(() -> index.reserve(ROOM, slot(2, "12:14", "14:00")))
+                .isInstanceOf(ShowtimeConflictException.class);
+    }
+
+    @Test
+    void allowsShowtimeStartingExactlyWhenCleaningGapEnds() {
+        load(slot(1, "10:00", "12:00"));
+
+        assertThatCode(() -> index.reserve(ROOM, slot(2, "12:15", "14:00"))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void cleaningGapAlsoAppliesBeforeNextShowtime() {
+        load(slot(1, "10:00", "12:00"));
+
+        assertThatCode(() -> index.reserve(ROOM, slot(2, "07:45", "09:45"))).doesNotThrowAnyException();
+        assertThatThrownBy(() -> index.reserve(ROOM, slot(3, "07:46", "09:46")))
+                .isInstanceOf(ShowtimeConflictException.class);
+    }
+
+    @Test
+    void movingShowtimeIgnoresItsOwnOldSlot() {
+        load(slot(1, "10:00", "12:00"));
+
+        assertThatCode(() -> index.reserve(ROOM, slot(1, "11:00", "13:00"))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void longerShowtimeReservedAfterLoadWidensScan() {
+        load(slot(1, "08:00", "09:00"));
+        index.reserve(ROOM, slot(2, "10:00", "16:00"));
+
+        // Bắt đầu 5 tiếng sau suất dài: chỉ tìm thấy nếu độ dài lớn nhất đã tăng lên 6 tiếng
+        assertThatThrownBy(() -> index.reserve(ROOM, slot(3, "15:00", "15:30")))
+                .isInstanceOf(ShowtimeConflictException.class);
+    }
+
+    @Test
+    void releasingLongestShowtimeKeepsOtherLongShowtimesVisible() {
+        ShowtimeSlot first = slot(1, "06:00", "13:00");
+        load(slot(2, "14:00", "21:00"));
+        index.reserve(ROOM, first);
+        index.release(ROOM, first);
+
+        assertThatCode(() -> index.reserve(ROOM, slot(3, "06:00", "13:00"))).doesNotThrowAnyException();
+        assertThatThrownBy(() -> index.reserve(ROOM, slot(4, "20:00", "20:30")))
+                .isInstanceOf(ShowtimeConflictException.class);
+    }
+
+    @Test
+    void reserveAllWritesNothingWhenBatchOverlapsItself() {
+        load();
+
+        assertThatThrownBy(() -> index.reserveAll(ROOM, List.of(slot(-1, "13:00", "14:00"), slot(-2, "14:10", "15:00"))))
+                .isInstanceOf(ShowtimeConflictException.class);
+        assertThatCode(() -> index.reserve(ROOM, slot(1, "13:00", "14:00"))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void freeSlotsExcludeCleaningGapAroundShowtimes() {
+        load(slot(1, "10:00", "12:00"));
+
+        List<FreeSlotDTO> free = index.freeSlots(ROOM, at("09:00"), at("14:00"), Duration.ofMinutes(30));
+
+        assertThat(free).extracting(FreeSlotDTO::getFrom, FreeSlotDTO::getTo)
+                .containsExactly(tuple(at("09:00"), at("09:45")), tuple(at("12:15"), at("14:00")));
+    }
+
+    @Test
+    void freeSlotsAccountForShowtimeStartingBeforeRange() {
+        load(slot(1, "07:00", "10:00"));
+
+        List<FreeSlotDTO> free = index.freeSlots(ROOM, at("09:00"), at("12:00"), Duration.ofMinutes(30));
+
+        assertThat(free).extracting(FreeSlotDTO::getFrom).containsExactly(at("10:15"));
+    }
+
+    private void load(ShowtimeSlot... slots) {
+        when(showtimeRepository.findSlotsByRoomId(ROOM)).thenReturn(List.of(slots));
+    }
+
+    private static ShowtimeSlot slot(long id, String from, String to) {
+        return new ShowtimeSlot(id, 1L, at(from), at(to));
+    }
+
+    private static LocalDateTime at(String time) {
+        String[] parts = time.split(":");
+        return DAY.withHour(Integer.parseInt(parts[0])).withMinute(Integer.parseInt(parts[1]));
+    }
+}
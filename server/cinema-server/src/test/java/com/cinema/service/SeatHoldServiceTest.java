@@ -0,0 +1,136 @@
+package com.cinema.service;
+
+import com.cinema.exception.ResourceNotFoundException;
+import com.cinema.exception.SeatUnavailableException;
+import com.cinema.model.Seat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeatHoldServiceTest {
+
+    private static final Long USER = 7L;
+    private static final Long SHOWTIME = 1L;
+
+    private SeatStateEngine seatStateEngine;
+
+    @BeforeEach
+    void setUp() {
+        List<Seat> seats = new ArrayList<>();
+        for (int number = 1; number <= 4; number++) {
+            Seat seat = new Seat();
+            seat.setId(10L + number);
+            seat.setRowLabel("A");
+            seat.setSeatNumber(number);
+            seat.setType("STANDARD");
+            seats.add(seat);
+        }
+        SeatLayout layout = SeatLayout.of(seats);
+        seatStateEngine = mock(SeatStateEngine.class);
+        when(seatStateEngine.find(SHOWTIME)).thenReturn(Optional.of(new ShowtimeSeatSnapshot(SHOWTIME, 2L, "Movie",
+                null, null, BigDecimal.TEN, 3L, "Room 3", 1, 4, layout, new byte[layout.size()], 1L)));
+        when(seatStateEngine.tryHold(eq(SHOWTIME), anyCollection(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void createHoldNormalizesCodesAndHoldsUnderHoldId() {
+        SeatHoldService service = new SeatHoldService(seatStateEngine, Duration.ofMinutes(10));
+
+        SeatHold hold = service.createHold(USER, SHOWTIME, List.of(" a1", "A2", "a1"));
+
+        assertThat(hold.seatCodes()).containsExactly("A1", "A2");
+        assertThat(hold.seatIds()).containsExactly(11L, 12L);
+        verify(seatStateEngine).tryHold(SHOWTIME, List.of(11L, 12L), hold.id());
+    }
+
+    @Test
+    void createHoldFailsWhenSeatsAreTaken() {
+        when(seatStateEngine.tryHold(eq(SHOWTIME), anyCollection(), any())).thenReturn(List.of("A2"));
+        SeatHoldService service = new SeatHoldService(seatStateEngine, Duration.ofMinutes(10));
+
+        assertThatThrownBy(() -> service.createHold(USER, SHOWTIME, List.of("A1", "A2")))
+                .isInstanceOfSatisfying(SeatUnavailableException.class,
+                        e -> assertThat(e.getSeats()).containsExactly("A2"));
+    }
+
+    @Test
+    void claimSucceedsOnceForOwningUserAndShowtime() {
+        SeatHoldService service = new SeatHoldService(seatStateEngine, Duration.ofMinutes(10));
+        SeatHold hold = service.createHold(USER, SHOWTIME, List.of("A1"));
+
+        assertThatThrownBy(() -> service.claim(hold.id(), 8L, SHOWTIME)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> service.claim(hold.id(), USER, 2L)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(service.claim(hold.id(), USER, SHOWTIME)).isSameAs(hold);
+        assertThatThrownBy(() -> service.claim(hold.id(), USER, SHOWTIME)).isInstanceOf(ResourceNotFoundException.class);
+
+        // Đã claim thì luồng dọn dẹp không trả ghế nữa
+        service.expireHolds();
+        verify(seatStateEngine, never()).release(eq(SHOWTIME), anyCollection(), any());
+    }
+
+    @Test
+    void claimOfExpiredHoldReleasesItsSeats() {
+        SeatHoldService service = new SeatHoldService(seatStateEngine, Duration.ofMillis(-1));
+        SeatHold hold = service.createHold(USER, SHOWTIME, List.of("A1", "A2"));
+
+        assertThatThrownBy(() -> service.claim(hold.id(), USER, SHOWTIME)).isInstanceOf(ResourceNotFoundException.class);
+        verify(seatStateEngine).release(SHOWTIME, List.of(11L, 12L), hold.id());
+    }
+
+    @Test
+    void claimFailsWhenSeatsCannotBeHeldAgainAfterReload() {
+        SeatHoldService service = new SeatHoldService(seatStateEngine, Duration.ofMinutes(10));
+        SeatHold hold = service.createHold(USER, SHOWTIME, List.of("A1", "A2"));
+        // Suất chiếu bị nạp lại và người khác đã giữ A2
+        when(seatStateEngine.tryHold(SHOWTIME, hold.seatIds(), hold.id())).thenReturn(List.of("A2"));
+
+        assertThatThrownBy(() -> service.claim(hold.id(), USER, SHOWTIME))
+                .isInstanceOfSatisfying(SeatUnavailableException.class,
+                        e -> assertThat(e.getSeats()).containsExactly("A2"));
+        verify(seatStateEngine).release(SHOWTIME, hold.seatIds(), hold.id());
+    }
+
+    @Test
+    void expireHoldsReleasesExpiredHoldsPerShowtimeInOneBatch() {
+        SeatHoldService service = new SeatHoldService(seatStateEngine, Duration.ofMillis(-1));
+        SeatHold first = service.createHold(USER, SHOWTIME, List.of("A1"));
+        SeatHold second = service.createHold(8L, SHOWTIME, List.of("A3", "A4"));
+
+        service.expireHolds();
+
+        verify(seatStateEngine).release(SHOWTIME, Map.of(11L, first.id(), 13L, second.id(), 14L, second.id()));
+        assertThatThrownBy(() -> service.release(first.id(), USER)).isInstanceOf(ResourceNotFoundException.class);
+
+        service.expireHolds();
+        verify(seatStateEngine).release(eq(SHOWTIME), anyMap());
+    }
+
+    @Test
+    void expireHoldsKeepsHoldsThatHaveNotExpired() {
+        SeatHoldService service = new SeatHoldService(seatStateEngine, Duration.ofMinutes(10));
+        SeatHold hold = service.createHold(USER, SHOWTIME, List.of("A1"));
+
+        service.expireHolds();
+        verify(seatStateEngine, never()).release(eq(SHOWTIME), anyMap());
+
+        service.release(hold.id(), USER);
+        verify(seatStateEngine).release(SHOWTIME, List.of(11L), hold.id());
+    }
+}
@@ -0,0 +1,134 @@
+package com.cinema.service;
+
+import com.cinema.dto.SeatJournalEventDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SeatJournalTest {
+
+    private static final long SHOWTIME = 1L;
+    private static final long ROOM = 10L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayRestoresBookedSeatsAfterRestart() throws IOException {
+        SeatJournal journal = open(DataSize.ofMegabytes(1));
+        journal.recordBaseline(SHOWTIME, ROOM, List.of(100L, 101L));
+        journal.recordState(SHOWTIME, 102L, SeatStateEngine.BOOKED, SeatJournal.Source.BOOK);
+        journal.recordState(SHOWTIME, 100L, SeatStateEngine.AVAILABLE, SeatJournal.Source.CANCEL);
+        // Ghế đang giữ không được khôi phục
+        journal.recordState(SHOWTIME, 103L, SeatStateEngine.HELD, SeatJournal.Source.HOLD);
+        journal.close();
+
+        SeatJournal restarted = open(DataSize.ofMegabytes(1));
+
+        assertThat(restarted.takeRecovered(SHOWTIME, ROOM)).contains(Set.of(101L, 102L));
+        // Chỉ lấy được một lần
+        assertThat(restarted.takeRecovered(SHOWTIME, ROOM)).isEmpty();
+    }
+
+    @Test
+    void recoveredStateIsDroppedWhenRoomChanged() throws IOException {
+        SeatJournal journal = open(DataSize.ofMegabytes(1));
+        journal.recordBaseline(SHOWTIME, ROOM, List.of(100L));
+        journal.close();
+
+        assertThat(open(DataSize.ofMegabytes(1)).takeRecovered(SHOWTIME, ROOM + 1)).isEmpty();
+    }
+
+    @Test
+    void invalidatedAndBaselineLessShowtimesAreNotRecovered() throws IOException {
+        SeatJournal journal = open(DataSize.ofMegabytes(1));
+        journal.recordBaseline(SHOWTIME, ROOM, List.of(100L));
+        journal.recordBaseline(2L, ROOM, List.of(200L));
+        journal.invalidate(SHOWTIME);
+        journal.recordState(3L, 300L, SeatStateEngine.BOOKED, SeatJournal.Source.BOOK);
+        journal.close();
+
+        SeatJournal restarted = open(DataSize.ofMegabytes(1));
+
+        assertThat(restarted.takeRecovered(SHOWTIME, ROOM)).isEmpty();
+        assertThat(restarted.takeRecovered(2L, ROOM)).contains(Set.of(200L));
+        assertThat(restarted.takeRecovered(3L, ROOM)).isEmpty();
+    }
+
+    @Test
+    void checkpointOnRollKeepsStateAndDropsOldSegments() throws IOException {
+        // 8 bản ghi mỗi segment: buộc sang segment mới nhiều lần
+        DataSize segmentSize = DataSize.ofBytes(SeatJournal.RECORD_SIZE * 8L);
+        SeatJournal journal = open(segmentSize);
+        journal.recordBaseline(SHOWTIME, ROOM, List.of(100L, 101L));
+        for (int i = 0; i < 100; i++) {
+            byte state = i % 2 == 0 ? SeatStateEngine.BOOKED : SeatStateEngine.AVAILABLE;
+            journal.recordState(SHOWTIME, 200L, state, SeatJournal.Source.BOOK);
+        }
+        journal.recordState(SHOWTIME, 101L, SeatStateEngine.AVAILABLE, SeatJournal.Source.CANCEL);
+        journal.close();
+
+        // Segment của checkpoint mới nhất và segment đang ghi, cộng retain-segments segment cũ
+        assertThat(segments()).hasSizeLessThanOrEqualTo(3);
+
+        SeatJournal restarted = open(segmentSize);
+        assertThat(restarted.takeRecovered(SHOWTIME, ROOM)).contains(Set.of(100L));
+    }
+
+    @Test
+    void replayStopsAtCorruptRecord() throws IOException {
+        SeatJournal journal = open(DataSize.ofMegabytes(1));
+        journal.recordBaseline(SHOWTIME, ROOM, List.of(100L));
+        journal.recordState(SHOWTIME, 101L, SeatStateEngine.BOOKED, SeatJournal.Source.BOOK);
+        journal.close();
+
+        // Segment đầu: CHECKPOINT, BASELINE, STATE 100, STATE 101. Làm hỏng bản ghi cuối (ghi dở khi sập máy)
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), 3L * SeatJournal.RECORD_SIZE + 30);
+        }
+
+        assertThat(open(DataSize.ofMegabytes(1)).takeRecovered(SHOWTIME, ROOM)).contains(Set.of(100L));
+    }
+
+    @Test
+    void historyListsSeatEventsWithSource() throws IOException {
+        SeatJournal journal = open(DataSize.ofMegabytes(1));
+        journal.recordBaseline(SHOWTIME, ROOM, List.of());
+        journal.recordState(SHOWTIME, 100L, SeatStateEngine.HELD, SeatJournal.Source.HOLD);
+        journal.recordState(SHOWTIME, 101L, SeatStateEngine.HELD, SeatJournal.Source.HOLD);
+        journal.recordState(SHOWTIME, 100L, SeatStateEngine.BOOKED, SeatJournal.Source.BOOK);
+
+        List<SeatJournalEventDTO> events = journal.history(SHOWTIME, 100L, 10);
+
+        assertThat(events).extracting(SeatJournalEventDTO::getType).containsExactly("BASELINE", "STATE", "STATE");
+        assertThat(events.subList(1, 3)).extracting(SeatJournalEventDTO::getState, SeatJournalEventDTO::getSource)
+                .containsExactly(tuple("HELD", "HOLD"),
+                        tuple("BOOKED", "BOOK"));
+    }
+
+    private SeatJournal open(DataSize segmentSize) throws IOException {
+        SeatJournal journal = new SeatJournal(true, directory, segmentSize, 1);
+        journal.open();
+        return journal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+}
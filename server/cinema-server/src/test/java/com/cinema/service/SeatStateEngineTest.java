@@ -0,0 +1,171 @@
+package com.cinema.service;
+
+import com.cinema.model.Movie;
+import com.cinema.model.Room;
+import com.cinema.model.Seat;
+import com.cinema.model.Showtime;
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeatStateEngineTest {
+
+    private static final Long SHOWTIME = 1L;
+    private static final Long ROOM = 3L;
+
+    private TicketRepository ticketRepository;
+    private SeatJournal seatJournal;
+    private SeatLayout layout;
+    private SeatStateEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        setUp(4);
+    }
+
+    private void setUp(int deltaBufferSize) {
+        Room room = Room.builder().id(ROOM).name("Room 3").totalRows(1).seatsPerRow(5).build();
+        Movie movie = new Movie();
+        movie.setId(2L);
+        movie.setTitle("Movie");
+        Showtime showtime = Showtime.builder().id(SHOWTIME).room(room).basePrice(BigDecimal.TEN).build();
+        showtime.setMovie(movie);
+        List<Seat> seats = new ArrayList<>();
+        for (int number = 1; number <= 5; number++) {
+            Seat seat = new Seat();
+            seat.setId((long) number);
+            seat.setRowLabel("A");
+            seat.setSeatNumber(number);
+            seat.setType("STANDARD");
+            seats.add(seat);
+        }
+        layout = SeatLayout.of(seats);
+
+        ShowtimeRepository showtimeRepository = mock(ShowtimeRepository.class);
+        when(showtimeRepository.findByIdWithDetails(SHOWTIME)).thenReturn(Optional.of(showtime));
+        RoomSeatIndex roomSeatIndex = mock(RoomSeatIndex.class);
+        when(roomSeatIndex.get(ROOM)).thenReturn(layout);
+        ticketRepository = mock(TicketRepository.class);
+        when(ticketRepository.findBookedSeatIdsByShowtimeIdAndStatus(SHOWTIME, SeatStateEngine.OCCUPIED_TICKET_STATUSES))
+                .thenReturn(Set.of(5L));
+        seatJournal = mock(SeatJournal.class);
+        when(seatJournal.takeRecovered(SHOWTIME, ROOM)).thenReturn(Optional.empty());
+
+        // Không có transaction đang chạy: markBooked / markAvailable được áp dụng ngay
+        engine = new SeatStateEngine(showtimeRepository, roomSeatIndex, ticketRepository, seatJournal,
+                mock(SeatEventBroadcaster.class), mock(DailyTimetableService.class), deltaBufferSize);
+    }
+
+    @Test
+    void releaseOnlyFreesSeatsStillOwnedByTheHold() {
+        assertThat(engine.tryHold(SHOWTIME, List.of(1L, 2L), "hold-a")).isEmpty();
+
+        engine.release(SHOWTIME, List.of(1L, 2L), "hold-b");
+        assertThat(states()).containsExactly(SeatStateEngine.HELD, SeatStateEngine.HELD,
+                SeatStateEngine.AVAILABLE, SeatStateEngine.AVAILABLE, SeatStateEngine.BOOKED);
+
+        engine.release(SHOWTIME, List.of(1L, 2L), "hold-a");
+        assertThat(states()[0]).isEqualTo(SeatStateEngine.AVAILABLE);
+        assertThat(states()[1]).isEqualTo(SeatStateEngine.AVAILABLE);
+    }
+
+    @Test
+    void releaseDoesNotFreeSeatThatWasBookedMeanwhile() {
+        engine.tryHold(SHOWTIME, List.of(1L), "hold-a");
+        engine.markBooked(SHOWTIME, List.of(1L));
+
+        engine.release(SHOWTIME, List.of(1L), "hold-a");
+
+        assertThat(states()[0]).isEqualTo(SeatStateEngine.BOOKED);
+    }
+
+    @Test
+    void ownerCanHoldItsSeatsAgainButOthersCannot() {
+        engine.tryHold(SHOWTIME, List.of(1L, 2L), "hold-a");
+
+        assertThat(engine.tryHold(SHOWTIME, List.of(1L, 2L), "hold-a")).isEmpty();
+        assertThat(engine.tryHold(SHOWTIME, List.of(2L, 3L), "hold-b")).containsExactly("A2");
+        // Lượt giữ thất bại không giữ ghế nào
+        assertThat(states()[2]).isEqualTo(SeatStateEngine.AVAILABLE);
+        assertThat(engine.tryHold(SHOWTIME, List.of(5L), "hold-b")).containsExactly("A5");
+    }
+
+    @Test
+    void changesSinceReportsEachChangedSeatOnceWithOccupancyBefore() {
+        long start = snapshot().version();
+        engine.tryHold(SHOWTIME, List.of(1L), "hold-a");
+        engine.markBooked(SHOWTIME, List.of(1L, 2L));
+        long afterBooking = snapshot().version();
+        engine.markAvailable(SHOWTIME, List.of(2L));
+
+        SeatChanges changes = engine.changesSince(SHOWTIME, start).orElseThrow();
+        assertThat(changes.positions()).containsExactly(0, 1);
+        assertThat(changes.occupiedBefore()).isEqualTo(1);
+        assertThat(changes.snapshot().version()).isGreaterThan(afterBooking);
+
+        assertThat(engine.changesSince(SHOWTIME, afterBooking).orElseThrow().positions()).containsExactly(1);
+        assertThat(engine.changesSince(SHOWTIME, snapshot().version()).orElseThrow().positions()).isEmpty();
+    }
+
+    @Test
+    void overwrittenChangesForceFullReload() {
+        setUp(2);
+        long start = snapshot().version();
+        engine.markBooked(SHOWTIME, List.of(1L));
+        long first = snapshot().version();
+        engine.markBooked(SHOWTIME, List.of(2L));
+        engine.markBooked(SHOWTIME, List.of(3L));
+
+        assertThat(engine.changesSince(SHOWTIME, start)).isEmpty();
+        assertThat(engine.changesSince(SHOWTIME, first).orElseThrow().positions()).containsExactly(1, 2);
+    }
+
+    @Test
+    void touchDropsChangesRecordedBeforeIt() {
+        long start = snapshot().version();
+        engine.markBooked(SHOWTIME, List.of(1L));
+        engine.touch(SHOWTIME);
+
+        assertThat(engine.changesSince(SHOWTIME, start)).isEmpty();
+        assertThat(engine.changesSince(SHOWTIME, snapshot().version()).orElseThrow().positions()).isEmpty();
+    }
+
+    @Test
+    void recoveredSeatsAreReconciledWithDbOnFirstFailedHold() {
+        // Nhật ký còn ghi A1 đã bán nhưng vé đã được trả trước khi server dừng
+        when(seatJournal.takeRecovered(SHOWTIME, ROOM)).thenReturn(Optional.of(Set.of(1L)));
+        when(ticketRepository.findBookedSeatIdsByShowtimeIdAndStatus(SHOWTIME, SeatStateEngine.OCCUPIED_TICKET_STATUSES))
+                .thenReturn(Set.of());
+
+        assertThat(engine.tryHold(SHOWTIME, List.of(2L), "hold-a")).isEmpty();
+        verify(ticketRepository, never()).findBookedSeatIdsByShowtimeIdAndStatus(any(), anyList());
+
+        assertThat(engine.tryHold(SHOWTIME, List.of(1L), "hold-b")).isEmpty();
+        assertThat(states()[0]).isEqualTo(SeatStateEngine.HELD);
+        assertThat(states()[1]).isEqualTo(SeatStateEngine.HELD);
+        verify(seatJournal).recordState(SHOWTIME, 1L, SeatStateEngine.AVAILABLE, SeatJournal.Source.RECONCILE);
+    }
+
+    private ShowtimeSeatSnapshot snapshot() {
+        return engine.find(SHOWTIME).orElseThrow();
+    }
+
+    private byte[] states() {
+        return snapshot().states();
+    }
+}
@@ -0,0 +1,104 @@
+package com.cinema.service;
+
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.ShowtimeSeatCount;
+import com.cinema.repository.TicketRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShowtimeSeatCountersTest {
+
+    private ShowtimeRepository showtimeRepository;
+    private TicketRepository ticketRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private ShowtimeSeatCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        showtimeRepository = mock(ShowtimeRepository.class);
+        ticketRepository = mock(TicketRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        counters = new ShowtimeSeatCounters(showtimeRepository, ticketRepository, inlineTransactions(), meterRegistry, 2);
+    }
+
+    @Test
+    void changesAreNettedPerShowtimeAndWrittenInIdOrder() {
+        counters.apply(counters.changes()
+                .move(2L, "SOLD", "AVAILABLE", 1)
+                .move(1L, "AVAILABLE", "BOOKED", 2)
+                .move(1L, "booked", "sold", 1));
+
+        InOrder order = inOrder(showtimeRepository);
+        order.verify(showtimeRepository).adjustSeatCounters(1L, 1, 1);
+        order.verify(showtimeRepository).adjustSeatCounters(2L, -1, 0);
+    }
+
+    @Test
+    void changesThatCancelOutWriteNothing() {
+        counters.apply(counters.changes()
+                .move(1L, "AVAILABLE", "PROCESSING", 1)
+                .move(1L, "PROCESSING", "AVAILABLE", 1)
+                // AVAILABLE / CANCELLED không được đếm
+                .move(1L, "AVAILABLE", "CANCELLED", 3));
+
+        verify(showtimeRepository, never()).adjustSeatCounters(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void reconcileOverwritesOnlyMismatchedCounters() {
+        when(showtimeRepository.findIdsAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(1L, 2L));
+        when(showtimeRepository.findIdsAfter(2L, PageRequest.of(0, 2))).thenReturn(List.of(3L));
+        when(showtimeRepository.lockSeatCounters(List.of(1L, 2L)))
+                .thenReturn(List.of(new ShowtimeSeatCount(1L, 5L, 2L), new ShowtimeSeatCount(2L, 0L, 0L)));
+        when(showtimeRepository.lockSeatCounters(List.of(3L)))
+                .thenReturn(List.of(new ShowtimeSeatCount(3L, 4L, 1L)));
+        when(ticketRepository.countSeatsByShowtimeIds(eq(List.of(1L, 2L)), any(), any()))
+                .thenReturn(List.of(new ShowtimeSeatCount(1L, 5L, 2L)));
+        // Suất chiếu 3 đã hết vé giữ nhưng bộ đếm chưa biết
+        when(ticketRepository.countSeatsByShowtimeIds(eq(List.of(3L)), any(), any()))
+                .thenReturn(List.of(new ShowtimeSeatCount(3L, 4L, 0L)));
+
+        int fixed = counters.reconcile();
+
+        assertThat(fixed).isEqualTo(1);
+        verify(showtimeRepository).overwriteSeatCounters(List.of());
+        verify(showtimeRepository).overwriteSeatCounters(List.of(new ShowtimeSeatCount(3L, 4L, 0L)));
+        assertThat(meterRegistry.counter("cinema.seat_counters.mismatch").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void reconcileResetsCountersOfShowtimeWithoutTickets() {
+        when(showtimeRepository.findIdsAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(7L));
+        when(showtimeRepository.lockSeatCounters(List.of(7L))).thenReturn(List.of(new ShowtimeSeatCount(7L, 3L, 1L)));
+        when(ticketRepository.countSeatsByShowtimeIds(eq(List.of(7L)), any(), any())).thenReturn(List.of());
+
+        assertThat(counters.reconcile()).isEqualTo(1);
+        verify(showtimeRepository).overwriteSeatCounters(List.of(new ShowtimeSeatCount(7L, 0L, 0L)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TransactionTemplate inlineTransactions() {
+        TransactionTemplate template = mock(TransactionTemplate.class);
+        when(template.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        return template;
+    }
+}
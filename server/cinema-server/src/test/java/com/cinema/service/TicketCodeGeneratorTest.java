@@ -0,0 +1,107 @@
+package com.cinema.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TicketCodeGeneratorTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    @Test
+    void codesAreUniqueAcrossThreads() throws InterruptedException {
+        TicketCodeGenerator generator = new TicketCodeGenerator(0);
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                // Nhiều hơn 4096 mã / mili giây: buộc phải mượn mili giây kế tiếp
+                for (int i = 0; i < 20_000; i++) {
+                    codes.add(generator.next());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(codes).hasSize(80_000);
+    }
+
+    @Test
+    void differentNodesNeverProduceTheSameCode() {
+        TicketCodeGenerator first = new TicketCodeGenerator(1);
+        TicketCodeGenerator second = new TicketCodeGenerator(2);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            codes.add(first.next());
+            codes.add(second.next());
+        }
+
+        assertThat(codes).hasSize(10_000);
+    }
+
+    @Test
+    void generatedCodeHasPrefixTwoGroupsAndValidCheckDigit() {
+        String code = new TicketCodeGenerator(7).next();
+
+        assertThat(code).matches("TKT-[0-9A-HJKMNP-TV-Z]{7}-[0-9A-HJKMNP-TV-Z]{7}");
+        assertThat(TicketCodeGenerator.normalize(code)).isEqualTo(code);
+    }
+
+    @Test
+    void normalizeAcceptsTypedVariants() {
+        String code = new TicketCodeGenerator(3).next();
+        String body = code.substring(TicketCodeGenerator.PREFIX.length());
+
+        assertThat(TicketCodeGenerator.normalize(body)).isEqualTo(code);
+        assertThat(TicketCodeGenerator.normalize(" " + code.toLowerCase() + " ")).isEqualTo(code);
+        assertThat(TicketCodeGenerator.normalize(body.replace("-", ""))).isEqualTo(code);
+        assertThat(TicketCodeGenerator.normalize(body.replace("-", " "))).isEqualTo(code);
+        // Ký tự dễ nhầm: O → 0, I / L → 1
+        assertThat(TicketCodeGenerator.normalize(body.replace('0', 'O').replace('1', 'l'))).isEqualTo(code);
+    }
+
+    @Test
+    void normalizeRejectsEverySingleCharacterTypo() {
+        String code = new TicketCodeGenerator(5).next();
+        char[] body = code.substring(TicketCodeGenerator.PREFIX.length()).replace("-", "").toCharArray();
+
+        for (int pos = 0; pos < body.length; pos++) {
+            char original = body[pos];
+            for (char replacement : ALPHABET.toCharArray()) {
+                if (replacement == original) {
+                    continue;
+                }
+                body[pos] = replacement;
+                assertThat(TicketCodeGenerator.normalize(new String(body))).as("typo at %d", pos).isNull();
+            }
+            body[pos] = original;
+        }
+    }
+
+    @Test
+    void normalizeRejectsMalformedInput() {
+        String code = new TicketCodeGenerator(0).next();
+
+        assertThat(TicketCodeGenerator.normalize(null)).isNull();
+        assertThat(TicketCodeGenerator.normalize("")).isNull();
+        assertThat(TicketCodeGenerator.normalize(code.substring(0, code.length() - 1))).isNull();
+        assertThat(TicketCodeGenerator.normalize(code + "0")).isNull();
+        assertThat(TicketCodeGenerator.normalize(code.replace('-', '_'))).isNull();
+        assertThat(TicketCodeGenerator.normalize(code.substring(0, 6) + "U" + code.substring(7))).isNull();
+    }
+
+    @Test
+    void rejectsNodeIdOutsideTenBits() {
+        assertThatThrownBy(() -> new TicketCodeGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TicketCodeGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,219 @@
+package com.cinema.service.impl;
+
+import com.cinema.dto.BookingRequestDTO;
+import com.cinema.dto.BookingResponseDTO;
+import com.cinema.exception.SeatUnavailableException;
+import com.cinema.model.Order;
+import com.cinema.model.Room;
+import com.cinema.model.Seat;
+import com.cinema.model.Showtime;
+import com.cinema.model.Ticket;
+import com.cinema.model.User;
+import com.cinema.repository.OrderRepository;
+import com.cinema.repository.PricingRuleRepository;
+import com.cinema.repository.SeatRepository;
+import com.cinema.repository.ShowtimeRepository;
+import com.cinema.repository.TicketRepository;
+import com.cinema.repository.TransactionRepository;
+import com.cinema.repository.UserRepository;
+import com.cinema.service.PricingEngine;
+import com.cinema.service.RoomSeatIndex;
+import com.cinema.service.SeatHoldService;
+import com.cinema.service.SeatLayout;
+import com.cinema.service.SeatStateEngine;
+import com.cinema.service.ShowtimeLockManager;
+import com.cinema.service.ShowtimeSeatCounters;
+import com.cinema.service.ShowtimeSeatSnapshot;
+import com.cinema.service.TicketCodeGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingServiceImplTest {
+
+    private static final Long USER = 7L;
+    private static final Long SHOWTIME = 1L;
+    private static final Long ORDER = 500L;
+    private static final BigDecimal PRICE = new BigDecimal("90000.00");
+    private static final List<Long> SEAT_IDS = List.of(11L, 12L, 13L);
+
+    private TicketRepository ticketRepository;
+    private OrderRepository orderRepository;
+    private SeatStateEngine seatStateEngine;
+    private SeatHoldService seatHoldService;
+    private ShowtimeSeatCounters seatCounters;
+    private BookingServiceImpl bookingService;
+
+    private Showtime showtime;
+    private List<Seat> seats;
+
+    @BeforeEach
+    void setUp() {
+        Room room = Room.builder().id(3L).name("Room 3").totalRows(1).seatsPerRow(3).build();
+        seats = new ArrayList<>();
+        for (int i = 0; i < SEAT_IDS.size(); i++) {
+            Seat seat = new Seat();
+            seat.setId(SEAT_IDS.get(i));
+            seat.setRowLabel("A");
+            seat.setSeatNumber(i + 1);
+            seat.setType("STANDARD");
+            seat.setRoom(room);
+            seats.add(seat);
+        }
+        showtime = Showtime.builder().id(SHOWTIME).room(room).basePrice(PRICE)
+                .startsAt(LocalDateTime.of(2025, 1, 10, 19, 0)).endsAt(LocalDateTime.of(2025, 1, 10, 21, 0)).build();
+        SeatLayout layout = SeatLayout.of(seats);
+
+        ShowtimeRepository showtimeRepository = mock(ShowtimeRepository.class);
+        when(showtimeRepository.findById(SHOWTIME)).thenReturn(Optional.of(showtime));
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(USER)).thenReturn(Optional.of(new User()));
+        RoomSeatIndex roomSeatIndex = mock(RoomSeatIndex.class);
+        when(roomSeatIndex.get(3L)).thenReturn(layout);
+
+        seatStateEngine = mock(SeatStateEngine.class);
+        when(seatStateEngine.find(SHOWTIME)).thenReturn(Optional.of(new ShowtimeSeatSnapshot(SHOWTIME, 2L, "Movie",
+                showtime.getStartsAt(), showtime.getEndsAt(), PRICE, 3L, "Room 3", 1, 3, layout,
+                new byte[layout.size()], 1L)));
+        PricingRuleRepository pricingRules = mock(PricingRuleRepository.class);
+        when(pricingRules.findByActiveTrueOrderByPriorityAscIdAsc()).thenReturn(List.of());
+
+        seatHoldService = mock(SeatHoldService.class);
+        when(seatHoldService.holdForCheckout(eq(SHOWTIME), anyList())).thenReturn(SEAT_IDS);
+
+        ticketRepository = mock(TicketRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(ORDER);
+            return order;
+        });
+        seatCounters = mock(ShowtimeSeatCounters.class);
+
+        bookingService = new BookingServiceImpl(showtimeRepository, mock(SeatRepository.class), ticketRepository,
+                orderRepository, userRepository, mock(TransactionRepository.class), seatStateEngine, seatHoldService,
+                new ShowtimeLockManager(16, Duration.ofSeconds(1), Duration.ofHours(1), new SimpleMeterRegistry()),
+                roomSeatIndex, new TicketCodeGenerator(0), new PricingEngine(pricingRules, seatStateEngine),
+                seatCounters, inlineTransactions());
+    }
+
+    @Test
+    void claimsPreGeneratedTicketsWithOneConditionalUpdate() {
+        givenTickets("AVAILABLE", "AVAILABLE", "AVAILABLE");
+        when(ticketRepository.claimAvailable(eq(SHOWTIME), eq(SEAT_IDS), any(Order.class), eq("SOLD"), any()))
+                .thenReturn(3);
+
+        BookingResponseDTO response = bookingService.createBooking(USER, request("cash"));
+
+        assertThat(response.getBookingId()).isEqualTo(ORDER);
+        assertThat(response.getStatus()).isEqualTo("COMPLETED");
+        assertThat(response.getTotalAmount()).isEqualByComparingTo(PRICE.multiply(BigDecimal.valueOf(3)));
+        // Đủ số dòng: không cần đọc lại, không ghi từng vé
+        verify(ticketRepository, never()).findSeatIdsByOrderIdAndSeatIdIn(anyLong(), anyCollection());
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verify(ticketRepository).batchInsert(List.of());
+        verify(orderRepository).linkTicketsByOrderId(ORDER);
+        verify(seatCounters).move(SHOWTIME, "AVAILABLE", "SOLD", 3);
+        verify(seatStateEngine).markBooked(SHOWTIME, SEAT_IDS);
+    }
+
+    @Test
+    void losingTheCompareAndSetRejectsBookingWithTakenSeats() {
+        givenTickets("AVAILABLE", "AVAILABLE", "AVAILABLE");
+        // Người khác giành ghế A2 giữa lúc đọc và lúc UPDATE
+        when(ticketRepository.claimAvailable(eq(SHOWTIME), eq(SEAT_IDS), any(Order.class), eq("BOOKED"), any()))
+                .thenReturn(2);
+        when(ticketRepository.findSeatIdsByOrderIdAndSeatIdIn(ORDER, SEAT_IDS)).thenReturn(Set.of(11L, 13L));
+
+        assertThatThrownBy(() -> bookingService.createBooking(USER, request("card")))
+                .isInstanceOfSatisfying(SeatUnavailableException.class,
+                        e -> assertThat(e.getSeats()).containsExactly("A2"));
+        verify(seatStateEngine).markTaken(SHOWTIME, List.of(12L));
+        verify(orderRepository, never()).linkTicketsByOrderId(anyLong());
+        verify(seatStateEngine, never()).markBooked(anyLong(), anyCollection());
+    }
+
+    @Test
+    void ticketAlreadySoldInDbIsRejectedBeforeAnyWrite() {
+        givenTickets("AVAILABLE", "SOLD", "AVAILABLE");
+
+        assertThatThrownBy(() -> bookingService.createBooking(USER, request("cash")))
+                .isInstanceOfSatisfying(SeatUnavailableException.class,
+                        e -> assertThat(e.getSeats()).containsExactly("A2"));
+        verify(seatStateEngine).markTaken(SHOWTIME, List.of(12L));
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(ticketRepository, never()).claimAvailable(anyLong(), anyCollection(), any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void missingTicketsAreInsertedInOneBatchAndVerified() {
+        when(ticketRepository.findByShowtime_IdAndSeat_IdIn(SHOWTIME, SEAT_IDS)).thenReturn(List.of());
+        when(ticketRepository.findSeatIdsByOrderIdAndSeatIdIn(ORDER, SEAT_IDS)).thenReturn(Set.copyOf(SEAT_IDS));
+
+        BookingResponseDTO response = bookingService.createBooking(USER, request("card"));
+
+        ArgumentCaptor<List<Ticket>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(ticketRepository).batchInsert(inserted.capture());
+        assertThat(inserted.getValue()).hasSize(3)
+                .allSatisfy(ticket -> {
+                    assertThat(ticket.getStatus()).isEqualTo("BOOKED");
+                    assertThat(ticket.getOrder().getId()).isEqualTo(ORDER);
+                });
+        verify(ticketRepository, never()).claimAvailable(anyLong(), anyCollection(), any(), any(), any());
+        assertThat(response.getStatus()).isEqualTo("PROCESSING");
+        verify(seatCounters).move(SHOWTIME, "AVAILABLE", "BOOKED", 3);
+    }
+
+    private void givenTickets(String... statuses) {
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < statuses.length; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setShowtime(showtime);
+            ticket.setSeat(seats.get(i));
+            ticket.setPrice(PRICE);
+            ticket.setStatus(statuses[i]);
+            tickets.add(ticket);
+        }
+        when(ticketRepository.findByShowtime_IdAndSeat_IdIn(SHOWTIME, SEAT_IDS)).thenReturn(tickets);
+    }
+
+    private static BookingRequestDTO request(String paymentMethod) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setShowtimeId(SHOWTIME);
+        request.setSelectedSeats(List.of("A1", "A2", "A3"));
+        request.setPaymentMethod(paymentMethod);
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TransactionTemplate inlineTransactions() {
+        TransactionTemplate template = mock(TransactionTemplate.class);
+        when(template.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        return template;
+    }
+}
@@ -0,0 +1,52 @@
+// Benchmark k6 cho docs/VIRTUAL_THREADS.md
+//   k6 run -e VUS=1000 -e SHOWTIME_ID=1 scripts/bench/booking-load.js
+// Biến môi trường: BASE_URL, VUS, DURATION, SHOWTIME_ID, ROWS, SEATS_PER_ROW, USER_ID
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api';
+const SHOWTIME_ID = Number(__ENV.SHOWTIME_ID || 1);
+const ROWS = Number(__ENV.ROWS || 10);
+const SEATS_PER_ROW = Number(__ENV.SEATS_PER_ROW || 12);
+const USER_ID = Number(__ENV.USER_ID || 1);
+
+export const options = {
+  scenarios: {
+    clients: {
+      executor: 'constant-vus',
+      vus: Number(__ENV.VUS || 1000),
+      duration: __ENV.DURATION || '3m',
+      gracefulStop: '30s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+// 409 (ghế đã có người đặt) là kết quả bình thường khi nhiều client tranh cùng ghế
+http.setResponseCallback(http.expectedStatuses(200, 201, 304, 409));
+
+const randomSeat = () =>
+  String.fromCharCode(65 + Math.floor(Math.random() * ROWS)) + (1 + Math.floor(Math.random() * SEATS_PER_ROW));
+
+export default function () {
+  const roll = Math.random();
+  if (roll < 0.5) {
+    const res = http.get(`${BASE_URL}/showtimes/${SHOWTIME_ID}/details`, { tags: { name: 'details' } });
+    check(res, { 'details ok': (r) => r.status === 200 || r.status === 304 });
+  } else if (roll < 0.8) {
+    const res = http.get(`${BASE_URL}/movies?page=0&size=20`, { tags: { name: 'movies' } });
+    check(res, { 'movies ok': (r) => r.status === 200 });
+  } else {
+    const body = JSON.stringify({
+      showtimeId: SHOWTIME_ID,
+      userId: USER_ID,
+      selectedSeats: [randomSeat()],
+      paymentMethod: 'CASH',
+    });
+    const res = http.post(`${BASE_URL}/booking`, body, {
+      headers: { 'Content-Type': 'application/json' },
+      tags: { name: 'booking' },
+    });
+    check(res, { 'booking handled': (r) => r.status === 201 || r.status === 200 || r.status === 409 });
+  }
+}